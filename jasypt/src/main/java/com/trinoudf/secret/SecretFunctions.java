@@ -0,0 +1,143 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.crypto.Base64Codec;
+import com.trinoudf.global.Methods;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.function.*;
+import io.trino.spi.security.AccessDeniedException;
+import io.trino.spi.type.StandardTypes;
+import io.airlift.slice.Slice;
+import org.jasypt.encryption.pbe.PooledPBEByteEncryptor;
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+
+public class SecretFunctions {
+
+    private static final String secret = "cipher";
+    // same algorithm and defaults as org.jasypt.util.text.BasicTextEncryptor, so existing ciphertexts stay readable
+    private static final String algorithm = "PBEWithMD5AndDES";
+    private static final PooledPBEStringEncryptor textEncryptor = createTextEncryptor();
+    private static final PooledPBEByteEncryptor byteEncryptor = createByteEncryptor();
+    private static final AESEncrypt aesEncrypt = new AESEncrypt(Methods.CBC);
+    private static final FunctionStats encryptStats = PluginMetrics.function("encrypt");
+    private static final FunctionStats decryptStats = PluginMetrics.function("decrypt");
+    private static final FunctionStats decryptUserStats = PluginMetrics.function("decryptuser");
+    private static final FunctionStats reencryptStats = PluginMetrics.function("reencrypt_aes_from_jasypt");
+
+    private SecretFunctions(){
+    }
+
+    /**
+     * Creates the pool of initialized Jasypt encryptors shared by encrypt, decrypt and decryptuser.
+     * The pool has one encryptor per available processor, PooledPBEStringEncryptor is thread safe.
+     * @return Initialized PooledPBEStringEncryptor.
+     * @author Wong Kok-Lim
+     */
+    private static PooledPBEStringEncryptor createTextEncryptor() {
+        PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
+        encryptor.setPoolSize(Runtime.getRuntime().availableProcessors());
+        encryptor.setAlgorithm(algorithm);
+        encryptor.setPasswordCharArray(secret.toCharArray());
+        encryptor.initialize();
+        return encryptor;
+    }
+
+    /**
+     * Creates the pool of Jasypt byte encryptors used by reencrypt_aes_from_jasypt, configured like the text encryptors,
+     * so that values of encrypt are decrypted to their UTF-8 bytes without creating a String.
+     * @return Initialized PooledPBEByteEncryptor.
+     * @author Wong Kok-Lim
+     */
+    private static PooledPBEByteEncryptor createByteEncryptor() {
+        PooledPBEByteEncryptor encryptor = new PooledPBEByteEncryptor();
+        encryptor.setPoolSize(Runtime.getRuntime().availableProcessors());
+        encryptor.setAlgorithm(algorithm);
+        encryptor.setPasswordCharArray(secret.toCharArray());
+        encryptor.initialize();
+        return encryptor;
+    }
+
+    @Description("Encrypts a string using cipher")
+    @ScalarFunction("encrypt")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptString(@SqlType(StandardTypes.VARCHAR) Slice privateData) {
+        long start = encryptStats.start();
+        try {
+            return encryptStats.record(start, privateData, utf8Slice(textEncryptor.encrypt(privateData.toStringUtf8())));
+        }
+        catch (RuntimeException e) {
+            encryptStats.failed(start);
+            throw e;
+        }
+
+    }
+
+    @Description("Decrypts a string using cipher")
+    @ScalarFunction("decrypt")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptString(@SqlType(StandardTypes.VARCHAR) Slice secureData) {
+        long start = decryptStats.start();
+        try {
+            return decryptStats.record(start, secureData, utf8Slice(textEncryptor.decrypt(secureData.toStringUtf8())));
+        }
+        catch (RuntimeException e) {
+            decryptStats.failed(start);
+            throw e;
+        }
+
+    }
+
+    @Description("Decrypts a string using cipher and checks for user access")
+    @ScalarFunction("decryptuser")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice checkUserToDecrypt(ConnectorSession session, @SqlType(StandardTypes.VARCHAR) Slice secureData) {
+        long start = decryptUserStats.start();
+        try {
+            if(
+                    //Can be integrated with LDAP or other authentication mechanism. Recommended approach is Apache Ranger
+                    session.getUser().equalsIgnoreCase("admin")
+            ){
+                return decryptUserStats.record(start, secureData, utf8Slice(textEncryptor.decrypt(secureData.toStringUtf8())));
+            }else {
+                throw new AccessDeniedException("You need to be an admin to access secure Data");
+            }
+        }
+        catch (RuntimeException e) {
+            decryptUserStats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Moves a value of encrypt to AES CBC, giving the same result as encrypt_aes(decrypt(value), key, iv)
+     * without creating the plaintext as String or VARCHAR.
+     * @param secureData Jasypt encrypted String.
+     * @param key Key String to encrypt with.
+     * @param iv Initializer Vector to encrypt with.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Re-encrypts a value of encrypt with AES")
+    @ScalarFunction("reencrypt_aes_from_jasypt")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice reencryptAesFromJasypt(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        long start = reencryptStats.start();
+        try {
+            ByteBuffer decoded = Base64Codec.STANDARD.decode(secureData);
+            byte[] plaintext = byteEncryptor.decrypt(Arrays.copyOf(decoded.array(), decoded.remaining()));
+            return reencryptStats.record(start, secureData, aesEncrypt.sliceAES(wrappedBuffer(plaintext), key, iv));
+        }
+        catch (RuntimeException e) {
+            reencryptStats.failed(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.trinoudf.kms;
+
+import com.amazonaws.encryptionsdk.CryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.model.DecryptionMaterials;
+import com.amazonaws.encryptionsdk.model.DecryptionMaterialsRequest;
+import com.amazonaws.encryptionsdk.model.EncryptionMaterials;
+import com.amazonaws.encryptionsdk.model.EncryptionMaterialsRequest;
+import com.amazonaws.encryptionsdk.model.KeyBlob;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ==Description==
+ * <p>
+ *     CryptoMaterialsManager that coalesces concurrent decryptMaterials calls for the same encrypted data keys,
+ *     so only one of them reaches the backing materials manager (i.e. KMS) while the others wait for its result.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>backingMaterialsManager</li>
+ *     <li>inFlight</li>
+ *     <li>backingCalls</li>
+ *     <li>coalescedCalls</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>CoalescingCryptoMaterialsManager(CryptoMaterialsManager backingMaterialsManager)</li>
+ *     <li>getMaterialsForEncrypt(EncryptionMaterialsRequest request)</li>
+ *     <li>decryptMaterials(DecryptionMaterialsRequest request)</li>
+ *     <li>getBackingCalls()</li>
+ *     <li>getCoalescedCalls()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public class CoalescingCryptoMaterialsManager implements CryptoMaterialsManager {
+    private final CryptoMaterialsManager backingMaterialsManager;
+    private final ConcurrentMap<List<Object>, CompletableFuture<DecryptionMaterials>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder backingCalls = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+
+    /**
+     * Constructor for CoalescingCryptoMaterialsManager class.
+     * @param backingMaterialsManager CryptoMaterialsManager that decrypts the data keys.
+     * @author Wong Kok-Lim
+     */
+    public CoalescingCryptoMaterialsManager(CryptoMaterialsManager backingMaterialsManager) {
+        this.backingMaterialsManager = backingMaterialsManager;
+    }
+
+    @Override
+    public EncryptionMaterials getMaterialsForEncrypt(EncryptionMaterialsRequest request) {
+        return backingMaterialsManager.getMaterialsForEncrypt(request);
+    }
+
+    /**
+     * Decrypts the data keys of the request, sharing the result with concurrent requests for the same data keys.
+     * @param request DecryptionMaterialsRequest holding the encrypted data keys.
+     * @return DecryptionMaterials of the backing materials manager.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    public DecryptionMaterials decryptMaterials(DecryptionMaterialsRequest request) {
+        List<Object> requestKey = requestKey(request);
+
+        CompletableFuture<DecryptionMaterials> future = new CompletableFuture<>();
+        CompletableFuture<DecryptionMaterials> existing = inFlight.putIfAbsent(requestKey, future);
+        if (existing != null) {
+            coalescedCalls.increment();
+            try {
+                return existing.join();
+            }
+            catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            backingCalls.increment();
+            DecryptionMaterials materials = backingMaterialsManager.decryptMaterials(request);
+            future.complete(materials);
+            return materials;
+        }
+        catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            inFlight.remove(requestKey, future);
+        }
+    }
+
+    /**
+     * Number of decryptMaterials calls passed on to the backing materials manager.
+     * @return Backing call count.
+     * @author Wong Kok-Lim
+     */
+    public long getBackingCalls() {
+        return backingCalls.sum();
+    }
+
+    /**
+     * Number of decryptMaterials calls answered by a concurrent in flight call.
+     * @return Coalesced call count.
+     * @author Wong Kok-Lim
+     */
+    public long getCoalescedCalls() {
+        return coalescedCalls.sum();
+    }
+
+    /**
+     * Identity of a DecryptionMaterialsRequest, equal for requests of the same encrypted data keys.
+     * @param request DecryptionMaterialsRequest.
+     * @return List of algorithm, encryption context and the encrypted data keys.
+     * @author Wong Kok-Lim
+     */
+    private static List<Object> requestKey(DecryptionMaterialsRequest request) {
+        List<Object> requestKey = new ArrayList<>();
+        requestKey.add(request.getAlgorithm());
+        requestKey.add(request.getEncryptionContext());
+        for (KeyBlob keyBlob : request.getEncryptedDataKeys()) {
+            requestKey.add(keyBlob.getProviderId());
+            requestKey.add(ByteBuffer.wrap(keyBlob.getProviderInformation()));
+            requestKey.add(ByteBuffer.wrap(keyBlob.getEncryptedDataKey()));
+        }
+        return requestKey;
+    }
+}
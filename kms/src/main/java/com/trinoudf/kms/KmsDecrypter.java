@@ -0,0 +1,113 @@
+package com.trinoudf.kms;
+
+import com.amazonaws.encryptionsdk.AwsCrypto;
+import com.amazonaws.encryptionsdk.CryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.DefaultCryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.MasterKeyProvider;
+import com.amazonaws.encryptionsdk.caching.CachingCryptoMaterialsManager;
+import com.amazonaws.encryptionsdk.caching.LocalCryptoMaterialsCache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ==Description==
+ * <p>
+ *     Decrypts AWS Encryption SDK ciphertexts with a bounded, TTL limited cache of decrypted data keys.
+ *     Cache misses for the same encrypted data key are coalesced into a single call to the MasterKeyProvider (i.e. KMS).
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>crypto</li>
+ *     <li>coalescingMaterialsManager</li>
+ *     <li>materialsManager</li>
+ *     <li>decryptCalls</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>KmsDecrypter(MasterKeyProvider provider, int cacheCapacity, long maxAgeMillis)</li>
+ *     <li>decryptString(String ciphertext)</li>
+ *     <li>getDecryptCalls()</li>
+ *     <li>getKmsCalls()</li>
+ *     <li>getKmsCallsSaved()</li>
+ *     <li>getCoalescedCalls()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public class KmsDecrypter implements KmsDecrypterMBean {
+    private final AwsCrypto crypto = new AwsCrypto();
+    private final CoalescingCryptoMaterialsManager coalescingMaterialsManager;
+    private final CryptoMaterialsManager materialsManager;
+    private final LongAdder decryptCalls = new LongAdder();
+
+    /**
+     * Constructor for KmsDecrypter class.
+     * @param provider MasterKeyProvider decrypting the data keys, i.e. KmsMasterKeyProvider or a local stand-in.
+     * @param cacheCapacity Maximum number of decrypted data keys to cache.
+     * @param maxAgeMillis Maximum time a decrypted data key is cached, in milliseconds.
+     * @author Wong Kok-Lim
+     */
+    public KmsDecrypter(MasterKeyProvider<?> provider, int cacheCapacity, long maxAgeMillis) {
+        coalescingMaterialsManager = new CoalescingCryptoMaterialsManager(new DefaultCryptoMaterialsManager(provider));
+        materialsManager = CachingCryptoMaterialsManager.newBuilder()
+                .withBackingMaterialsManager(coalescingMaterialsManager)
+                .withCache(new LocalCryptoMaterialsCache(cacheCapacity))
+                .withMaxAge(maxAgeMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Decrypts a Base64 AWS Encryption SDK ciphertext.
+     * @param ciphertext Base64 ciphertext to decrypt.
+     * @return Decrypted String.
+     * @author Wong Kok-Lim
+     */
+    public String decryptString(String ciphertext) {
+        decryptCalls.increment();
+        return crypto.decryptString(materialsManager, ciphertext).getResult();
+    }
+
+    /**
+     * Number of decryptString calls.
+     * @return Decrypt call count.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    public long getDecryptCalls() {
+        return decryptCalls.sum();
+    }
+
+    /**
+     * Number of data key decryptions that reached the MasterKeyProvider.
+     * @return KMS call count.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    public long getKmsCalls() {
+        return coalescingMaterialsManager.getBackingCalls();
+    }
+
+    /**
+     * Number of decryptString calls that were answered without a call to the MasterKeyProvider.
+     * @return Saved KMS call count.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    public long getKmsCallsSaved() {
+        return getDecryptCalls() - getKmsCalls();
+    }
+
+    /**
+     * Number of data key decryptions answered by a concurrent call for the same data key instead of the MasterKeyProvider.
+     * @return Coalesced call count.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    public long getCoalescedCalls() {
+        return coalescingMaterialsManager.getCoalescedCalls();
+    }
+}
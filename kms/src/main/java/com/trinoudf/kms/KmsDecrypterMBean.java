@@ -0,0 +1,31 @@
+package com.trinoudf.kms;
+
+/**
+ * ==Description==
+ * <p>
+ *     JMX view of the data key cache of the KMS decrypter, see KmsDecrypter.
+ *     Registered as com.trinoudf:type=KmsDecrypter once decryptviakms creates the decrypter.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>getDecryptCalls()</li>
+ *     <li>getKmsCalls()</li>
+ *     <li>getKmsCallsSaved()</li>
+ *     <li>getCoalescedCalls()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public interface KmsDecrypterMBean {
+    long getDecryptCalls();
+
+    long getKmsCalls();
+
+    long getKmsCallsSaved();
+
+    long getCoalescedCalls();
+}
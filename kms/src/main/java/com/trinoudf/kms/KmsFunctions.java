@@ -0,0 +1,75 @@
+package com.trinoudf.kms;
+
+import com.amazonaws.encryptionsdk.kms.KmsMasterKeyProvider;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     AWS KMS decryption method for PrestoSQL, packaged in the optional KMS jar together with the AWS SDK.
+ *     SecretPlugin registers it only if the jar is installed next to the plugin jar.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>decryptKmsString(@SqlType(StandardTypes.VARBINARY) Slice secureData)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class KmsFunctions {
+    private static final FunctionStats decryptKmsStats = PluginMetrics.function("decryptviakms");
+
+    private KmsFunctions() {
+    }
+
+    /**
+     * PrestoSQL user defined function for decryption of AWS Encryption SDK ciphertexts with AWS KMS.
+     * @param secureData AWS Encryption SDK ciphertext.
+     * @return Decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a string using AWS KMS")
+    @ScalarFunction("decryptviakms")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptKmsString(@SqlType(StandardTypes.VARBINARY) Slice secureData) {
+        long start = decryptKmsStats.start();
+        try {
+            String data = Base64.getEncoder().encodeToString((Base64.getEncoder().encode(secureData.getBytes())));
+            return decryptKmsStats.record(start, secureData, utf8Slice(KmsDecrypterHolder.kmsDecrypter.decryptString(data)));
+        }
+        catch (RuntimeException e) {
+            decryptKmsStats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Lazily creates the KmsDecrypter on the first decryptviakms call, so the AWS SDK is only loaded when it is used.
+     * Its data key cache counters are then exposed as com.trinoudf:type=KmsDecrypter.
+     */
+    private static final class KmsDecrypterHolder {
+        private static final int dataKeyCacheCapacity = 1000;
+        private static final long dataKeyMaxAgeMillis = TimeUnit.MINUTES.toMillis(5);
+
+        private static final KmsDecrypter kmsDecrypter = new KmsDecrypter(new KmsMasterKeyProvider(), dataKeyCacheCapacity, dataKeyMaxAgeMillis);
+
+        static {
+            PluginMetrics.component("KmsDecrypter", kmsDecrypter);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.trinoudf.benchmark;
+
+import com.trinoudf.crypto.AESDecrypt;
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.global.Methods;
+import io.airlift.slice.Slice;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+
+/**
+ * ==Description==
+ * <p>
+ *     Throughput of the AES engines across payload sizes, for Base64 encoded and raw ciphertexts.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>method</li>
+ *     <li>payloadSize</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>setup()</li>
+ *     <li>encrypt()</li>
+ *     <li>decrypt()</li>
+ *     <li>encryptRaw()</li>
+ *     <li>decryptRaw()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AESBenchmark {
+    private static final Slice KEY = utf8Slice("aesEncryptionKey");
+    private static final Slice IV = utf8Slice("encryptionIntVec");
+
+    @Param({"CBC", "CTR", "GCM"})
+    public Methods method;
+
+    @Param({"16", "256", "4096", "65536", "1048576"})
+    public int payloadSize;
+
+    private AESEncrypt aesEncrypt;
+    private AESDecrypt aesDecrypt;
+    private Slice payload;
+    private Slice ciphertext;
+    private Slice rawCiphertext;
+
+    @Setup
+    public void setup() {
+        aesEncrypt = new AESEncrypt(method);
+        aesDecrypt = new AESDecrypt(method);
+
+        byte[] bytes = new byte[payloadSize];
+        new Random(42).nextBytes(bytes);
+        payload = wrappedBuffer(bytes);
+        ciphertext = aesEncrypt.sliceAES(payload, KEY, IV);
+        rawCiphertext = aesEncrypt.rawSliceAES(payload, KEY, IV);
+    }
+
+    @Benchmark
+    public Slice encrypt() {
+        return aesEncrypt.sliceAES(payload, KEY, IV);
+    }
+
+    @Benchmark
+    public Slice decrypt() {
+        return aesDecrypt.sliceAES(ciphertext, KEY, IV);
+    }
+
+    @Benchmark
+    public Slice encryptRaw() {
+        return aesEncrypt.rawSliceAES(payload, KEY, IV);
+    }
+
+    @Benchmark
+    public Slice decryptRaw() {
+        return aesDecrypt.rawSliceAES(rawCiphertext, KEY, IV);
+    }
+}
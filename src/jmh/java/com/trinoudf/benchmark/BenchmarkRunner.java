@@ -0,0 +1,77 @@
+package com.trinoudf.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * ==Description==
+ * <p>
+ *     Runs the JMH benchmarks once for every requested thread count with the GC profiler,
+ *     so every result reports ops/s together with the allocation rate (gc.alloc.rate.norm).
+ *     Results are written as JSON to build/reports/jmh/results-&lt;threads&gt;-threads.json.
+ * </p>
+ * <p>
+ *     Usage: gradle jmh -PjmhInclude=AESBenchmark -PjmhThreads=1,4,16
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>main(String[] args)</li>
+ *     <li>parseThreads(String threads)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class BenchmarkRunner {
+    private static final String RESULT_DIRECTORY = "build/reports/jmh";
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     * @param args Optional benchmark include regex followed by an optional comma separated list of thread counts.
+     * @throws RunnerException If JMH fails to run a benchmark.
+     * @author Wong Kok-Lim
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 && !args[0].isEmpty() ? args[0] : "com\\.trinoudf\\.benchmark\\..*";
+        int[] threadCounts = parseThreads(args.length > 1 && !args[1].isEmpty() ? args[1] : "1," + Runtime.getRuntime().availableProcessors());
+
+        new File(RESULT_DIRECTORY).mkdirs();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(RESULT_DIRECTORY + "/results-" + threads + "-threads.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    /**
+     * Parses a comma separated list of thread counts.
+     * @param threads Comma separated thread counts, e.g. 1,4,16.
+     * @return Thread counts.
+     * @author Wong Kok-Lim
+     */
+    private static int[] parseThreads(String threads) {
+        String[] parts = threads.split(",");
+        int[] threadCounts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            threadCounts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return threadCounts;
+    }
+}
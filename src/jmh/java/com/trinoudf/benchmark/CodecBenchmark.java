@@ -0,0 +1,93 @@
+package com.trinoudf.benchmark;
+
+import com.trinoudf.crypto.Base64Codec;
+import com.trinoudf.crypto.Decoder;
+import com.trinoudf.crypto.Encoder;
+import io.airlift.slice.Slice;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     Throughput of Base64 encoding and decoding by Encoder, Decoder and Base64Codec across payload sizes.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>payloadSize</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>setup()</li>
+ *     <li>encodeBytes()</li>
+ *     <li>encodeByteBuffer()</li>
+ *     <li>decodeString()</li>
+ *     <li>decodeSlice()</li>
+ *     <li>encodeSliceCodec()</li>
+ *     <li>decodeSliceIntoBuffer()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CodecBenchmark {
+    @Param({"16", "256", "4096", "65536"})
+    public int payloadSize;
+
+    private byte[] payload;
+    private String encoded;
+    private Slice encodedSlice;
+    private byte[] decodeBuffer;
+
+    @Setup
+    public void setup() {
+        payload = new byte[payloadSize];
+        new Random(42).nextBytes(payload);
+        encoded = Encoder.encode(payload);
+        encodedSlice = utf8Slice(encoded);
+        decodeBuffer = new byte[Base64Codec.STANDARD.maxDecodedLength(encodedSlice.length())];
+    }
+
+    @Benchmark
+    public String encodeBytes() {
+        return Encoder.encode(payload);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeByteBuffer() {
+        return Encoder.encode(ByteBuffer.wrap(payload));
+    }
+
+    @Benchmark
+    public byte[] decodeString() {
+        return Decoder.decode(encoded);
+    }
+
+    @Benchmark
+    public ByteBuffer decodeSlice() {
+        return Decoder.decode(encodedSlice);
+    }
+
+    @Benchmark
+    public Slice encodeSliceCodec() {
+        return Base64Codec.STANDARD.encode(payload, 0, payload.length);
+    }
+
+    @Benchmark
+    public int decodeSliceIntoBuffer() {
+        return Base64Codec.STANDARD.decode(encodedSlice, decodeBuffer, 0);
+    }
+}
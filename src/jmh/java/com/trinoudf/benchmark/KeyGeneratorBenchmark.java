@@ -0,0 +1,85 @@
+package com.trinoudf.benchmark;
+
+import com.trinoudf.key.KeyGenerator;
+import io.airlift.slice.Slice;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     Throughput of SHA and PBKDF2 key derivation by KeyGenerator.
+ *     With cached=false every call uses one of more distinct keys than the key caches hold,
+ *     which measures the derivation itself.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>cached</li>
+ *     <li>keys</li>
+ *     <li>keySlices</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>setup()</li>
+ *     <li>shaString()</li>
+ *     <li>shaSlice()</li>
+ *     <li>pbkdf2()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class KeyGeneratorBenchmark {
+    private static final int DISTINCT_KEYS = 8192;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private String[] keys;
+    private Slice[] keySlices;
+
+    @Setup
+    public void setup() {
+        int count = cached ? 1 : DISTINCT_KEYS;
+        keys = new String[count];
+        keySlices = new Slice[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = "aesEncryptionKey" + i;
+            keySlices[i] = utf8Slice(keys[i]);
+        }
+        KeyGenerator.invalidateAll();
+    }
+
+    private int nextIndex() {
+        return cached ? 0 : (next.getAndIncrement() & (DISTINCT_KEYS - 1));
+    }
+
+    @Benchmark
+    public SecretKeySpec shaString() {
+        return KeyGenerator.aesShaKeySpecGenerator(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public SecretKeySpec shaSlice() {
+        return KeyGenerator.aesShaKeySpecGenerator(keySlices[nextIndex()]);
+    }
+
+    @Benchmark
+    public SecretKeySpec pbkdf2() {
+        return KeyGenerator.aesHmacKeySpecGenerator(keys[nextIndex()]);
+    }
+}
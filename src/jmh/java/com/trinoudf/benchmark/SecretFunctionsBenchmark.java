@@ -0,0 +1,53 @@
+package com.trinoudf.benchmark;
+
+import com.trinoudf.secret.SecretFunctions;
+import io.airlift.slice.Slice;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     Throughput of the Jasypt encrypt and decrypt functions of SecretFunctions.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>setup()</li>
+ *     <li>encrypt()</li>
+ *     <li>decrypt()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SecretFunctionsBenchmark {
+    private final Slice plaintext = utf8Slice("hello2");
+    private Slice ciphertext;
+
+    @Setup
+    public void setup() {
+        ciphertext = SecretFunctions.encryptString(plaintext);
+    }
+
+    @Benchmark
+    public Slice encrypt() {
+        return SecretFunctions.encryptString(plaintext);
+    }
+
+    @Benchmark
+    public Slice decrypt() {
+        return SecretFunctions.decryptString(ciphertext);
+    }
+}
@@ -0,0 +1,72 @@
+package com.trinoudf.benchmark;
+
+import com.trinoudf.secret.TrinoDecryptAES;
+import com.trinoudf.secret.TrinoEncryptAES;
+import com.trinoudf.secret.TrinoEncryptAESRaw;
+import io.airlift.slice.Slice;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     Throughput of the static SQL entry points of TrinoEncryptAES and TrinoDecryptAES,
+ *     i.e. the per row cost seen by a Trino query.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>setup()</li>
+ *     <li>encryptVarchar()</li>
+ *     <li>encryptBigint()</li>
+ *     <li>decryptVarchar()</li>
+ *     <li>decryptRaw()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TrinoFunctionsBenchmark {
+    private final Slice key = utf8Slice("aesEncryptionKey");
+    private final Slice iv = utf8Slice("encryptionIntVec");
+    private final Slice plaintext = utf8Slice("12151fd2-7586-11e9-8f9e-2a86e4085a59");
+    private Slice ciphertext;
+    private Slice rawCiphertext;
+
+    @Setup
+    public void setup() {
+        ciphertext = TrinoEncryptAES.encryptBinaryAES(plaintext, key, iv);
+        rawCiphertext = TrinoEncryptAESRaw.encryptBinaryAESRaw(plaintext, key, iv);
+    }
+
+    @Benchmark
+    public Slice encryptVarchar() {
+        return TrinoEncryptAES.encryptBinaryAES(plaintext, key, iv);
+    }
+
+    @Benchmark
+    public Slice encryptBigint() {
+        return TrinoEncryptAES.encryptLongAES(1234567890L, key, iv);
+    }
+
+    @Benchmark
+    public Slice decryptVarchar() {
+        return TrinoDecryptAES.decryptStringAes(ciphertext, key, iv);
+    }
+
+    @Benchmark
+    public Slice decryptRaw() {
+        return TrinoDecryptAES.decryptStringAesRaw(rawCiphertext, key, iv);
+    }
+}
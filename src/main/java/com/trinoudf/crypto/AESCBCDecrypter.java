@@ -1,12 +1,9 @@
 package com.trinoudf.crypto;
 
-import com.trinoudf.key.KeyGenerator;
+import io.airlift.slice.Slice;
 
 import javax.crypto.*;
-import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -35,62 +32,50 @@ import java.security.NoSuchAlgorithmException;
  * @author Wong Kok-Lim
  * @example
  */
-public class AESCBCDecrypter implements Decrypter {
-    public final String AES_TRANSFORM = "AES/CBC/PKCS5PADDING";
+public class AESCBCDecrypter extends AbstractAESDecrypter {
+    public static final String AES_TRANSFORM = AESCBCEncrypter.AES_TRANSFORM;
 
     public AESCBCDecrypter() {
+        super(AES_TRANSFORM);
     }
 
     /**
-     * Decrypts given AES CBC encrypted String.
-     * @param payload AES CBC encrypted String to decrypt.
-     * @param key AES CBC key to use for decryption.
-     * @param initVector Initialize Vector to use for decryption.
-     * @throws NoSuchPaddingException
-     * @throws NoSuchAlgorithmException
-     * @throws InvalidKeyException
-     * @throws BadPaddingException
-     * @throws IllegalBlockSizeException
+     * AES CBC ciphertexts are padded to whole 16 byte blocks.
+     * @param payloadLength Length of the ciphertext.
+     * @return false if no ciphertext of this length exists.
      * @author Wong Kok-Lim
      */
-    public String decryptString(String payload, String key, String initVector) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException {
-        IvParameterSpec iv = new IvParameterSpec(initVector.getBytes(StandardCharsets.UTF_8));
-        SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
-
-        byte[] data = Decoder.decode(payload);
-
-        Cipher cipher = Cipher.getInstance(AES_TRANSFORM);
-        cipher.init(Cipher.DECRYPT_MODE, skeySpec, iv);
-        return new String(cipher.doFinal(data));
+    @Override
+    protected boolean isValidLength(int payloadLength) {
+        return payloadLength > 0 && payloadLength % 16 == 0;
     }
 
     /**
-     * Decrypts AES CBC encrypted ByteBuffer.
-     * @param payload AES encrypted ByteBuffer to decrypt.
-     * @param key Key String to use for decryption.
-     * @param initVector Initialize Vector to use for decryption.
+     * Upper bound of the AES CBC plaintext length, the padding is only known after decryption.
+     * @param payloadLength Length of the ciphertext to be decrypted.
+     * @return Maximum plaintext length.
      * @author Wong Kok-Lim
      */
-    public ByteBuffer decryptByteBuffer(ByteBuffer payload, String key, String initVector) {
-        IvParameterSpec iv = new IvParameterSpec(initVector.getBytes(StandardCharsets.UTF_8));
-
-        SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
-
-        if (payload == null || !payload.hasRemaining()) {
-            return payload;
-        } else {
-            try {
-                Cipher cipher = Cipher.getInstance(AES_TRANSFORM);
-                cipher.init(Cipher.DECRYPT_MODE, skeySpec, iv);
-
-                ByteBuffer decrypted = ByteBuffer.allocate(cipher.getOutputSize(payload.remaining()));
-                cipher.doFinal(payload, decrypted);
-                decrypted.rewind();
+    @Override
+    protected int getOutputSize(int payloadLength) {
+        return payloadLength;
+    }
 
-                return decrypted;
-            } catch (Exception e) {
-                throw new IllegalStateException(e);
-            }
-        }
+    /**
+     * Decrypts an AES CBC ciphertext byte range.
+     * @param payload byte[] holding the ciphertext.
+     * @param offset Offset of the ciphertext in payload.
+     * @param length Length of the ciphertext.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @param output Output byte[].
+     * @param outputOffset Offset of the plaintext in output.
+     * @return Number of bytes written to output.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int decrypt(byte[] payload, int offset, int length, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException {
+        Cipher cipher = CipherCache.getCipher(transform, Cipher.DECRYPT_MODE, key, initVector);
+        return cipher.doFinal(payload, offset, length, output, outputOffset);
     }
 }
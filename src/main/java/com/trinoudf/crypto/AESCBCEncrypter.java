@@ -1,12 +1,10 @@
 package com.trinoudf.crypto;
 
-import com.trinoudf.key.KeyGenerator;
+import io.airlift.slice.Slice;
 
 import javax.crypto.*;
-import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -35,64 +33,38 @@ import java.security.NoSuchAlgorithmException;
  * @author Wong Kok-Lim
  * @example
  */
-public class AESCBCEncrypter implements Encrypter {
-    public final String AES_TRANSFORM = "AES/CBC/PKCS5PADDING";
+public class AESCBCEncrypter extends AbstractAESEncrypter {
+    public static final String AES_TRANSFORM = "AES/CBC/PKCS5PADDING";
+    private static final int blockSize = 16;
 
     public AESCBCEncrypter() {
+        super(AES_TRANSFORM);
     }
 
     /**
-     * Encrypts given String with AES CBC.
-     * @param payload String to be encrypted.
-     * @param key String key to use for encryption.
-     * @param initVector Initialize Vector to use for encryption.
-     * @throws NoSuchPaddingException
-     * @throws NoSuchAlgorithmException
-     * @throws InvalidKeyException
-     * @throws BadPaddingException
-     * @throws IllegalBlockSizeException
+     * Length of the AES CBC ciphertext of a payload, PKCS5 always adds 1 to 16 bytes of padding.
+     * @param payloadLength Length of the payload to be encrypted.
+     * @return Exact ciphertext length.
      * @author Wong Kok-Lim
      */
-    public String encryptString(String payload, String key, String initVector) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException {
-        IvParameterSpec iv = new IvParameterSpec(initVector.getBytes(StandardCharsets.UTF_8));
-        SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
-
-        Cipher cipher = Cipher.getInstance(AES_TRANSFORM);
-        cipher.init(Cipher.ENCRYPT_MODE, skeySpec, iv);
-        byte[] data = cipher.doFinal(payload.getBytes());
-
-        // encode base64
-        return Encoder.encode(data).replaceAll("\n", "").replaceAll("\r", "");
+    @Override
+    protected int getOutputSize(int payloadLength) {
+        return (payloadLength / blockSize + 1) * blockSize;
     }
 
     /**
-     * Encrypts given ByteBuffer with AES CBC.
+     * Encrypts the remaining bytes of payload with AES CBC.
      * @param payload ByteBuffer to be encrypted.
-     * @param key Key String to use for encryption.
-     * @param initVector Initialize Vector to use for encryption
+     * @param key SecretKeySpec to use for encryption.
+     * @param initVector Initialize Vector Slice to use for encryption.
+     * @param output Output byte[].
+     * @param outputOffset Offset of the ciphertext in output.
+     * @return Number of bytes written to output.
      * @author Wong Kok-Lim
      */
-    public ByteBuffer encryptByteBuffer(ByteBuffer payload, String key, String initVector) {
-        IvParameterSpec iv = new IvParameterSpec(initVector.getBytes(StandardCharsets.UTF_8));
-        SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
-
-        if ( payload == null || !payload.hasRemaining() ) {
-            return payload;
-        }
-        else {
-            try {
-                Cipher cipher = Cipher.getInstance(AES_TRANSFORM);
-                cipher.init(Cipher.ENCRYPT_MODE, skeySpec, iv);
-                ByteBuffer encrypted = ByteBuffer.allocate(cipher.getOutputSize(payload.remaining()));
-                cipher.doFinal(payload, encrypted);
-                encrypted.rewind();
-
-                // encode base64
-                return Encoder.encode(encrypted);
-            }
-            catch (Exception e) {
-                throw new IllegalStateException(e);
-            }
-        }
+    @Override
+    protected int encrypt(ByteBuffer payload, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException {
+        Cipher cipher = CipherCache.getCipher(transform, Cipher.ENCRYPT_MODE, key, initVector);
+        return cipher.doFinal(payload, ByteBuffer.wrap(output, outputOffset, output.length - outputOffset));
     }
 }
@@ -0,0 +1,91 @@
+package com.trinoudf.crypto;
+
+import io.airlift.slice.Slice;
+
+import javax.crypto.*;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+import static com.trinoudf.crypto.AESCTREncrypter.NONCE_LENGTH;
+
+/**
+ * ==Description==
+ * <p>
+ *     Decrypts a given AES CTR encrypted String, a random 16 byte nonce followed by the ciphertext.
+ *     The initial counter block is the nonce XOR the Initialize Vector, see AESCTREncrypter.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>AESCTRDecrypter()</li>
+ *     <li>isValidLength(int payloadLength)</li>
+ *     <li>getOutputSize(int payloadLength)</li>
+ *     <li>getRandomIvLength()</li>
+ *     <li>decrypt(byte[] payload, int offset, int length, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public class AESCTRDecrypter extends AbstractAESDecrypter {
+    public static final String AES_TRANSFORM = AESCTREncrypter.AES_TRANSFORM;
+
+    public AESCTRDecrypter() {
+        super(AES_TRANSFORM);
+    }
+
+    /**
+     * AES CTR ciphertexts hold at least the nonce.
+     * @param payloadLength Length of the ciphertext.
+     * @return false if no ciphertext of this length exists.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected boolean isValidLength(int payloadLength) {
+        return payloadLength >= NONCE_LENGTH;
+    }
+
+    @Override
+    protected int getOutputSize(int payloadLength) {
+        return Math.max(0, payloadLength - NONCE_LENGTH);
+    }
+
+    /**
+     * Random Initialize Vector mode needs no extra header, the random nonce is already in front of the ciphertext.
+     * @return 0.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int getRandomIvLength() {
+        return 0;
+    }
+
+    /**
+     * Decrypts an AES CTR nonce and ciphertext byte range.
+     * @param payload byte[] holding the nonce and ciphertext.
+     * @param offset Offset of the nonce in payload.
+     * @param length Length of nonce and ciphertext.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector 16 byte Initialize Vector Slice, or empty in random Initialize Vector mode.
+     * @param output Output byte[].
+     * @param outputOffset Offset of the plaintext in output.
+     * @return Number of bytes written to output.
+     * @throws InvalidAlgorithmParameterException If the Initialize Vector is neither 16 bytes nor empty.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int decrypt(byte[] payload, int offset, int length, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException {
+        if (length < NONCE_LENGTH) {
+            throw new IllegalBlockSizeException("AES CTR ciphertext is shorter than its nonce");
+        }
+
+        Cipher cipher = CipherCache.getUninitializedCipher(transform, Cipher.DECRYPT_MODE);
+        cipher.init(Cipher.DECRYPT_MODE, key, AESCTREncrypter.counter(payload, offset, initVector));
+
+        return cipher.doFinal(payload, offset + NONCE_LENGTH, length - NONCE_LENGTH, output, outputOffset);
+    }
+}
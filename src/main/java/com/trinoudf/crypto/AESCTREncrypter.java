@@ -0,0 +1,109 @@
+package com.trinoudf.crypto;
+
+import io.airlift.slice.Slice;
+
+import javax.crypto.*;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * ==Description==
+ * <p>
+ *     Encrypts a given String using AES CTR.
+ *     CTR must never reuse a counter with the same key, so every value gets a random 16 byte nonce
+ *     which is prepended to the ciphertext. The initial counter block is the nonce XOR the Initialize Vector,
+ *     so a value only decrypts with the same key and Initialize Vector it was encrypted with.
+ *     CTR needs no padding, so the ciphertext is exactly as long as the payload.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>AESCTREncrypter()</li>
+ *     <li>getOutputSize(int payloadLength)</li>
+ *     <li>getRandomIvLength()</li>
+ *     <li>encrypt(ByteBuffer payload, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset)</li>
+ *     <li>counter(byte[] nonce, int offset, Slice initVector)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public class AESCTREncrypter extends AbstractAESEncrypter {
+    public static final String AES_TRANSFORM = "AES/CTR/NoPadding";
+    public static final int NONCE_LENGTH = 16;
+
+    public AESCTREncrypter() {
+        super(AES_TRANSFORM);
+    }
+
+    /**
+     * Length of the AES CTR output, nonce followed by ciphertext.
+     * @param payloadLength Length of the payload to be encrypted.
+     * @return Exact output length.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int getOutputSize(int payloadLength) {
+        return NONCE_LENGTH + payloadLength;
+    }
+
+    /**
+     * Random Initialize Vector mode needs no extra header, the random nonce is already in front of the ciphertext.
+     * @return 0.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int getRandomIvLength() {
+        return 0;
+    }
+
+    /**
+     * Encrypts the remaining bytes of payload with AES CTR under a fresh random nonce.
+     * @param payload ByteBuffer to be encrypted.
+     * @param key SecretKeySpec to use for encryption.
+     * @param initVector 16 byte Initialize Vector Slice, or empty in random Initialize Vector mode.
+     * @param output Output byte[].
+     * @param outputOffset Offset of the nonce in output.
+     * @return Number of bytes written to output.
+     * @throws InvalidAlgorithmParameterException If the Initialize Vector is neither 16 bytes nor empty.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int encrypt(ByteBuffer payload, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException {
+        IvGenerator.nextBytes(output, outputOffset, NONCE_LENGTH);
+
+        Cipher cipher = CipherCache.getUninitializedCipher(transform, Cipher.ENCRYPT_MODE);
+        cipher.init(Cipher.ENCRYPT_MODE, key, counter(output, outputOffset, initVector));
+
+        int nonceEnd = outputOffset + NONCE_LENGTH;
+        return NONCE_LENGTH + cipher.doFinal(payload, ByteBuffer.wrap(output, nonceEnd, output.length - nonceEnd));
+    }
+
+    /**
+     * Initial counter block of a value, its nonce XOR the Initialize Vector.
+     * @param nonce byte[] holding the 16 byte nonce.
+     * @param offset Offset of the nonce in nonce.
+     * @param initVector 16 byte Initialize Vector Slice, or empty to count from the nonce alone.
+     * @return Counter block IvParameterSpec.
+     * @throws InvalidAlgorithmParameterException If the Initialize Vector is neither 16 bytes nor empty.
+     * @author Wong Kok-Lim
+     */
+    static IvParameterSpec counter(byte[] nonce, int offset, Slice initVector) throws InvalidAlgorithmParameterException {
+        if (initVector.length() != NONCE_LENGTH && initVector.length() != 0) {
+            throw new InvalidAlgorithmParameterException("AES CTR Initialize Vector must be " + NONCE_LENGTH + " bytes: " + initVector.length());
+        }
+
+        byte[] counter = new byte[NONCE_LENGTH];
+        System.arraycopy(nonce, offset, counter, 0, NONCE_LENGTH);
+        for (int i = 0; i < initVector.length(); i++) {
+            counter[i] ^= initVector.getByte(i);
+        }
+        return new IvParameterSpec(counter);
+    }
+}
@@ -1,11 +1,13 @@
 package com.trinoudf.crypto;
 
 import com.trinoudf.global.Methods;
+import com.trinoudf.key.KeyGenerator;
 import io.airlift.slice.Slice;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -25,50 +27,242 @@ import static io.airlift.slice.Slices.wrappedBuffer;
  * ===Methods===
  * <p>This class contains the following methods when instantiated:</p>
  * <ul>
+ *     <li>AESDecrypt(Methods method)</li>
  *     <li>stringAES(String secureData, String key, String iv)</li>
  *     <li>byteBufferAES(String secureData, String key, String iv)</li>
+ *     <li>sliceAES(Slice secureData, Slice key, Slice iv)</li>
+ *     <li>sliceAES(Slice secureData, SecretKeySpec key, Slice iv)</li>
+ *     <li>rawSliceAES(Slice secureData, Slice key, Slice iv)</li>
+ *     <li>trySliceAES(Slice secureData, Slice key, Slice iv)</li>
+ *     <li>tryRawSliceAES(Slice secureData, Slice key, Slice iv)</li>
+ *     <li>longAES(Slice secureData, Slice key, Slice iv)</li>
+ *     <li>doubleAES(Slice secureData, Slice key, Slice iv)</li>
+ *     <li>hashAES(Slice secureData, Slice key, Slice iv)</li>
+ *     <li>randomIvSliceAES(Slice secureData, SecretKeySpec key)</li>
+ *     <li>cachedSliceAES(Slice secureData, Slice key, Slice iv)</li>
+ *     <li>cachedSliceAES(Slice secureData, SecretKeySpec key, Slice iv)</li>
+ *     <li>cachedRawSliceAES(Slice secureData, Slice key, Slice iv)</li>
  * </ul>
  *
  * @author Wong Kok-Lim
  */
 public class AESDecrypt {
-    public static Decrypter decrypter;
+    private final Methods method;
+    private final Decrypter decrypter;
 
     public AESDecrypt(Methods method) {
-        if(method.equals(Methods.CBC)) {
-            decrypter = new AESCBCDecrypter();
+        this.method = method;
+        switch (method) {
+            case CBC:
+                decrypter = new AESCBCDecrypter();
+                break;
+            case CTR:
+                decrypter = new AESCTRDecrypter();
+                break;
+            case GCM:
+                decrypter = new AESGCMDecrypter();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported AES method: " + method);
         }
     }
     /**
-     * AES CBC decryption of AES CBC encrypted String.
-     * @param secureData AES CBC encrypted String to be decrypted.
+     * AES decryption of AES encrypted String.
+     * @param secureData AES encrypted String to be decrypted.
      * @param key Key String to use for decryption.
      * @param iv Initializer Vector to use for decryption.
-     * @return AES CBC decrypted String.
+     * @return AES decrypted String.
      * @author Wong Kok-Lim
      */
-    public static Slice stringAES(String secureData, String key, String iv) {
-        String decrypt = null;
+    public Slice stringAES(String secureData, String key, String iv) {
         try {
-            decrypt = decrypter.decryptString(secureData, key, iv);
+            return utf8Slice(decrypter.decryptString(secureData, key, iv));
         } catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidKeyException | BadPaddingException | IllegalBlockSizeException | InvalidAlgorithmParameterException e) {
-            e.printStackTrace();
+            throw new IllegalStateException(e);
         }
-        assert decrypt != null;
-        return utf8Slice(decrypt);
     }
 
     /**
-     * AES decryption of AES CBC encrypted ByteBuffer.
-     * @param secureData AES CBC encrypted String to be decrypted.
+     * AES decryption of AES encrypted ByteBuffer.
+     * @param secureData AES encrypted String to be decrypted.
      * @param key Key String to use for decryption.
      * @param iv Initializer Vector to use for decryption.
      * @return Decrypted ByteBuffer.
      * @author Wong Kok-Lim
      */
-    public static Slice byteBufferAES(String secureData, String key, String iv) {
+    public Slice byteBufferAES(String secureData, String key, String iv) {
         ByteBuffer data = ByteBuffer.wrap(Decoder.decode(secureData));
         ByteBuffer decrypt = decrypter.decryptByteBuffer(data, key, iv);
         return wrappedBuffer(decrypt);
     }
+
+    /**
+     * AES decryption of Base64 encoded AES encrypted Slice.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice sliceAES(Slice secureData, Slice key, Slice iv) {
+        return decrypter.decryptSlice(secureData, key, iv);
+    }
+
+    /**
+     * AES decryption of Base64 encoded AES encrypted Slice using an already derived key.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key SecretKeySpec to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice sliceAES(Slice secureData, SecretKeySpec key, Slice iv) {
+        return decrypter.decryptSlice(secureData, key, iv);
+    }
+
+    /**
+     * AES decryption of raw AES ciphertext bytes.
+     * @param secureData AES encrypted Slice without Base64 encoding.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice rawSliceAES(Slice secureData, Slice key, Slice iv) {
+        return decrypter.decryptRawSlice(secureData, key, iv);
+    }
+
+    /**
+     * AES decryption of Base64 encoded AES encrypted Slice that signals failures without building a stack trace.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @throws DecryptionFailure If the value cannot be decrypted with the key and Initializer Vector.
+     * @author Wong Kok-Lim
+     */
+    public Slice trySliceAES(Slice secureData, Slice key, Slice iv) throws DecryptionFailure {
+        return decrypter.tryDecryptSlice(secureData, KeyGenerator.aesShaKeySpecGenerator(key), iv);
+    }
+
+    /**
+     * AES decryption of raw AES ciphertext bytes that signals failures without building a stack trace.
+     * @param secureData AES encrypted Slice without Base64 encoding.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @throws DecryptionFailure If the value cannot be decrypted with the key and Initializer Vector.
+     * @author Wong Kok-Lim
+     */
+    public Slice tryRawSliceAES(Slice secureData, Slice key, Slice iv) throws DecryptionFailure {
+        return decrypter.tryDecryptRawSlice(secureData, KeyGenerator.aesShaKeySpecGenerator(key), iv);
+    }
+
+    /**
+     * AES decryption of a Base64 encoded AES encrypted integer, parsed without materializing the plaintext.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted value.
+     * @throws NumberFormatException If the plaintext is not an integer that fits a long.
+     * @author Wong Kok-Lim
+     */
+    public long longAES(Slice secureData, Slice key, Slice iv) {
+        return decrypter.decryptLong(secureData, KeyGenerator.aesShaKeySpecGenerator(key), iv);
+    }
+
+    /**
+     * AES decryption of a Base64 encoded AES encrypted number, parsed without materializing the plaintext.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted value.
+     * @throws NumberFormatException If the plaintext is not a number.
+     * @author Wong Kok-Lim
+     */
+    public double doubleAES(Slice secureData, Slice key, Slice iv) {
+        return decrypter.decryptDouble(secureData, KeyGenerator.aesShaKeySpecGenerator(key), iv);
+    }
+
+    /**
+     * AES decryption of a Base64 encoded AES encrypted value to the 64 bit hash of its plaintext.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Hash of the decrypted value.
+     * @author Wong Kok-Lim
+     */
+    public long hashAES(Slice secureData, Slice key, Slice iv) {
+        return decrypter.decryptHash(secureData, KeyGenerator.aesShaKeySpecGenerator(key), iv);
+    }
+
+    /**
+     * AES decryption of Base64 encoded AES encrypted Slice that carries its random Initialize Vector in front of the ciphertext.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key SecretKeySpec to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice randomIvSliceAES(Slice secureData, SecretKeySpec key) {
+        return decrypter.decryptRandomIvSlice(secureData, key);
+    }
+
+    /**
+     * AES decryption of Base64 encoded AES encrypted Slice through the DecryptionCache.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice cachedSliceAES(Slice secureData, Slice key, Slice iv) {
+        return cachedSliceAES(secureData, KeyGenerator.aesShaKeySpecGenerator(key), iv);
+    }
+
+    /**
+     * AES decryption of Base64 encoded AES encrypted Slice using an already derived key through the DecryptionCache.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key SecretKeySpec to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice cachedSliceAES(Slice secureData, SecretKeySpec key, Slice iv) {
+        DecryptionCache cache = DecryptionCache.get();
+        if (!cache.isEnabled()) {
+            return decrypter.decryptSlice(secureData, key, iv);
+        }
+
+        Slice keyDigest = KeyGenerator.keyDigest(key);
+        Slice plaintext = cache.getIfPresent(method, false, keyDigest, iv, secureData);
+        if (plaintext == null) {
+            plaintext = decrypter.decryptSlice(secureData, key, iv);
+            cache.offer(method, false, keyDigest, iv, secureData, plaintext);
+        }
+        return plaintext;
+    }
+
+    /**
+     * AES decryption of raw AES ciphertext bytes through the DecryptionCache.
+     * @param secureData AES encrypted Slice without Base64 encoding.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param iv Initializer Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice cachedRawSliceAES(Slice secureData, Slice key, Slice iv) {
+        DecryptionCache cache = DecryptionCache.get();
+        if (!cache.isEnabled()) {
+            return decrypter.decryptRawSlice(secureData, key, iv);
+        }
+
+        SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
+        Slice keyDigest = KeyGenerator.keyDigest(skeySpec);
+        Slice plaintext = cache.getIfPresent(method, true, keyDigest, iv, secureData);
+        if (plaintext == null) {
+            plaintext = decrypter.decryptRawSlice(secureData, skeySpec, iv);
+            cache.offer(method, true, keyDigest, iv, secureData, plaintext);
+        }
+        return plaintext;
+    }
 }
@@ -6,6 +6,7 @@ import io.airlift.slice.Slice;
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -25,51 +26,110 @@ import static io.airlift.slice.Slices.wrappedBuffer;
  * ===Methods===
  * <p>This class contains the following methods when instantiated:</p>
  * <ul>
+ *     <li>AESEncrypt(Methods method)</li>
  *     <li>stringAES(String privateData, String key, String iv)</li>
  *     <li>byteBufferAES(ByteBuffer privateData, String key, String iv)</li>
+ *     <li>sliceAES(Slice privateData, Slice key, Slice iv)</li>
+ *     <li>sliceAES(Slice privateData, SecretKeySpec key, Slice iv)</li>
+ *     <li>rawSliceAES(Slice privateData, Slice key, Slice iv)</li>
+ *     <li>randomIvSliceAES(Slice privateData, SecretKeySpec key)</li>
  * </ul>
  *
  * @author Wong Kok-Lim
  */
 public class AESEncrypt {
-    public static Encrypter encrypter;
+    private final Encrypter encrypter;
 
     public AESEncrypt(Methods method) {
-        if (method.equals(Methods.CBC)) {
-            encrypter = new AESCBCEncrypter();
+        switch (method) {
+            case CBC:
+                encrypter = new AESCBCEncrypter();
+                break;
+            case CTR:
+                encrypter = new AESCTREncrypter();
+                break;
+            case GCM:
+                encrypter = new AESGCMEncrypter();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported AES method: " + method);
         }
     }
 
     /**
-     * AES CBC encryption of Strings.
+     * AES encryption of Strings.
      * @param privateData String to be encrypted with AES.
      * @param key Key String to use for encryption.
      * @param iv Initializer Vector to use for encryption
      * @return AES Encrypted String.
      * @author Wong Kok-Lim
      */
-    public static Slice stringAES(String privateData, String key, String iv) {
-        String encrypt = null;
+    public Slice stringAES(String privateData, String key, String iv) {
         try {
-            encrypt = encrypter.encryptString(privateData, key, iv);
+            return utf8Slice(encrypter.encryptString(privateData, key, iv));
         }
         catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidKeyException | BadPaddingException | IllegalBlockSizeException | InvalidAlgorithmParameterException e) {
-            e.printStackTrace();
+            throw new IllegalStateException(e);
         }
-        assert encrypt != null;
-        return utf8Slice(encrypt);
     }
 
     /**
-     * AES CBC encryption of ByteBuffer.
-     * @param privateData ByteBuffer to be encrypted with AES CBC.
+     * AES encryption of ByteBuffer.
+     * @param privateData ByteBuffer to be encrypted with AES.
      * @param key Key String to use for encryption.
      * @param iv Initializer Vector to use for encryption.
      * @return AES encrypted String.
      * @author Wong Kok-Lim
      */
-    public static Slice byteBufferAES(ByteBuffer privateData, String key, String iv) {
+    public Slice byteBufferAES(ByteBuffer privateData, String key, String iv) {
         ByteBuffer encrypt = encrypter.encryptByteBuffer(privateData, key, iv);
         return wrappedBuffer(encrypt);
     }
+
+    /**
+     * AES encryption of Slice.
+     * @param privateData Slice to be encrypted with AES.
+     * @param key UTF-8 key Slice to use for encryption.
+     * @param iv Initializer Vector Slice to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    public Slice sliceAES(Slice privateData, Slice key, Slice iv) {
+        return encrypter.encryptSlice(privateData, key, iv);
+    }
+
+    /**
+     * AES encryption of Slice using an already derived key.
+     * @param privateData Slice to be encrypted with AES.
+     * @param key SecretKeySpec to use for encryption.
+     * @param iv Initializer Vector Slice to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    public Slice sliceAES(Slice privateData, SecretKeySpec key, Slice iv) {
+        return encrypter.encryptSlice(privateData, key, iv);
+    }
+
+    /**
+     * AES encryption of Slice into raw ciphertext bytes.
+     * @param privateData Slice to be encrypted with AES.
+     * @param key UTF-8 key Slice to use for encryption.
+     * @param iv Initializer Vector Slice to use for encryption.
+     * @return AES encrypted Slice without Base64 encoding.
+     * @author Wong Kok-Lim
+     */
+    public Slice rawSliceAES(Slice privateData, Slice key, Slice iv) {
+        return encrypter.encryptRawSlice(privateData, key, iv);
+    }
+
+    /**
+     * AES encryption of Slice under a random Initialize Vector stored in front of the ciphertext.
+     * @param privateData Slice to be encrypted with AES.
+     * @param key SecretKeySpec to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    public Slice randomIvSliceAES(Slice privateData, SecretKeySpec key) {
+        return encrypter.encryptRandomIvSlice(privateData, key);
+    }
 }
@@ -0,0 +1,91 @@
+package com.trinoudf.crypto;
+
+import io.airlift.slice.Slice;
+
+import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+import static com.trinoudf.crypto.AESGCMEncrypter.NONCE_LENGTH;
+import static com.trinoudf.crypto.AESGCMEncrypter.TAG_LENGTH;
+
+/**
+ * ==Description==
+ * <p>
+ *     Decrypts and authenticates a given AES GCM encrypted String produced by AESGCMEncrypter.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>AESGCMDecrypter()</li>
+ *     <li>isValidLength(int payloadLength)</li>
+ *     <li>getOutputSize(int payloadLength)</li>
+ *     <li>getRandomIvLength()</li>
+ *     <li>decrypt(byte[] payload, int offset, int length, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public class AESGCMDecrypter extends AbstractAESDecrypter {
+    public AESGCMDecrypter() {
+        super(AESGCMEncrypter.AES_TRANSFORM);
+    }
+
+    /**
+     * AES GCM ciphertexts hold at least the nonce and the authentication tag.
+     * @param payloadLength Length of the ciphertext.
+     * @return false if no ciphertext of this length exists.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected boolean isValidLength(int payloadLength) {
+        return payloadLength >= NONCE_LENGTH + TAG_LENGTH;
+    }
+
+    @Override
+    protected int getOutputSize(int payloadLength) {
+        return Math.max(0, payloadLength - NONCE_LENGTH - TAG_LENGTH);
+    }
+
+    /**
+     * Random Initialize Vector mode needs no extra header, the random nonce is already in front of the ciphertext.
+     * @return 0.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int getRandomIvLength() {
+        return 0;
+    }
+
+    /**
+     * Decrypts and authenticates an AES GCM nonce and ciphertext byte range.
+     * @param payload byte[] holding the nonce and ciphertext.
+     * @param offset Offset of the nonce in payload.
+     * @param length Length of nonce, ciphertext and tag.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice, authenticated as additional data.
+     * @param output Output byte[].
+     * @param outputOffset Offset of the plaintext in output.
+     * @return Number of bytes written to output.
+     * @throws AEADBadTagException If the ciphertext, key or Initialize Vector does not match.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int decrypt(byte[] payload, int offset, int length, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException {
+        if (length < NONCE_LENGTH + TAG_LENGTH) {
+            throw new IllegalBlockSizeException("AES GCM ciphertext is shorter than nonce and tag");
+        }
+
+        Cipher cipher = CipherCache.getUninitializedCipher(transform, Cipher.DECRYPT_MODE);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, payload, offset, NONCE_LENGTH));
+        cipher.updateAAD(initVector.toByteBuffer());
+
+        return cipher.doFinal(payload, offset + NONCE_LENGTH, length - NONCE_LENGTH, output, outputOffset);
+    }
+}
@@ -0,0 +1,86 @@
+package com.trinoudf.crypto;
+
+import io.airlift.slice.Slice;
+
+import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * ==Description==
+ * <p>
+ *     Encrypts a given String using AES GCM.
+ *     GCM must never reuse a nonce with the same key, so every value gets a random 12 byte nonce
+ *     which is prepended to the ciphertext. The Initialize Vector argument is authenticated as additional data,
+ *     so a value only decrypts with the same key and Initialize Vector it was encrypted with.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>AESGCMEncrypter()</li>
+ *     <li>getOutputSize(int payloadLength)</li>
+ *     <li>getRandomIvLength()</li>
+ *     <li>encrypt(ByteBuffer payload, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public class AESGCMEncrypter extends AbstractAESEncrypter {
+    public static final String AES_TRANSFORM = "AES/GCM/NoPadding";
+    public static final int NONCE_LENGTH = 12;
+    public static final int TAG_LENGTH = 16;
+
+    public AESGCMEncrypter() {
+        super(AES_TRANSFORM);
+    }
+
+    /**
+     * Length of the AES GCM output, nonce followed by ciphertext and authentication tag.
+     * @param payloadLength Length of the payload to be encrypted.
+     * @return Exact output length.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int getOutputSize(int payloadLength) {
+        return NONCE_LENGTH + payloadLength + TAG_LENGTH;
+    }
+
+    /**
+     * Random Initialize Vector mode needs no extra header, the random nonce is already in front of the ciphertext.
+     * @return 0.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int getRandomIvLength() {
+        return 0;
+    }
+
+    /**
+     * Encrypts the remaining bytes of payload with AES GCM under a fresh random nonce.
+     * @param payload ByteBuffer to be encrypted.
+     * @param key SecretKeySpec to use for encryption.
+     * @param initVector Initialize Vector Slice, authenticated as additional data.
+     * @param output Output byte[].
+     * @param outputOffset Offset of the nonce in output.
+     * @return Number of bytes written to output.
+     * @author Wong Kok-Lim
+     */
+    @Override
+    protected int encrypt(ByteBuffer payload, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException {
+        IvGenerator.nextBytes(output, outputOffset, NONCE_LENGTH);
+
+        Cipher cipher = CipherCache.getUninitializedCipher(transform, Cipher.ENCRYPT_MODE);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, output, outputOffset, NONCE_LENGTH));
+        cipher.updateAAD(initVector.toByteBuffer());
+
+        int nonceEnd = outputOffset + NONCE_LENGTH;
+        return NONCE_LENGTH + cipher.doFinal(payload, ByteBuffer.wrap(output, nonceEnd, output.length - nonceEnd));
+    }
+}
@@ -0,0 +1,114 @@
+package com.trinoudf.crypto;
+
+import com.trinoudf.global.Methods;
+import com.trinoudf.key.KeyGenerator;
+import io.airlift.slice.Slice;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+
+/**
+ * ==Description==
+ * <p>
+ *     Fused AES decryption and encryption for key rotation.
+ *     A Base64 encoded ciphertext is decoded and decrypted in place in the thread local scratch buffer and the plaintext is
+ *     encrypted from there under the new key into the same buffer, so neither the plaintext nor the intermediate Base64 text
+ *     becomes a Slice or String, and the Base64 output Slice is the only allocation.
+ *     Both sides use the thread's cached Ciphers and the cached key derivation.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>decrypter</li>
+ *     <li>encrypter</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>AESReencrypt(Methods method)</li>
+ *     <li>sliceAES(Slice secureData, Slice oldKey, Slice oldIv, Slice newKey, Slice newIv)</li>
+ *     <li>sliceAES(Slice secureData, SecretKeySpec oldKey, Slice oldIv, SecretKeySpec newKey, Slice newIv)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public class AESReencrypt {
+    private final AbstractAESDecrypter decrypter;
+    private final AbstractAESEncrypter encrypter;
+
+    public AESReencrypt(Methods method) {
+        switch (method) {
+            case CBC:
+                decrypter = new AESCBCDecrypter();
+                encrypter = new AESCBCEncrypter();
+                break;
+            case CTR:
+                decrypter = new AESCTRDecrypter();
+                encrypter = new AESCTREncrypter();
+                break;
+            case GCM:
+                decrypter = new AESGCMDecrypter();
+                encrypter = new AESGCMEncrypter();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported AES method: " + method);
+        }
+    }
+
+    /**
+     * Re-encrypts a Base64 encoded AES ciphertext under a new key and Initialize Vector.
+     * @param secureData Base64 encoded AES encrypted Slice.
+     * @param oldKey UTF-8 key Slice the value is encrypted with.
+     * @param oldIv Initialize Vector Slice the value is encrypted with.
+     * @param newKey UTF-8 key Slice to encrypt with.
+     * @param newIv Initialize Vector Slice to encrypt with.
+     * @return Base64 encoded AES encrypted Slice under the new key.
+     * @author Wong Kok-Lim
+     */
+    public Slice sliceAES(Slice secureData, Slice oldKey, Slice oldIv, Slice newKey, Slice newIv) {
+        return sliceAES(secureData, KeyGenerator.aesShaKeySpecGenerator(oldKey), oldIv, KeyGenerator.aesShaKeySpecGenerator(newKey), newIv);
+    }
+
+    /**
+     * Re-encrypts a Base64 encoded AES ciphertext under a new key and Initialize Vector using already derived keys.
+     * The scratch buffer holds the decoded ciphertext and then the plaintext at its start and the new ciphertext behind it.
+     * @param secureData Base64 encoded AES encrypted Slice.
+     * @param oldKey SecretKeySpec the value is encrypted with.
+     * @param oldIv Initialize Vector Slice the value is encrypted with.
+     * @param newKey SecretKeySpec to encrypt with.
+     * @param newIv Initialize Vector Slice to encrypt with.
+     * @return Base64 encoded AES encrypted Slice under the new key.
+     * @author Wong Kok-Lim
+     */
+    public Slice sliceAES(Slice secureData, SecretKeySpec oldKey, Slice oldIv, SecretKeySpec newKey, Slice newIv) {
+        if (secureData.length() == 0) {
+            return secureData;
+        }
+
+        int decodedLength = Base64Codec.STANDARD.maxDecodedLength(secureData.length());
+        byte[] scratch = ScratchBuffer.get(decodedLength + encrypter.getOutputSize(decodedLength));
+
+        int plaintextLength;
+        try {
+            int length = Base64Codec.STANDARD.decode(secureData, scratch, 0);
+            plaintextLength = decrypter.decrypt(scratch, 0, length, oldKey, oldIv, scratch, 0);
+        }
+        catch (Exception e) {
+            CipherCache.reset(decrypter.transform, Cipher.DECRYPT_MODE);
+            throw new IllegalStateException(e);
+        }
+
+        try {
+            int length = encrypter.encrypt(ByteBuffer.wrap(scratch, 0, plaintextLength), newKey, newIv, scratch, decodedLength);
+
+            // encode base64
+            return Base64Codec.STANDARD.encode(scratch, decodedLength, length);
+        }
+        catch (Exception e) {
+            CipherCache.reset(encrypter.transform, Cipher.ENCRYPT_MODE);
+            throw new IllegalStateException(e);
+        }
+    }
+}
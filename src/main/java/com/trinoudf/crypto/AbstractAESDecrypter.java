@@ -0,0 +1,442 @@
+package com.trinoudf.crypto;
+
+import com.trinoudf.key.KeyGenerator;
+import io.airlift.slice.Slice;
+import io.airlift.slice.XxHash64;
+
+import javax.crypto.*;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+import static io.airlift.slice.Slices.EMPTY_SLICE;
+import static io.airlift.slice.Slices.wrappedBuffer;
+
+/**
+ * ==Description==
+ * <p>
+ *     Base class of the AES Decrypter classes.
+ *     Implements the String, ByteBuffer and Slice methods of Decrypter on top of a single decrypt step
+ *     provided by each cipher mode.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>transform</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>decryptString(String payload, String key, String initVector)</li>
+ *     <li>decryptByteBuffer(ByteBuffer payload, String key, String initVector)</li>
+ *     <li>decryptByteBuffer(ByteBuffer payload, SecretKeySpec key, byte[] initVector)</li>
+ *     <li>decryptSlice(Slice payload, Slice key, Slice initVector)</li>
+ *     <li>decryptSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptRawSlice(Slice payload, Slice key, Slice initVector)</li>
+ *     <li>decryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>tryDecryptSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>tryDecryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptLong(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptDouble(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptHash(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptRandomIvSlice(Slice payload, SecretKeySpec key)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public abstract class AbstractAESDecrypter implements Decrypter {
+    protected final String transform;
+
+    protected AbstractAESDecrypter(String transform) {
+        this.transform = transform;
+    }
+
+    /**
+     * Upper bound of the plaintext length of a ciphertext.
+     * @param payloadLength Length of the ciphertext to be decrypted.
+     * @return Maximum plaintext length.
+     * @author Wong Kok-Lim
+     */
+    protected abstract int getOutputSize(int payloadLength);
+
+    /**
+     * Whether a ciphertext of the given length can be valid in this cipher mode.
+     * Lets the quiet decryption methods reject truncated or corrupt values without calling the Cipher.
+     * @param payloadLength Length of the ciphertext.
+     * @return false if no ciphertext of this length exists.
+     * @author Wong Kok-Lim
+     */
+    protected boolean isValidLength(int payloadLength) {
+        return true;
+    }
+
+    /**
+     * Length of the random Initialize Vector in front of the ciphertexts of encryptRandomIvSlice().
+     * @return Initialize Vector length, 0 for modes that already prepend a random nonce.
+     * @author Wong Kok-Lim
+     */
+    protected int getRandomIvLength() {
+        return IvGenerator.IV_LENGTH;
+    }
+
+    /**
+     * Decrypts a ciphertext byte range into output. Input and output may be the same byte[].
+     * @param payload byte[] holding the ciphertext.
+     * @param offset Offset of the ciphertext in payload.
+     * @param length Length of the ciphertext.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @param output Output byte[] with at least getOutputSize() bytes after outputOffset.
+     * @param outputOffset Offset of the plaintext in output.
+     * @return Number of bytes written to output.
+     * @author Wong Kok-Lim
+     */
+    protected abstract int decrypt(byte[] payload, int offset, int length, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException;
+
+    /**
+     * Decrypts given AES encrypted String.
+     * @param payload AES encrypted String to decrypt.
+     * @param key AES key to use for decryption.
+     * @param initVector Initialize Vector to use for decryption.
+     * @throws NoSuchPaddingException
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeyException
+     * @throws BadPaddingException
+     * @throws IllegalBlockSizeException
+     * @author Wong Kok-Lim
+     */
+    public String decryptString(String payload, String key, String initVector) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException {
+        Slice iv = wrappedBuffer(initVector.getBytes(StandardCharsets.UTF_8));
+        SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
+
+        byte[] data = Decoder.decode(payload);
+
+        try {
+            int length = decrypt(data, 0, data.length, skeySpec, iv, data, 0);
+            return new String(data, 0, length);
+        }
+        catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        catch (BadPaddingException | IllegalBlockSizeException e) {
+            CipherCache.reset(transform, Cipher.DECRYPT_MODE);
+            throw e;
+        }
+    }
+
+    /**
+     * Decrypts AES encrypted ByteBuffer.
+     * @param payload AES encrypted ByteBuffer to decrypt.
+     * @param key Key String to use for decryption.
+     * @param initVector Initialize Vector to use for decryption.
+     * @author Wong Kok-Lim
+     */
+    public ByteBuffer decryptByteBuffer(ByteBuffer payload, String key, String initVector) {
+        byte[] iv = initVector.getBytes(StandardCharsets.UTF_8);
+        SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
+
+        return decryptByteBuffer(payload, skeySpec, iv);
+    }
+
+    /**
+     * Decrypts AES encrypted ByteBuffer using an already derived key.
+     * @param payload AES encrypted ByteBuffer to decrypt.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector bytes to use for decryption.
+     * @author Wong Kok-Lim
+     */
+    public ByteBuffer decryptByteBuffer(ByteBuffer payload, SecretKeySpec key, byte[] initVector) {
+        if (payload == null || !payload.hasRemaining()) {
+            return payload;
+        } else {
+            try {
+                byte[] data = new byte[payload.remaining()];
+                payload.get(data);
+
+                int length = decrypt(data, 0, data.length, key, wrappedBuffer(initVector), data, 0);
+
+                return ByteBuffer.wrap(data, 0, length);
+            } catch (Exception e) {
+                CipherCache.reset(transform, Cipher.DECRYPT_MODE);
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Decrypts Base64 encoded AES encrypted Slice.
+     * @param payload Base64 encoded AES encrypted Slice to decrypt.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice decryptSlice(Slice payload, Slice key, Slice initVector) {
+        return decryptSlice(payload, KeyGenerator.aesShaKeySpecGenerator(key), initVector);
+    }
+
+    /**
+     * Decrypts Base64 encoded AES encrypted Slice using an already derived key.
+     * The ciphertext is decrypted in place inside the Base64 decoded buffer, which becomes the returned Slice.
+     * @param payload Base64 encoded AES encrypted Slice to decrypt.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice decryptSlice(Slice payload, SecretKeySpec key, Slice initVector) {
+        if (payload.length() == 0) {
+            return payload;
+        }
+
+        try {
+            ByteBuffer data = Decoder.decode(payload);
+            return decryptInPlace(data, key, initVector);
+        }
+        catch (Exception e) {
+            CipherCache.reset(transform, Cipher.DECRYPT_MODE);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decrypts raw AES ciphertext bytes.
+     * @param payload AES encrypted Slice without Base64 encoding.
+     * @param key UTF-8 key Slice to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice decryptRawSlice(Slice payload, Slice key, Slice initVector) {
+        return decryptRawSlice(payload, KeyGenerator.aesShaKeySpecGenerator(key), initVector);
+    }
+
+    /**
+     * Decrypts raw AES ciphertext bytes using an already derived key.
+     * @param payload AES encrypted Slice without Base64 encoding.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice decryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector) {
+        if (payload.length() == 0) {
+            return payload;
+        }
+
+        try {
+            return decryptRaw(payload, key, initVector);
+        }
+        catch (Exception e) {
+            CipherCache.reset(transform, Cipher.DECRYPT_MODE);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decrypts Base64 encoded AES encrypted Slice, signalling failures with the stackless DecryptionFailure.INSTANCE
+     * instead of wrapping the cause. Used by the try_decrypt_aes functions, which map failures to NULL.
+     * @param payload Base64 encoded AES encrypted Slice to decrypt.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @throws DecryptionFailure If the value is not valid Base64, has an impossible length or fails to decrypt.
+     * @author Wong Kok-Lim
+     */
+    public Slice tryDecryptSlice(Slice payload, SecretKeySpec key, Slice initVector) throws DecryptionFailure {
+        if (payload.length() == 0) {
+            return payload;
+        }
+
+        ByteBuffer data;
+        try {
+            data = Decoder.decode(payload);
+        }
+        catch (IllegalArgumentException e) {
+            throw DecryptionFailure.INSTANCE;
+        }
+        if (!isValidLength(data.remaining())) {
+            throw DecryptionFailure.INSTANCE;
+        }
+
+        try {
+            return decryptInPlace(data, key, initVector);
+        }
+        catch (Exception e) {
+            CipherCache.reset(transform, Cipher.DECRYPT_MODE);
+            throw DecryptionFailure.INSTANCE;
+        }
+    }
+
+    /**
+     * Decrypts raw AES ciphertext bytes, signalling failures with the stackless DecryptionFailure.INSTANCE.
+     * @param payload AES encrypted Slice without Base64 encoding.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @throws DecryptionFailure If the value has an impossible length or fails to decrypt.
+     * @author Wong Kok-Lim
+     */
+    public Slice tryDecryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector) throws DecryptionFailure {
+        if (payload.length() == 0) {
+            return payload;
+        }
+        if (!isValidLength(payload.length())) {
+            throw DecryptionFailure.INSTANCE;
+        }
+
+        try {
+            return decryptRaw(payload, key, initVector);
+        }
+        catch (Exception e) {
+            CipherCache.reset(transform, Cipher.DECRYPT_MODE);
+            throw DecryptionFailure.INSTANCE;
+        }
+    }
+
+    /**
+     * Decrypts Base64 encoded AES encrypted Slice holding decimal integer text and parses it,
+     * without materializing the plaintext as a Slice. Used by the decrypt and aggregate functions.
+     * @param payload Base64 encoded AES encrypted Slice to decrypt.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted value.
+     * @throws NumberFormatException If the plaintext is not an integer that fits a long.
+     * @author Wong Kok-Lim
+     */
+    public long decryptLong(Slice payload, SecretKeySpec key, Slice initVector) {
+        byte[] scratch = ScratchBuffer.get(Base64Codec.STANDARD.maxDecodedLength(payload.length()));
+        int length = decryptToScratch(payload, key, initVector, scratch);
+        return DecimalParser.parseLong(scratch, 0, length);
+    }
+
+    /**
+     * Decrypts Base64 encoded AES encrypted Slice holding decimal text and parses it,
+     * without materializing the plaintext as a Slice. Used by the decrypt and aggregate functions.
+     * @param payload Base64 encoded AES encrypted Slice to decrypt.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted value.
+     * @throws NumberFormatException If the plaintext is not a number.
+     * @author Wong Kok-Lim
+     */
+    public double decryptDouble(Slice payload, SecretKeySpec key, Slice initVector) {
+        byte[] scratch = ScratchBuffer.get(Base64Codec.STANDARD.maxDecodedLength(payload.length()));
+        int length = decryptToScratch(payload, key, initVector, scratch);
+        return DecimalParser.parseDouble(scratch, 0, length);
+    }
+
+    /**
+     * Decrypts Base64 encoded AES encrypted Slice and returns the 64 bit XxHash of the plaintext bytes.
+     * Equal plaintexts give equal hashes, which is all approximate distinct counting needs.
+     * @param payload Base64 encoded AES encrypted Slice to decrypt.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Hash of the decrypted value.
+     * @author Wong Kok-Lim
+     */
+    public long decryptHash(Slice payload, SecretKeySpec key, Slice initVector) {
+        byte[] scratch = ScratchBuffer.get(Base64Codec.STANDARD.maxDecodedLength(payload.length()));
+        int length = decryptToScratch(payload, key, initVector, scratch);
+        return XxHash64.hash(wrappedBuffer(scratch, 0, length));
+    }
+
+    /**
+     * Decrypts Base64 encoded Initialize Vector and AES encrypted Slice produced by encryptRandomIvSlice(),
+     * taking the Initialize Vector from the front of the value.
+     * The ciphertext is decrypted in place inside the Base64 decoded buffer, which becomes the returned Slice.
+     * @param payload Base64 encoded Initialize Vector and AES encrypted Slice to decrypt.
+     * @param key SecretKeySpec to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice decryptRandomIvSlice(Slice payload, SecretKeySpec key) {
+        if (payload.length() == 0) {
+            return payload;
+        }
+
+        try {
+            ByteBuffer data = Decoder.decode(payload);
+            int ivLength = getRandomIvLength();
+            if (data.remaining() < ivLength) {
+                throw new IllegalBlockSizeException("Ciphertext is shorter than its " + ivLength + " byte Initialize Vector");
+            }
+
+            byte[] buffer = data.array();
+            int offset = data.arrayOffset() + data.position();
+            Slice initVector = ivLength == 0 ? EMPTY_SLICE : wrappedBuffer(buffer, offset, ivLength);
+            int length = decrypt(buffer, offset + ivLength, data.remaining() - ivLength, key, initVector, buffer, offset + ivLength);
+
+            return wrappedBuffer(buffer, offset + ivLength, length);
+        }
+        catch (Exception e) {
+            CipherCache.reset(transform, Cipher.DECRYPT_MODE);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decrypts a Base64 decoded ciphertext in place, the decoded buffer becomes the returned Slice.
+     * @param data Heap ByteBuffer holding the ciphertext.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private Slice decryptInPlace(ByteBuffer data, SecretKeySpec key, Slice initVector) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException {
+        byte[] buffer = data.array();
+        int offset = data.arrayOffset() + data.position();
+        int length = decrypt(buffer, offset, data.remaining(), key, initVector, buffer, offset);
+
+        return wrappedBuffer(buffer, offset, length);
+    }
+
+    /**
+     * Decodes Base64 encoded AES encrypted Slice into a scratch buffer and decrypts it there in place.
+     * @param payload Base64 encoded AES encrypted Slice to decrypt.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @param scratch byte[] with at least maxDecodedLength() bytes, holds the plaintext from offset 0 afterwards.
+     * @return Plaintext length.
+     * @author Wong Kok-Lim
+     */
+    private int decryptToScratch(Slice payload, SecretKeySpec key, Slice initVector, byte[] scratch) {
+        try {
+            int length = Base64Codec.STANDARD.decode(payload, scratch, 0);
+            return decrypt(scratch, 0, length, key, initVector, scratch, 0);
+        }
+        catch (Exception e) {
+            CipherCache.reset(transform, Cipher.DECRYPT_MODE);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decrypts raw ciphertext bytes into a new byte[].
+     * @param payload AES encrypted Slice without Base64 encoding.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector Initialize Vector Slice to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private Slice decryptRaw(Slice payload, SecretKeySpec key, Slice initVector) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException {
+        byte[] decrypted = new byte[getOutputSize(payload.length())];
+        int length;
+
+        ByteBuffer data = payload.toByteBuffer();
+        if (data.hasArray()) {
+            length = decrypt(data.array(), data.arrayOffset() + data.position(), data.remaining(), key, initVector, decrypted, 0);
+        }
+        else {
+            // off heap Slice, copy the ciphertext once
+            byte[] copy = payload.getBytes();
+            length = decrypt(copy, 0, copy.length, key, initVector, decrypted, 0);
+        }
+
+        return wrappedBuffer(decrypted, 0, length);
+    }
+}
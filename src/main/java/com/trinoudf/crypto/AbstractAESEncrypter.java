@@ -0,0 +1,261 @@
+package com.trinoudf.crypto;
+
+import com.trinoudf.key.KeyGenerator;
+import io.airlift.slice.Slice;
+
+import javax.crypto.*;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+import static io.airlift.slice.Slices.EMPTY_SLICE;
+import static io.airlift.slice.Slices.wrappedBuffer;
+
+/**
+ * ==Description==
+ * <p>
+ *     Base class of the AES Encrypter classes.
+ *     Implements the String, ByteBuffer and Slice methods of Encrypter on top of a single encrypt step
+ *     provided by each cipher mode.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>transform</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encryptString(String payload, String key, String initVector)</li>
+ *     <li>encryptByteBuffer(ByteBuffer payload, String key, String initVector)</li>
+ *     <li>encryptByteBuffer(ByteBuffer payload, SecretKeySpec key, byte[] initVector)</li>
+ *     <li>encryptSlice(Slice payload, Slice key, Slice initVector)</li>
+ *     <li>encryptSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>encryptRawSlice(Slice payload, Slice key, Slice initVector)</li>
+ *     <li>encryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>encryptRandomIvSlice(Slice payload, SecretKeySpec key)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public abstract class AbstractAESEncrypter implements Encrypter {
+    protected final String transform;
+
+    protected AbstractAESEncrypter(String transform) {
+        this.transform = transform;
+    }
+
+    /**
+     * Length of the ciphertext of a payload.
+     * @param payloadLength Length of the payload to be encrypted.
+     * @return Exact ciphertext length.
+     * @author Wong Kok-Lim
+     */
+    protected abstract int getOutputSize(int payloadLength);
+
+    /**
+     * Length of the random Initialize Vector encryptRandomIvSlice() puts in front of the ciphertext.
+     * @return Initialize Vector length, 0 for modes that already prepend a random nonce.
+     * @author Wong Kok-Lim
+     */
+    protected int getRandomIvLength() {
+        return IvGenerator.IV_LENGTH;
+    }
+
+    /**
+     * Encrypts the remaining bytes of payload into output.
+     * @param payload ByteBuffer to be encrypted.
+     * @param key SecretKeySpec to use for encryption.
+     * @param initVector Initialize Vector Slice to use for encryption.
+     * @param output Output byte[] with at least getOutputSize() bytes after outputOffset.
+     * @param outputOffset Offset of the ciphertext in output.
+     * @return Number of bytes written to output.
+     * @author Wong Kok-Lim
+     */
+    protected abstract int encrypt(ByteBuffer payload, SecretKeySpec key, Slice initVector, byte[] output, int outputOffset) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException, BadPaddingException, IllegalBlockSizeException, ShortBufferException;
+
+    /**
+     * Encrypts given String with AES.
+     * @param payload String to be encrypted.
+     * @param key String key to use for encryption.
+     * @param initVector Initialize Vector to use for encryption.
+     * @throws NoSuchPaddingException
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeyException
+     * @throws BadPaddingException
+     * @throws IllegalBlockSizeException
+     * @author Wong Kok-Lim
+     */
+    public String encryptString(String payload, String key, String initVector) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException {
+        Slice iv = wrappedBuffer(initVector.getBytes(StandardCharsets.UTF_8));
+        SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
+
+        byte[] data = payload.getBytes();
+        byte[] encrypted = new byte[getOutputSize(data.length)];
+        try {
+            encrypt(ByteBuffer.wrap(data), skeySpec, iv, encrypted, 0);
+        }
+        catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        catch (BadPaddingException | IllegalBlockSizeException e) {
+            CipherCache.reset(transform, Cipher.ENCRYPT_MODE);
+            throw e;
+        }
+
+        // encode base64
+        return Encoder.encode(encrypted);
+    }
+
+    /**
+     * Encrypts given ByteBuffer with AES.
+     * @param payload ByteBuffer to be encrypted.
+     * @param key Key String to use for encryption.
+     * @param initVector Initialize Vector to use for encryption
+     * @author Wong Kok-Lim
+     */
+    public ByteBuffer encryptByteBuffer(ByteBuffer payload, String key, String initVector) {
+        byte[] iv = initVector.getBytes(StandardCharsets.UTF_8);
+        SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
+
+        return encryptByteBuffer(payload, skeySpec, iv);
+    }
+
+    /**
+     * Encrypts given ByteBuffer with AES using an already derived key.
+     * @param payload ByteBuffer to be encrypted.
+     * @param key SecretKeySpec to use for encryption.
+     * @param initVector Initialize Vector bytes to use for encryption.
+     * @author Wong Kok-Lim
+     */
+    public ByteBuffer encryptByteBuffer(ByteBuffer payload, SecretKeySpec key, byte[] initVector) {
+        if ( payload == null || !payload.hasRemaining() ) {
+            return payload;
+        }
+        else {
+            try {
+                byte[] encrypted = new byte[getOutputSize(payload.remaining())];
+                int length = encrypt(payload, key, wrappedBuffer(initVector), encrypted, 0);
+
+                // encode base64
+                byte[] encoded = new byte[Base64Codec.STANDARD.encodedLength(length)];
+                Base64Codec.STANDARD.encode(encrypted, 0, length, encoded, 0);
+                return ByteBuffer.wrap(encoded);
+            }
+            catch (Exception e) {
+                CipherCache.reset(transform, Cipher.ENCRYPT_MODE);
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Encrypts given Slice with AES.
+     * @param payload Slice to be encrypted.
+     * @param key UTF-8 key Slice to use for encryption.
+     * @param initVector Initialize Vector Slice to use for encryption.
+     * @return Base64 encoded AES encrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice encryptSlice(Slice payload, Slice key, Slice initVector) {
+        return encryptSlice(payload, KeyGenerator.aesShaKeySpecGenerator(key), initVector);
+    }
+
+    /**
+     * Encrypts given Slice with AES using an already derived key.
+     * The payload is read in place and the ciphertext goes through a thread local scratch buffer,
+     * so the Base64 output Slice is the only allocation.
+     * @param payload Slice to be encrypted.
+     * @param key SecretKeySpec to use for encryption.
+     * @param initVector Initialize Vector Slice to use for encryption.
+     * @return Base64 encoded AES encrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice encryptSlice(Slice payload, SecretKeySpec key, Slice initVector) {
+        if (payload.length() == 0) {
+            return payload;
+        }
+
+        try {
+            byte[] encrypted = ScratchBuffer.get(getOutputSize(payload.length()));
+            int length = encrypt(payload.toByteBuffer(), key, initVector, encrypted, 0);
+
+            // encode base64
+            return Base64Codec.STANDARD.encode(encrypted, 0, length);
+        }
+        catch (Exception e) {
+            CipherCache.reset(transform, Cipher.ENCRYPT_MODE);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encrypts given Slice with AES into raw ciphertext bytes.
+     * @param payload Slice to be encrypted.
+     * @param key UTF-8 key Slice to use for encryption.
+     * @param initVector Initialize Vector Slice to use for encryption.
+     * @return AES encrypted Slice without Base64 encoding.
+     * @author Wong Kok-Lim
+     */
+    public Slice encryptRawSlice(Slice payload, Slice key, Slice initVector) {
+        return encryptRawSlice(payload, KeyGenerator.aesShaKeySpecGenerator(key), initVector);
+    }
+
+    /**
+     * Encrypts given Slice with AES into raw ciphertext bytes using an already derived key.
+     * @param payload Slice to be encrypted.
+     * @param key SecretKeySpec to use for encryption.
+     * @param initVector Initialize Vector Slice to use for encryption.
+     * @return AES encrypted Slice without Base64 encoding.
+     * @author Wong Kok-Lim
+     */
+    public Slice encryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector) {
+        if (payload.length() == 0) {
+            return payload;
+        }
+
+        try {
+            byte[] encrypted = new byte[getOutputSize(payload.length())];
+            int length = encrypt(payload.toByteBuffer(), key, initVector, encrypted, 0);
+
+            return wrappedBuffer(encrypted, 0, length);
+        }
+        catch (Exception e) {
+            CipherCache.reset(transform, Cipher.ENCRYPT_MODE);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encrypts given Slice with AES under a fresh random Initialize Vector, which is written in front of the ciphertext
+     * so that decryptRandomIvSlice() reads it back. Equal values give different ciphertexts on every call.
+     * @param payload Slice to be encrypted.
+     * @param key SecretKeySpec to use for encryption.
+     * @return Base64 encoded Initialize Vector and AES encrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice encryptRandomIvSlice(Slice payload, SecretKeySpec key) {
+        if (payload.length() == 0) {
+            return payload;
+        }
+
+        try {
+            int ivLength = getRandomIvLength();
+            byte[] encrypted = ScratchBuffer.get(ivLength + getOutputSize(payload.length()));
+            IvGenerator.nextBytes(encrypted, 0, ivLength);
+            Slice initVector = ivLength == 0 ? EMPTY_SLICE : wrappedBuffer(encrypted, 0, ivLength);
+            int length = encrypt(payload.toByteBuffer(), key, initVector, encrypted, ivLength);
+
+            // encode base64
+            return Base64Codec.STANDARD.encode(encrypted, 0, ivLength + length);
+        }
+        catch (Exception e) {
+            CipherCache.reset(transform, Cipher.ENCRYPT_MODE);
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.trinoudf.crypto;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * ==Description==
+ * <p>
+ *     Table driven Base64 codec (RFC 4648) working directly between byte ranges and Slices.
+ *     Encoding writes into a caller provided byte[] or a single exactly sized Slice, decoding reads any Slice in place
+ *     and writes into a caller provided byte[], so neither direction needs an intermediate String or ByteBuffer copy.
+ *     Encoding pads with '=', decoding accepts values with and without padding and rejects anything else, like java.util.Base64.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>STANDARD</li>
+ *     <li>URL_SAFE</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encodedLength(int length)</li>
+ *     <li>maxDecodedLength(int length)</li>
+ *     <li>encode(byte[] input, int offset, int length, byte[] output, int outputOffset)</li>
+ *     <li>encode(byte[] input, int offset, int length)</li>
+ *     <li>encode(Slice input)</li>
+ *     <li>decode(byte[] input, int offset, int length, byte[] output, int outputOffset)</li>
+ *     <li>decode(Slice input, byte[] output, int outputOffset)</li>
+ *     <li>decode(Slice input)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class Base64Codec {
+    public static final Base64Codec STANDARD = new Base64Codec("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/");
+    public static final Base64Codec URL_SAFE = new Base64Codec("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_");
+
+    private static final byte PAD = '=';
+    private static final byte INVALID = -1;
+
+    private final byte[] encodeTable = new byte[64];
+    private final byte[] decodeTable = new byte[256];
+
+    private Base64Codec(String alphabet) {
+        Arrays.fill(decodeTable, INVALID);
+        for (int i = 0; i < 64; i++) {
+            encodeTable[i] = (byte) alphabet.charAt(i);
+            decodeTable[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    /**
+     * Length of the padded Base64 encoding of a byte range.
+     * @param length Number of bytes to encode.
+     * @return Number of Base64 characters.
+     * @author Wong Kok-Lim
+     */
+    public int encodedLength(int length) {
+        return (length + 2) / 3 * 4;
+    }
+
+    /**
+     * Upper bound of the decoded length of a Base64 value, exact for unpadded values.
+     * @param length Number of Base64 characters.
+     * @return Maximum number of decoded bytes.
+     * @author Wong Kok-Lim
+     */
+    public int maxDecodedLength(int length) {
+        return length / 4 * 3 + Math.max(0, length % 4 - 1);
+    }
+
+    /**
+     * Encodes a byte range into a byte[].
+     * @param input byte[] holding the bytes to encode.
+     * @param offset Offset of the bytes.
+     * @param length Number of bytes.
+     * @param output byte[] with at least encodedLength(length) bytes after outputOffset.
+     * @param outputOffset Offset of the Base64 characters in output.
+     * @return Number of Base64 characters written.
+     * @author Wong Kok-Lim
+     */
+    public int encode(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+        int end = offset + length;
+        int fullEnd = offset + length / 3 * 3;
+        int out = outputOffset;
+
+        int in = offset;
+        while (in < fullEnd) {
+            int bits = (input[in] & 0xff) << 16 | (input[in + 1] & 0xff) << 8 | (input[in + 2] & 0xff);
+            output[out] = encodeTable[bits >>> 18];
+            output[out + 1] = encodeTable[(bits >>> 12) & 0x3f];
+            output[out + 2] = encodeTable[(bits >>> 6) & 0x3f];
+            output[out + 3] = encodeTable[bits & 0x3f];
+            in += 3;
+            out += 4;
+        }
+
+        int remaining = end - in;
+        if (remaining == 1) {
+            int bits = (input[in] & 0xff) << 16;
+            output[out] = encodeTable[bits >>> 18];
+            output[out + 1] = encodeTable[(bits >>> 12) & 0x3f];
+            output[out + 2] = PAD;
+            output[out + 3] = PAD;
+            out += 4;
+        }
+        else if (remaining == 2) {
+            int bits = (input[in] & 0xff) << 16 | (input[in + 1] & 0xff) << 8;
+            output[out] = encodeTable[bits >>> 18];
+            output[out + 1] = encodeTable[(bits >>> 12) & 0x3f];
+            output[out + 2] = encodeTable[(bits >>> 6) & 0x3f];
+            output[out + 3] = PAD;
+            out += 4;
+        }
+        return out - outputOffset;
+    }
+
+    /**
+     * Encodes a byte range into a new Slice.
+     * @param input byte[] holding the bytes to encode.
+     * @param offset Offset of the bytes.
+     * @param length Number of bytes.
+     * @return Base64 Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice encode(byte[] input, int offset, int length) {
+        byte[] output = new byte[encodedLength(length)];
+        encode(input, offset, length, output, 0);
+        return Slices.wrappedBuffer(output);
+    }
+
+    /**
+     * Encodes a Slice into a new Slice.
+     * @param input Slice to encode.
+     * @return Base64 Slice.
+     * @author Wong Kok-Lim
+     */
+    public Slice encode(Slice input) {
+        ByteBuffer buffer = input.toByteBuffer();
+        if (buffer.hasArray()) {
+            return encode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return encode(input.getBytes(), 0, input.length());
+    }
+
+    /**
+     * Decodes Base64 characters from a byte range into a byte[].
+     * @param input byte[] holding the Base64 characters.
+     * @param offset Offset of the characters.
+     * @param length Number of characters.
+     * @param output byte[] with at least maxDecodedLength(length) bytes after outputOffset.
+     * @param outputOffset Offset of the decoded bytes in output.
+     * @return Number of decoded bytes.
+     * @throws IllegalArgumentException If the input is not valid Base64 of this alphabet.
+     * @author Wong Kok-Lim
+     */
+    public int decode(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+        int end = offset + length;
+        if (length > 0 && input[end - 1] == PAD) {
+            if (length % 4 != 0) {
+                throw new IllegalArgumentException("Base64 padding at an invalid position");
+            }
+            end--;
+            if (input[end - 1] == PAD) {
+                end--;
+            }
+        }
+        if ((end - offset) % 4 == 1) {
+            throw new IllegalArgumentException("Base64 value has an invalid length: " + length);
+        }
+
+        int fullEnd = offset + (end - offset) / 4 * 4;
+        int out = outputOffset;
+        int in = offset;
+        while (in < fullEnd) {
+            int bits = lookup(input[in]) << 18 | lookup(input[in + 1]) << 12 | lookup(input[in + 2]) << 6 | lookup(input[in + 3]);
+            output[out] = (byte) (bits >>> 16);
+            output[out + 1] = (byte) (bits >>> 8);
+            output[out + 2] = (byte) bits;
+            in += 4;
+            out += 3;
+        }
+
+        int remaining = end - in;
+        if (remaining == 2) {
+            int bits = lookup(input[in]) << 18 | lookup(input[in + 1]) << 12;
+            output[out++] = (byte) (bits >>> 16);
+        }
+        else if (remaining == 3) {
+            int bits = lookup(input[in]) << 18 | lookup(input[in + 1]) << 12 | lookup(input[in + 2]) << 6;
+            output[out++] = (byte) (bits >>> 16);
+            output[out++] = (byte) (bits >>> 8);
+        }
+        return out - outputOffset;
+    }
+
+    /**
+     * Decodes a Base64 Slice into a byte[], reading the Slice in place.
+     * @param input Base64 Slice.
+     * @param output byte[] with at least maxDecodedLength(input.length()) bytes after outputOffset.
+     * @param outputOffset Offset of the decoded bytes in output.
+     * @return Number of decoded bytes.
+     * @throws IllegalArgumentException If the input is not valid Base64 of this alphabet.
+     * @author Wong Kok-Lim
+     */
+    public int decode(Slice input, byte[] output, int outputOffset) {
+        ByteBuffer buffer = input.toByteBuffer();
+        if (buffer.hasArray()) {
+            return decode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), output, outputOffset);
+        }
+        byte[] copy = input.getBytes();
+        return decode(copy, 0, copy.length, output, outputOffset);
+    }
+
+    /**
+     * Decodes a Base64 Slice into a new heap ByteBuffer.
+     * @param input Base64 Slice.
+     * @return Decoded heap ByteBuffer.
+     * @throws IllegalArgumentException If the input is not valid Base64 of this alphabet.
+     * @author Wong Kok-Lim
+     */
+    public ByteBuffer decode(Slice input) {
+        byte[] output = new byte[maxDecodedLength(input.length())];
+        int length = decode(input, output, 0);
+        return ByteBuffer.wrap(output, 0, length);
+    }
+
+    private int lookup(byte character) {
+        int value = decodeTable[character & 0xff];
+        if (value == INVALID) {
+            throw new IllegalArgumentException("Illegal Base64 character: " + (char) (character & 0xff));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,126 @@
+package com.trinoudf.crypto;
+
+import io.airlift.slice.Slice;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+import static io.airlift.slice.Slices.wrappedBuffer;
+
+/**
+ * ==Description==
+ * <p>
+ *     Computes blind index tokens, i.e. HMAC-SHA256 of a value truncated to a fixed length.
+ *     Equal values give equal tokens under the same key, so tokens stored next to the ciphertext
+ *     can be compared, joined and partitioned on without decrypting, while the value cannot be recovered from them.
+ *     A type tag byte is authenticated in front of the value, so values of different types with the same encoding,
+ *     e.g. BIGINT 1 and VARBINARY X'0100000000000000', give different tokens.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>index(byte typeTag, Slice value, SecretKeySpec key, int length)</li>
+ *     <li>index(byte typeTag, byte[] value, int offset, int valueLength, SecretKeySpec key, int length)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class BlindIndex {
+    public static final int DEFAULT_LENGTH = 16;
+    public static final int MIN_LENGTH = 8;
+    public static final int MAX_LENGTH = 32;
+
+    public static final byte TAG_BINARY = 1;
+    public static final byte TAG_INTEGRAL = 2;
+    public static final byte TAG_REAL = 3;
+    public static final byte TAG_DOUBLE = 4;
+    public static final byte TAG_BOOLEAN = 5;
+
+    private BlindIndex() {
+    }
+
+    /**
+     * Blind index token of a Slice.
+     * @param typeTag Type tag of the value, one of the TAG constants.
+     * @param value Slice to be indexed.
+     * @param key HmacSHA256 SecretKeySpec, see KeyGenerator.blindIndexKeySpecGenerator().
+     * @param length Token length in bytes, between MIN_LENGTH and MAX_LENGTH.
+     * @return Token Slice of length bytes.
+     * @author Wong Kok-Lim
+     */
+    public static Slice index(byte typeTag, Slice value, SecretKeySpec key, int length) {
+        checkLength(length);
+        Mac mac = getMac(key);
+        mac.update(typeTag);
+        ByteBuffer data = value.toByteBuffer();
+        if (data.hasArray()) {
+            mac.update(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+        else {
+            mac.update(data);
+        }
+        return finish(mac, length);
+    }
+
+    /**
+     * Blind index token of a byte range, e.g. the fixed width encoding of a number.
+     * @param typeTag Type tag of the value, one of the TAG constants.
+     * @param value byte[] holding the value to be indexed.
+     * @param offset Offset of the value.
+     * @param valueLength Length of the value.
+     * @param key HmacSHA256 SecretKeySpec, see KeyGenerator.blindIndexKeySpecGenerator().
+     * @param length Token length in bytes, between MIN_LENGTH and MAX_LENGTH.
+     * @return Token Slice of length bytes.
+     * @author Wong Kok-Lim
+     */
+    public static Slice index(byte typeTag, byte[] value, int offset, int valueLength, SecretKeySpec key, int length) {
+        checkLength(length);
+        Mac mac = getMac(key);
+        mac.update(typeTag);
+        mac.update(value, offset, valueLength);
+        return finish(mac, length);
+    }
+
+    private static void checkLength(int length) {
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Blind index length must be between " + MIN_LENGTH + " and " + MAX_LENGTH + " bytes: " + length);
+        }
+    }
+
+    private static Mac getMac(SecretKeySpec key) {
+        try {
+            return MacCache.getMac(key);
+        }
+        catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Finishes the HMAC into the thread scratch buffer and copies the truncated token out.
+     * @param mac Mac holding the value.
+     * @param length Token length in bytes.
+     * @return Token Slice of length bytes.
+     * @author Wong Kok-Lim
+     */
+    private static Slice finish(Mac mac, int length) {
+        byte[] scratch = ScratchBuffer.get(mac.getMacLength());
+        try {
+            mac.doFinal(scratch, 0);
+        }
+        catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] token = new byte[length];
+        System.arraycopy(scratch, 0, token, 0, length);
+        return wrappedBuffer(token);
+    }
+}
@@ -0,0 +1,242 @@
+package com.trinoudf.crypto;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * ==Description==
+ * <p>
+ *     Chunked AES GCM ciphertext format for large values.
+ *     The plaintext is split into fixed size chunks which are encrypted and authenticated independently,
+ *     so a value is encrypted and decrypted chunk by chunk and a byte range can be decrypted from the chunks it touches only.
+ * </p>
+ * <p>Layout, all integers little endian:</p>
+ * <pre>
+ *     magic "TUC1" (4) | chunk size (4) | plaintext length (8) | salt (16) | chunk 0 | chunk 1 | ...
+ *     chunk i = AES-GCM(data key, nonce = 8 zero bytes | i big endian (4), aad = header (32)) of the i-th plaintext chunk,
+ *               i.e. ciphertext followed by a 16 byte tag
+ *     data key = HMAC-SHA256(chunk key, salt)
+ * </pre>
+ * <p>
+ *     Every value gets a random salt and with it its own data key, so the chunk counter alone keeps the nonces unique.
+ *     The header is authenticated with every chunk, so chunks cannot be moved between values and the length cannot be changed.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encrypt(Slice plaintext, SecretKeySpec chunkKey, int chunkSize)</li>
+ *     <li>decrypt(Slice ciphertext, SecretKeySpec chunkKey)</li>
+ *     <li>decryptRange(Slice ciphertext, SecretKeySpec chunkKey, long offset, int length)</li>
+ *     <li>isChunked(Slice ciphertext)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class ChunkedAES {
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    public static final int MIN_CHUNK_SIZE = 4 * 1024;
+    public static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private static final String AES_TRANSFORM = "AES/GCM/NoPadding";
+    private static final int MAGIC = 0x31435554; // "TUC1" read as little endian int
+    private static final int HEADER_LENGTH = 32;
+    private static final int CHUNK_SIZE_OFFSET = 4;
+    private static final int LENGTH_OFFSET = 8;
+    private static final int SALT_OFFSET = 16;
+    private static final int SALT_LENGTH = 16;
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH = 16;
+
+    private ChunkedAES() {
+    }
+
+    /**
+     * Encrypts a value into the chunked format.
+     * @param plaintext Slice to be encrypted.
+     * @param chunkKey HmacSHA256 SecretKeySpec, see KeyGenerator.chunkKeySpecGenerator().
+     * @param chunkSize Plaintext bytes per chunk, between MIN_CHUNK_SIZE and MAX_CHUNK_SIZE.
+     * @return Chunked ciphertext.
+     * @author Wong Kok-Lim
+     */
+    public static Slice encrypt(Slice plaintext, SecretKeySpec chunkKey, int chunkSize) {
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE + " bytes: " + chunkSize);
+        }
+
+        long length = plaintext.length();
+        int chunks = chunkCount(length, chunkSize);
+        Slice ciphertext = Slices.allocate(Math.toIntExact(HEADER_LENGTH + length + (long) chunks * TAG_LENGTH));
+
+        byte[] header = new byte[HEADER_LENGTH];
+        writeInt(header, 0, MAGIC);
+        writeInt(header, CHUNK_SIZE_OFFSET, chunkSize);
+        writeLong(header, LENGTH_OFFSET, length);
+        IvGenerator.nextBytes(header, SALT_OFFSET, SALT_LENGTH);
+        ciphertext.setBytes(0, header, 0, HEADER_LENGTH);
+
+        try {
+            SecretKeySpec dataKey = dataKey(chunkKey, header);
+            Cipher cipher = CipherCache.getUninitializedCipher(AES_TRANSFORM, Cipher.ENCRYPT_MODE);
+            ByteBuffer output = ciphertext.toByteBuffer();
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int offset = chunk * chunkSize;
+                int chunkLength = (int) Math.min(chunkSize, length - offset);
+
+                initChunk(cipher, Cipher.ENCRYPT_MODE, dataKey, header, chunk);
+                output.position(chunkOffset(chunk, chunkSize));
+                cipher.doFinal(plaintext.toByteBuffer(offset, chunkLength), output);
+            }
+        }
+        catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return ciphertext;
+    }
+
+    /**
+     * Decrypts a whole chunked ciphertext.
+     * @param ciphertext Chunked ciphertext.
+     * @param chunkKey HmacSHA256 SecretKeySpec, see KeyGenerator.chunkKeySpecGenerator().
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public static Slice decrypt(Slice ciphertext, SecretKeySpec chunkKey) {
+        long length = checkHeader(ciphertext);
+        return decryptRange(ciphertext, chunkKey, 0, (int) length);
+    }
+
+    /**
+     * Decrypts a byte range of the plaintext of a chunked ciphertext, decrypting only the chunks the range touches.
+     * A range reaching past the end of the plaintext is cut at the end.
+     * @param ciphertext Chunked ciphertext.
+     * @param chunkKey HmacSHA256 SecretKeySpec, see KeyGenerator.chunkKeySpecGenerator().
+     * @param offset Offset of the range in the plaintext.
+     * @param length Length of the range.
+     * @return Decrypted Slice of the range.
+     * @author Wong Kok-Lim
+     */
+    public static Slice decryptRange(Slice ciphertext, SecretKeySpec chunkKey, long offset, int length) {
+        long plaintextLength = checkHeader(ciphertext);
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Range offset and length must not be negative");
+        }
+        long end = Math.min(plaintextLength, offset + length);
+        if (offset >= end) {
+            return Slices.EMPTY_SLICE;
+        }
+
+        int chunkSize = ciphertext.getInt(CHUNK_SIZE_OFFSET);
+        byte[] header = ciphertext.getBytes(0, HEADER_LENGTH);
+        Slice plaintext = Slices.allocate((int) (end - offset));
+
+        try {
+            SecretKeySpec dataKey = dataKey(chunkKey, header);
+            Cipher cipher = CipherCache.getUninitializedCipher(AES_TRANSFORM, Cipher.DECRYPT_MODE);
+            byte[] scratch = ScratchBuffer.get(chunkSize);
+
+            int firstChunk = (int) (offset / chunkSize);
+            int lastChunk = (int) ((end - 1) / chunkSize);
+            for (int chunk = firstChunk; chunk <= lastChunk; chunk++) {
+                long chunkStart = (long) chunk * chunkSize;
+                int chunkLength = (int) Math.min(chunkSize, plaintextLength - chunkStart);
+
+                initChunk(cipher, Cipher.DECRYPT_MODE, dataKey, header, chunk);
+                ByteBuffer input = ciphertext.toByteBuffer(chunkOffset(chunk, chunkSize), chunkLength + TAG_LENGTH);
+                cipher.doFinal(input, ByteBuffer.wrap(scratch, 0, chunkLength));
+
+                long copyStart = Math.max(offset, chunkStart);
+                long copyEnd = Math.min(end, chunkStart + chunkLength);
+                plaintext.setBytes((int) (copyStart - offset), scratch, (int) (copyStart - chunkStart), (int) (copyEnd - copyStart));
+            }
+        }
+        catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return plaintext;
+    }
+
+    /**
+     * Whether a value starts like a chunked ciphertext.
+     * @param ciphertext Value to check.
+     * @return true if the value has the chunked format's magic.
+     * @author Wong Kok-Lim
+     */
+    public static boolean isChunked(Slice ciphertext) {
+        return ciphertext.length() >= HEADER_LENGTH && ciphertext.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Validates the header against the ciphertext length.
+     * @param ciphertext Chunked ciphertext.
+     * @return Plaintext length.
+     * @throws IllegalArgumentException If the value is not a complete chunked ciphertext.
+     * @author Wong Kok-Lim
+     */
+    private static long checkHeader(Slice ciphertext) {
+        if (!isChunked(ciphertext)) {
+            throw new IllegalArgumentException("Value is not a chunked AES ciphertext");
+        }
+        int chunkSize = ciphertext.getInt(CHUNK_SIZE_OFFSET);
+        long length = ciphertext.getLong(LENGTH_OFFSET);
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE || length < 0
+                || HEADER_LENGTH + length + (long) chunkCount(length, chunkSize) * TAG_LENGTH != ciphertext.length()) {
+            throw new IllegalArgumentException("Chunked AES ciphertext is truncated or corrupt");
+        }
+        return length;
+    }
+
+    private static int chunkCount(long length, int chunkSize) {
+        return (int) ((length + chunkSize - 1) / chunkSize);
+    }
+
+    private static int chunkOffset(int chunk, int chunkSize) {
+        return HEADER_LENGTH + chunk * (chunkSize + TAG_LENGTH);
+    }
+
+    /**
+     * Derives the data key of a value from the chunk key and the value's salt.
+     * @param chunkKey HmacSHA256 SecretKeySpec.
+     * @param header Header bytes holding the salt.
+     * @return AES data key.
+     * @author Wong Kok-Lim
+     */
+    private static SecretKeySpec dataKey(SecretKeySpec chunkKey, byte[] header) throws GeneralSecurityException {
+        Mac mac = MacCache.getMac(chunkKey);
+        mac.update(header, SALT_OFFSET, SALT_LENGTH);
+        return new SecretKeySpec(mac.doFinal(), "AES");
+    }
+
+    private static void initChunk(Cipher cipher, int opmode, SecretKeySpec dataKey, byte[] header, int chunk) throws GeneralSecurityException {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        nonce[8] = (byte) (chunk >>> 24);
+        nonce[9] = (byte) (chunk >>> 16);
+        nonce[10] = (byte) (chunk >>> 8);
+        nonce[11] = (byte) chunk;
+        cipher.init(opmode, dataKey, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+        cipher.updateAAD(header);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        for (int i = 0; i < Integer.BYTES; i++) {
+            buffer[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private static void writeLong(byte[] buffer, int offset, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            buffer[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+}
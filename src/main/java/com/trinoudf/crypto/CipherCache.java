@@ -0,0 +1,180 @@
+package com.trinoudf.crypto;
+
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ==Description==
+ * <p>
+ *     Thread confined pool of initialized Cipher objects.
+ *     Ciphers are created from the JCE provider CipherProviders selected for their mode.
+ *     Every thread keeps one Cipher per transformation and mode, together with the key and IV it was last initialized with,
+ *     so consecutive rows using the same key and IV skip both the JCE provider lookup and the Cipher re-init.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>getCipher(String transform, int opmode, SecretKeySpec key, byte[] iv)</li>
+ *     <li>getCipher(String transform, int opmode, SecretKeySpec key, Slice iv)</li>
+ *     <li>getUninitializedCipher(String transform, int opmode)</li>
+ *     <li>reset(String transform, int opmode)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class CipherCache {
+    private static final ThreadLocal<Map<String, CachedCipher[]>> ciphers = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Constructor for CipherCache class.
+     * @author Wong Kok-Lim
+     */
+    private CipherCache() {
+    }
+
+    /**
+     * Returns the calling thread's Cipher for the transformation and mode, initialized with the given key and IV.
+     * The Cipher must not be shared with other threads.
+     * @param transform Cipher transformation, e.g. AES/CBC/PKCS5PADDING.
+     * @param opmode Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE.
+     * @param key SecretKeySpec to initialize the Cipher with.
+     * @param iv Initialize Vector bytes to initialize the Cipher with.
+     * @return Initialized Cipher.
+     * @throws NoSuchPaddingException
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeyException
+     * @throws InvalidAlgorithmParameterException
+     * @author Wong Kok-Lim
+     */
+    public static Cipher getCipher(String transform, int opmode, SecretKeySpec key, byte[] iv) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException {
+        return getCipher(transform, opmode, key, Slices.wrappedBuffer(iv));
+    }
+
+    /**
+     * Returns the calling thread's Cipher for the transformation and mode, initialized with the given key and IV.
+     * The IV Slice is only copied when the Cipher has to be re-initialized.
+     * The Cipher must not be shared with other threads.
+     * @param transform Cipher transformation, e.g. AES/CBC/PKCS5PADDING.
+     * @param opmode Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE.
+     * @param key SecretKeySpec to initialize the Cipher with.
+     * @param iv Initialize Vector to initialize the Cipher with.
+     * @return Initialized Cipher.
+     * @throws NoSuchPaddingException
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeyException
+     * @throws InvalidAlgorithmParameterException
+     * @author Wong Kok-Lim
+     */
+    public static Cipher getCipher(String transform, int opmode, SecretKeySpec key, Slice iv) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, InvalidAlgorithmParameterException {
+        CachedCipher cached = getCachedCipher(transform, opmode);
+
+        if (!cached.isInitializedWith(key, iv)) {
+            byte[] ivBytes = iv.getBytes();
+            // a failed init leaves the Cipher uninitialized, so forget the old key and IV first
+            cached.key = null;
+            cached.iv = null;
+            cached.cipher.init(opmode, key, new IvParameterSpec(ivBytes));
+            cached.key = key;
+            cached.iv = Slices.wrappedBuffer(ivBytes);
+            PluginMetrics.crypto().cipherInitialized();
+        }
+        else {
+            PluginMetrics.crypto().cipherInitSkipped();
+        }
+
+        return cached.cipher;
+    }
+
+    /**
+     * Returns the calling thread's Cipher for the transformation and mode, leaving the init to the caller.
+     * Used by modes that must be re-initialized for every value, e.g. GCM with a fresh nonce.
+     * The Cipher must not be shared with other threads.
+     * @param transform Cipher transformation, e.g. AES/GCM/NoPadding.
+     * @param opmode Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE.
+     * @return Cipher that has to be initialized before use.
+     * @throws NoSuchPaddingException
+     * @throws NoSuchAlgorithmException
+     * @author Wong Kok-Lim
+     */
+    public static Cipher getUninitializedCipher(String transform, int opmode) throws NoSuchPaddingException, NoSuchAlgorithmException {
+        CachedCipher cached = getCachedCipher(transform, opmode);
+        cached.key = null;
+        cached.iv = null;
+        PluginMetrics.crypto().cipherInitialized();
+        return cached.cipher;
+    }
+
+    /**
+     * Forces the next getCipher call of the calling thread to re-init the Cipher, e.g. after a failed doFinal.
+     * @param transform Cipher transformation, e.g. AES/CBC/PKCS5PADDING.
+     * @param opmode Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE.
+     * @author Wong Kok-Lim
+     */
+    public static void reset(String transform, int opmode) {
+        CachedCipher[] modes = ciphers.get().get(transform);
+        if (modes != null && modes[opmode] != null) {
+            modes[opmode].key = null;
+            modes[opmode].iv = null;
+        }
+    }
+
+    /**
+     * Looks up or creates the calling thread's CachedCipher for the transformation and mode.
+     * @param transform Cipher transformation.
+     * @param opmode Cipher mode.
+     * @return CachedCipher of the calling thread.
+     * @throws NoSuchPaddingException
+     * @throws NoSuchAlgorithmException
+     * @author Wong Kok-Lim
+     */
+    private static CachedCipher getCachedCipher(String transform, int opmode) throws NoSuchPaddingException, NoSuchAlgorithmException {
+        Map<String, CachedCipher[]> threadCiphers = ciphers.get();
+        CachedCipher[] modes = threadCiphers.get(transform);
+        if (modes == null) {
+            modes = new CachedCipher[Cipher.UNWRAP_MODE + 1];
+            threadCiphers.put(transform, modes);
+        }
+
+        CachedCipher cached = modes[opmode];
+        if (cached == null) {
+            cached = new CachedCipher(CipherProviders.getInstance(transform));
+            modes[opmode] = cached;
+            PluginMetrics.crypto().cipherCreated();
+        }
+        return cached;
+    }
+
+    /**
+     * Cipher together with the key and IV it was last initialized with.
+     */
+    private static final class CachedCipher {
+        private final Cipher cipher;
+        private SecretKeySpec key;
+        private Slice iv;
+
+        private CachedCipher(Cipher cipher) {
+            this.cipher = cipher;
+        }
+
+        private boolean isInitializedWith(SecretKeySpec key, Slice iv) {
+            if (this.key == null) {
+                return false;
+            }
+            return (this.key == key || this.key.equals(key)) && this.iv.equals(iv);
+        }
+    }
+}
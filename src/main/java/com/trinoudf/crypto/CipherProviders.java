@@ -0,0 +1,244 @@
+package com.trinoudf.crypto;
+
+import com.google.common.collect.ImmutableMap;
+import com.trinoudf.global.Methods;
+import com.trinoudf.global.PluginConfig;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * ==Description==
+ * <p>
+ *     JCE provider selection for the AES Cipher instances of every mode.
+ *     Without configuration Ciphers come from the JCE provider order like Cipher.getInstance(transform),
+ *     so a provider registered by another plugin could otherwise change the AES implementation unnoticed.
+ *     BouncyCastle is used from the bundled jar without registering it in java.security.Security.
+ * </p>
+ * <p>Configuration properties, each one of default, SunJCE, BC or auto:</p>
+ * <ul>
+ *     <li>cipher.provider - provider of all modes without their own property.</li>
+ *     <li>cipher.provider.cbc, cipher.provider.ctr, cipher.provider.gcm - provider of one mode.</li>
+ *     <li>cipher.provider.benchmark-millis - measuring time per candidate provider of auto, 100 by default.</li>
+ * </ul>
+ * <p>auto benchmarks the SunJCE and BC providers on the worker at startup and keeps the fastest.</p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>configure(PluginConfig config)</li>
+ *     <li>getInstance(String transform)</li>
+ *     <li>getProviderName(String transform)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class CipherProviders {
+    private static final Logger log = Logger.getLogger(CipherProviders.class.getName());
+
+    private static final String DEFAULT = "default";
+    private static final String AUTO = "auto";
+    private static final long defaultBenchmarkMillis = 100;
+    private static final int benchmarkBufferSize = 16 * 1024;
+
+    // provider per mode name (CBC, CTR, GCM), modes without an entry use the JCE provider order
+    private static volatile ImmutableMap<String, Provider> providers = ImmutableMap.of();
+
+    /**
+     * Constructor for CipherProviders class.
+     * @author Wong Kok-Lim
+     */
+    private CipherProviders() {
+    }
+
+    /**
+     * Selects the provider of every AES mode from the plugin configuration, benchmarking the candidates of auto modes.
+     * Must be called before the first Cipher is created, as threads keep the Ciphers they already have.
+     * @param config PluginConfig with the cipher.provider properties.
+     * @throws IllegalArgumentException If a provider name is unknown or not available.
+     * @author Wong Kok-Lim
+     */
+    public static void configure(PluginConfig config) {
+        String defaultName = config.get("cipher.provider", DEFAULT);
+        long benchmarkNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(config.get("cipher.provider.benchmark-millis", String.valueOf(defaultBenchmarkMillis))));
+
+        ImmutableMap.Builder<String, Provider> selected = ImmutableMap.builder();
+        for (Methods method : new Methods[] {Methods.CBC, Methods.CTR, Methods.GCM}) {
+            String name = config.get("cipher.provider." + method.name().toLowerCase(Locale.ENGLISH), defaultName);
+            Provider provider;
+            if (AUTO.equalsIgnoreCase(name)) {
+                provider = fastest(method, benchmarkNanos);
+            }
+            else {
+                provider = resolve(name);
+            }
+
+            if (provider != null) {
+                selected.put(method.name(), provider);
+            }
+            log.info("AES " + method + " Cipher provider: " + (provider == null ? DEFAULT : provider.getName()));
+        }
+        providers = selected.build();
+    }
+
+    /**
+     * Creates a Cipher of the provider selected for the transformation's mode.
+     * @param transform Cipher transformation, e.g. AES/CBC/PKCS5PADDING.
+     * @return New Cipher.
+     * @throws NoSuchPaddingException
+     * @throws NoSuchAlgorithmException
+     * @author Wong Kok-Lim
+     */
+    public static Cipher getInstance(String transform) throws NoSuchPaddingException, NoSuchAlgorithmException {
+        Provider provider = providers.get(mode(transform));
+        return provider == null ? Cipher.getInstance(transform) : Cipher.getInstance(transform, provider);
+    }
+
+    /**
+     * Name of the provider Ciphers of a transformation come from.
+     * @param transform Cipher transformation, e.g. AES/CBC/PKCS5PADDING.
+     * @return Provider name.
+     * @throws NoSuchPaddingException
+     * @throws NoSuchAlgorithmException
+     * @author Wong Kok-Lim
+     */
+    public static String getProviderName(String transform) throws NoSuchPaddingException, NoSuchAlgorithmException {
+        return getInstance(transform).getProvider().getName();
+    }
+
+    /**
+     * Looks up a provider by name.
+     * @param name default, SunJCE, BC or the name of any registered provider.
+     * @return Provider, null for default.
+     * @author Wong Kok-Lim
+     */
+    private static Provider resolve(String name) {
+        if (DEFAULT.equalsIgnoreCase(name)) {
+            return null;
+        }
+        if (BouncyCastleProvider.PROVIDER_NAME.equalsIgnoreCase(name)) {
+            Provider registered = Security.getProvider(BouncyCastleProvider.PROVIDER_NAME);
+            return registered != null ? registered : new BouncyCastleProvider();
+        }
+
+        Provider provider = Security.getProvider(name);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unknown JCE provider: " + name);
+        }
+        return provider;
+    }
+
+    /**
+     * Benchmarks SunJCE and BouncyCastle for a mode and returns the fastest.
+     * @param method AES mode.
+     * @param benchmarkNanos Measuring time per candidate.
+     * @return Fastest Provider, null to fall back to the default provider order if neither supports the mode.
+     * @author Wong Kok-Lim
+     */
+    private static Provider fastest(Methods method, long benchmarkNanos) {
+        List<Provider> candidates = new ArrayList<>();
+        Provider sunJce = Security.getProvider("SunJCE");
+        if (sunJce != null) {
+            candidates.add(sunJce);
+        }
+        candidates.add(resolve(BouncyCastleProvider.PROVIDER_NAME));
+
+        Provider fastest = null;
+        double fastestRate = -1;
+        for (Provider candidate : candidates) {
+            try {
+                double rate = throughput(method, candidate, benchmarkNanos);
+                log.info("AES " + method + " on " + candidate.getName() + ": " + Math.round(rate) + " MB/s");
+                if (rate > fastestRate) {
+                    fastest = candidate;
+                    fastestRate = rate;
+                }
+            }
+            catch (GeneralSecurityException | RuntimeException e) {
+                // provider without this mode
+                log.info("AES " + method + " not available on " + candidate.getName() + ": " + e);
+            }
+        }
+        return fastest;
+    }
+
+    /**
+     * Measures the encryption throughput of a provider after a warm up of the same length.
+     * @param method AES mode.
+     * @param provider Provider to measure.
+     * @param benchmarkNanos Measuring time.
+     * @return Throughput in MB/s.
+     * @author Wong Kok-Lim
+     */
+    private static double throughput(Methods method, Provider provider, long benchmarkNanos) throws GeneralSecurityException {
+        String transform = transform(method);
+        Cipher cipher = Cipher.getInstance(transform, provider);
+        SecretKeySpec key = new SecretKeySpec(new byte[32], "AES");
+        byte[] input = new byte[benchmarkBufferSize];
+        byte[] output = new byte[benchmarkBufferSize + 32];
+        byte[] iv = new byte[16];
+
+        run(method, cipher, key, iv, input, output, benchmarkNanos);
+        long bytes = run(method, cipher, key, iv, input, output, benchmarkNanos);
+        return bytes * 1000.0 / benchmarkNanos;
+    }
+
+    private static long run(Methods method, Cipher cipher, SecretKeySpec key, byte[] iv, byte[] input, byte[] output, long benchmarkNanos) throws GeneralSecurityException {
+        long bytes = 0;
+        long counter = 0;
+        long end = System.nanoTime() + benchmarkNanos;
+        while (System.nanoTime() < end) {
+            if (method == Methods.GCM) {
+                // GCM refuses to encrypt twice with the same nonce
+                counter++;
+                for (int i = 0; i < Long.BYTES; i++) {
+                    iv[i] = (byte) (counter >>> (8 * i));
+                }
+                cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv, 0, 12));
+            }
+            else {
+                cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+            }
+            cipher.doFinal(input, 0, input.length, output, 0);
+            bytes += input.length;
+        }
+        return bytes;
+    }
+
+    private static String transform(Methods method) {
+        switch (method) {
+            case CBC:
+                return AESCBCEncrypter.AES_TRANSFORM;
+            case CTR:
+                return AESCTREncrypter.AES_TRANSFORM;
+            case GCM:
+                return AESGCMEncrypter.AES_TRANSFORM;
+            default:
+                throw new IllegalArgumentException("Unsupported AES method: " + method);
+        }
+    }
+
+    private static String mode(String transform) {
+        int start = transform.indexOf('/');
+        int end = transform.indexOf('/', start + 1);
+        if (start < 0 || end < 0) {
+            return transform;
+        }
+        return transform.substring(start + 1, end).toUpperCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,244 @@
+package com.trinoudf.crypto;
+
+import com.trinoudf.global.PluginConfig;
+import io.airlift.compress.MalformedInputException;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ==Description==
+ * <p>
+ *     Compression of payloads before encryption, for large text and JSON values that compress well as plaintext
+ *     but not as ciphertext. The payload gets a header inside the encrypted data, the magic bytes "TUZ", a format version
+ *     and a codec byte, so decryption detects compressed payloads on its own:
+ * </p>
+ * <pre>
+ *     TUZ | 0x01 | 0x00 | value                                     stored, for values below the minimum size or that do not shrink
+ *     TUZ | 0x01 | 0x01 | value length (4, little endian) | LZ4 block   compressed with LZ4
+ * </pre>
+ * <p>
+ *     Payloads without the magic bytes, such as values of encrypt_aes(), or with an unknown version or codec are rejected
+ *     instead of being guessed at.
+ * </p>
+ * <p>Configuration properties:</p>
+ * <ul>
+ *     <li>compress.min-bytes - values shorter than this are stored without compression, 256 by default.</li>
+ * </ul>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>configure(PluginConfig config)</li>
+ *     <li>setMinBytes(int minBytes)</li>
+ *     <li>compress(Slice value)</li>
+ *     <li>decompress(Slice payload)</li>
+ *     <li>isCompressed(Slice payload)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class CompressedPayload {
+    public static final byte[] MAGIC = {'T', 'U', 'Z'};
+    public static final byte VERSION = 0x01;
+    public static final byte STORED = 0x00;
+    public static final byte LZ4 = 0x01;
+
+    private static final int defaultMinBytes = 256;
+    private static final int headerLength = MAGIC.length + 2;
+    private static final int lz4HeaderLength = headerLength + Integer.BYTES;
+    private static final int maxRetainedSize = 1024 * 1024;
+
+    private static final Lz4Decompressor decompressor = new Lz4Decompressor();
+    // Lz4Compressor keeps its hash table between calls and is not thread safe
+    private static final ThreadLocal<Lz4Compressor> compressors = ThreadLocal.withInitial(Lz4Compressor::new);
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    private static volatile int minBytes = defaultMinBytes;
+
+    /**
+     * Constructor for CompressedPayload class.
+     * @author Wong Kok-Lim
+     */
+    private CompressedPayload() {
+    }
+
+    /**
+     * Sets the minimum size of compressed values from the plugin configuration.
+     * @param config PluginConfig with the compress properties.
+     * @throws IllegalArgumentException If the minimum size is negative.
+     * @author Wong Kok-Lim
+     */
+    public static void configure(PluginConfig config) {
+        setMinBytes(Integer.parseInt(config.get("compress.min-bytes", String.valueOf(defaultMinBytes))));
+    }
+
+    /**
+     * Sets the length below which values are stored without compression.
+     * @param minBytes Minimum value length to compress.
+     * @throws IllegalArgumentException If the minimum size is negative.
+     * @author Wong Kok-Lim
+     */
+    public static void setMinBytes(int minBytes) {
+        if (minBytes < 0) {
+            throw new IllegalArgumentException("compress.min-bytes must not be negative: " + minBytes);
+        }
+        CompressedPayload.minBytes = minBytes;
+    }
+
+    /**
+     * Prefixes a value with its header, compressing it with LZ4 if it is long enough and shrinks.
+     * The returned Slice points into a thread local buffer and is only valid until the next call on the same thread,
+     * it is meant to be encrypted right away.
+     * @param value Slice to be encrypted.
+     * @return Header and stored or compressed value.
+     * @author Wong Kok-Lim
+     */
+    public static Slice compress(Slice value) {
+        int length = value.length();
+        if (length < minBytes) {
+            return stored(value);
+        }
+
+        Lz4Compressor compressor = compressors.get();
+        byte[] buffer = buffer(lz4HeaderLength + compressor.maxCompressedLength(length));
+
+        int compressedLength;
+        ByteBuffer input = value.toByteBuffer();
+        if (input.hasArray()) {
+            compressedLength = compressor.compress(input.array(), input.arrayOffset() + input.position(), length, buffer, lz4HeaderLength, buffer.length - lz4HeaderLength);
+        }
+        else {
+            // off heap Slice, copy the value once
+            compressedLength = compressor.compress(value.getBytes(), 0, length, buffer, lz4HeaderLength, buffer.length - lz4HeaderLength);
+        }
+
+        if (lz4HeaderLength + compressedLength >= headerLength + length) {
+            return stored(value);
+        }
+        header(buffer, LZ4);
+        for (int i = 0; i < Integer.BYTES; i++) {
+            buffer[headerLength + i] = (byte) (length >>> (8 * i));
+        }
+        return Slices.wrappedBuffer(buffer, 0, lz4HeaderLength + compressedLength);
+    }
+
+    /**
+     * Restores the value of a decrypted payload. Stored values are returned without copying.
+     * @param payload Decrypted header and value.
+     * @return Value.
+     * @throws IllegalArgumentException If the payload has no compression header, an unknown version or codec, or is corrupt.
+     * @author Wong Kok-Lim
+     */
+    public static Slice decompress(Slice payload) {
+        if (payload.length() == 0) {
+            return payload;
+        }
+        if (!hasMagic(payload)) {
+            throw new IllegalArgumentException("Payload has no compression header, it was not encrypted with encrypt_aes_compressed()");
+        }
+        if (payload.length() < headerLength) {
+            throw new IllegalArgumentException("Compressed payload is truncated");
+        }
+        byte version = payload.getByte(MAGIC.length);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported compressed payload version: " + version);
+        }
+
+        byte codec = payload.getByte(MAGIC.length + 1);
+        if (codec == STORED) {
+            return payload.slice(headerLength, payload.length() - headerLength);
+        }
+        if (codec != LZ4) {
+            throw new IllegalArgumentException("Unsupported compressed payload codec: " + codec);
+        }
+
+        if (payload.length() < lz4HeaderLength) {
+            throw new IllegalArgumentException("Compressed payload is truncated");
+        }
+        int length = payload.getInt(headerLength);
+        if (length < 0) {
+            throw new IllegalArgumentException("Compressed payload has an invalid length: " + length);
+        }
+
+        byte[] output = new byte[length];
+        try {
+            int decompressed;
+            ByteBuffer input = payload.toByteBuffer(lz4HeaderLength, payload.length() - lz4HeaderLength);
+            if (input.hasArray()) {
+                decompressed = decompressor.decompress(input.array(), input.arrayOffset() + input.position(), input.remaining(), output, 0, length);
+            }
+            else {
+                byte[] copy = payload.getBytes(lz4HeaderLength, payload.length() - lz4HeaderLength);
+                decompressed = decompressor.decompress(copy, 0, copy.length, output, 0, length);
+            }
+            if (decompressed != length) {
+                throw new IllegalArgumentException("Compressed payload decompresses to " + decompressed + " instead of " + length + " bytes");
+            }
+        }
+        catch (MalformedInputException e) {
+            throw new IllegalArgumentException("Compressed payload is corrupt", e);
+        }
+        return Slices.wrappedBuffer(output);
+    }
+
+    /**
+     * Whether a decrypted payload holds an LZ4 compressed value.
+     * @param payload Decrypted header and value.
+     * @return true for compressed payloads.
+     * @author Wong Kok-Lim
+     */
+    public static boolean isCompressed(Slice payload) {
+        return payload.length() >= headerLength && hasMagic(payload) && payload.getByte(MAGIC.length + 1) == LZ4;
+    }
+
+    private static Slice stored(Slice value) {
+        byte[] buffer = buffer(headerLength + value.length());
+        header(buffer, STORED);
+        value.getBytes(0, buffer, headerLength, value.length());
+        return Slices.wrappedBuffer(buffer, 0, headerLength + value.length());
+    }
+
+    private static void header(byte[] buffer, byte codec) {
+        System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+        buffer[MAGIC.length] = VERSION;
+        buffer[MAGIC.length + 1] = codec;
+    }
+
+    private static boolean hasMagic(Slice payload) {
+        if (payload.length() < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (payload.getByte(i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the calling thread's compression buffer, at least minSize bytes long.
+     * Buffers above 1 MiB are handed out but not kept, like ScratchBuffer.
+     * @param minSize Minimum length of the buffer.
+     * @return Compression byte[].
+     * @author Wong Kok-Lim
+     */
+    private static byte[] buffer(int minSize) {
+        byte[] buffer = buffers.get();
+        if (buffer.length >= minSize) {
+            return buffer;
+        }
+
+        buffer = new byte[Math.max(minSize, buffer.length * 2)];
+        if (buffer.length <= maxRetainedSize) {
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,130 @@
+package com.trinoudf.crypto;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ==Description==
+ * <p>
+ *     Parses decimal text straight from a decrypted byte range, without building a String or Slice first.
+ *     Accepts what CAST(VARCHAR AS BIGINT) and CAST(VARCHAR AS DOUBLE) accept for the values encrypt_aes() produces:
+ *     surrounding whitespace, an optional sign and decimal digits, and for doubles any Java floating point literal.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>parseLong(byte[] bytes, int offset, int length)</li>
+ *     <li>parseDouble(byte[] bytes, int offset, int length)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+final class DecimalParser {
+    // digits of which the value always fits a double exactly and a long without overflow
+    private static final int maxExactDigits = 15;
+
+    /**
+     * Constructor for DecimalParser class.
+     * @author Wong Kok-Lim
+     */
+    private DecimalParser() {
+    }
+
+    /**
+     * Parses a decimal integer.
+     * @param bytes byte[] holding the text.
+     * @param offset Offset of the text.
+     * @param length Length of the text.
+     * @return Parsed value.
+     * @throws NumberFormatException If the text is not an integer or does not fit a long.
+     * @author Wong Kok-Lim
+     */
+    static long parseLong(byte[] bytes, int offset, int length) {
+        int start = trimStart(bytes, offset, offset + length);
+        int end = trimEnd(bytes, start, offset + length);
+        if (start == end) {
+            throw new NumberFormatException("Decrypted value is empty");
+        }
+
+        boolean negative = bytes[start] == '-';
+        if (negative || bytes[start] == '+') {
+            start++;
+            if (start == end) {
+                throw new NumberFormatException("Decrypted value is not an integer");
+            }
+        }
+
+        // accumulate negatively like Long.parseLong so that Long.MIN_VALUE can be parsed
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Decrypted value is not an integer");
+            }
+            if (result < multiplyMin) {
+                throw new NumberFormatException("Decrypted value is out of range for BIGINT");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("Decrypted value is out of range for BIGINT");
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a decimal number. Short integers are parsed directly, anything else falls back to Double.parseDouble.
+     * @param bytes byte[] holding the text.
+     * @param offset Offset of the text.
+     * @param length Length of the text.
+     * @return Parsed value.
+     * @throws NumberFormatException If the text is not a number.
+     * @author Wong Kok-Lim
+     */
+    static double parseDouble(byte[] bytes, int offset, int length) {
+        int start = trimStart(bytes, offset, offset + length);
+        int end = trimEnd(bytes, start, offset + length);
+        if (end - start <= maxExactDigits && isInteger(bytes, start, end)) {
+            return parseLong(bytes, start, end - start);
+        }
+        return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+    }
+
+    private static boolean isInteger(byte[] bytes, int start, int end) {
+        if (start < end && (bytes[start] == '-' || bytes[start] == '+')) {
+            start++;
+        }
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int trimStart(byte[] bytes, int start, int end) {
+        while (start < end && isWhitespace(bytes[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(byte[] bytes, int start, int end) {
+        while (end > start && isWhitespace(bytes[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || value == '\t' || value == '\n' || value == '\r';
+    }
+}
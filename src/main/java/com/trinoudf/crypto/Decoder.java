@@ -1,29 +1,29 @@
 package com.trinoudf.crypto;
 
-import java.util.Base64;
+import io.airlift.slice.Slice;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * ==Description==
  * <p>
- *     Decodes Base64 String.
+ *     Decodes Base64 String with Base64Codec.STANDARD.
  * </p>
  * ===Objects===
- * <p>This class contains the following objects when instantiated:</p>
- * <ul>
- *     <li>decoder</li>
- * </ul>
+ * <p>This class does not contain any objects when instantiated.</p>
  * ===Methods===
  * <p>This class contains the following methods when instantiated:</p>
  * <ul>
  *     <li>Decoder()</li>
  *     <li>decode(String payload)</li>
+ *     <li>decode(Slice payload)</li>
  * </ul>
  *
  * @author Wong Kok-Lim
  */
 public class Decoder {
-    private static final Base64.Decoder decoder = Base64.getDecoder();
-
     /**
      * Constructor for Decoder class.
      * @author Wong Kok-Lim
@@ -38,7 +38,20 @@ public class Decoder {
      * @author Wong Kok-Lim
      */
     public static byte[] decode(String payload) {
-        return decoder.decode(payload);
+        byte[] input = payload.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] output = new byte[Base64Codec.STANDARD.maxDecodedLength(input.length)];
+        int length = Base64Codec.STANDARD.decode(input, 0, input.length, output, 0);
+        return length == output.length ? output : Arrays.copyOf(output, length);
+    }
+
+    /**
+     * Decodes Base64 Slice without converting it to a String.
+     * @param payload Base64 Slice to decode.
+     * @return Decoded heap ByteBuffer.
+     * @author Wong Kok-Lim
+     */
+    public static ByteBuffer decode(Slice payload) {
+        return Base64Codec.STANDARD.decode(payload);
     }
 
 }
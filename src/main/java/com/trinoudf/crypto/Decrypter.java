@@ -1,8 +1,11 @@
 package com.trinoudf.crypto;
 
+import io.airlift.slice.Slice;
+
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -20,6 +23,17 @@ import java.security.NoSuchAlgorithmException;
  * <ul>
  *     <li>decryptString(String payload, String key, String initVector)</li>
  *     <li>decryptByteBuffer(ByteBuffer payload, String key, String initVector)</li>
+ *     <li>decryptByteBuffer(ByteBuffer payload, SecretKeySpec key, byte[] initVector)</li>
+ *     <li>decryptSlice(Slice payload, Slice key, Slice initVector)</li>
+ *     <li>decryptSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptRawSlice(Slice payload, Slice key, Slice initVector)</li>
+ *     <li>decryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>tryDecryptSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>tryDecryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptLong(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptDouble(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptHash(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decryptRandomIvSlice(Slice payload, SecretKeySpec key)</li>
  * </ul>
  *
  * @author Wong Kok-Lim
@@ -28,4 +42,15 @@ import java.security.NoSuchAlgorithmException;
 interface Decrypter {
     String decryptString(String payload, String key, String initVector) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException;
     ByteBuffer decryptByteBuffer(ByteBuffer payload, String key, String initVector);
+    ByteBuffer decryptByteBuffer(ByteBuffer payload, SecretKeySpec key, byte[] initVector);
+    Slice decryptSlice(Slice payload, Slice key, Slice initVector);
+    Slice decryptSlice(Slice payload, SecretKeySpec key, Slice initVector);
+    Slice decryptRawSlice(Slice payload, Slice key, Slice initVector);
+    Slice decryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector);
+    Slice tryDecryptSlice(Slice payload, SecretKeySpec key, Slice initVector) throws DecryptionFailure;
+    Slice tryDecryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector) throws DecryptionFailure;
+    long decryptLong(Slice payload, SecretKeySpec key, Slice initVector);
+    double decryptDouble(Slice payload, SecretKeySpec key, Slice initVector);
+    long decryptHash(Slice payload, SecretKeySpec key, Slice initVector);
+    Slice decryptRandomIvSlice(Slice payload, SecretKeySpec key);
 }
@@ -0,0 +1,289 @@
+package com.trinoudf.crypto;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.trinoudf.global.Methods;
+import com.trinoudf.global.PluginConfig;
+import com.trinoudf.metrics.DecryptionCacheStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.slice.XxHash64;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * ==Description==
+ * <p>
+ *     Opt-in per worker cache of decrypted values by ciphertext, key digest, Initialize Vector and AES mode,
+ *     for encrypted columns with few distinct values such as countries or plan tiers.
+ *     The cache is bounded by the retained size of ciphertexts and plaintexts and entries expire after a fixed time.
+ *     A miss only enters the cache once its frequency sketch has seen the ciphertext before, so a scan over a column
+ *     of unique values cannot flush the popular entries.
+ *     Keys are identified by KeyGenerator.keyDigest(), a SHA-256 digest of the derived key that is compared in full on
+ *     every lookup, so no other key can read an entry. The key itself is never stored.
+ *     Every entry is purged when keys rotate, i.e. when a KeyRegistry is installed or KeyGenerator.invalidateAll() is called.
+ * </p>
+ * <p>Configuration properties:</p>
+ * <ul>
+ *     <li>decrypt-cache.enabled - true to cache decrypted values, false by default.</li>
+ *     <li>decrypt-cache.max-bytes - maximum retained size of the cache, 64 MB by default.</li>
+ *     <li>decrypt-cache.ttl-seconds - time after which an entry expires, 600 by default.</li>
+ *     <li>decrypt-cache.max-value-bytes - ciphertexts longer than this are never cached, 1024 by default.</li>
+ * </ul>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>entries</li>
+ *     <li>sketch</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>get()</li>
+ *     <li>install(DecryptionCache cache)</li>
+ *     <li>configure(PluginConfig config)</li>
+ *     <li>create(long maxBytes, long ttlSeconds, int maxValueBytes)</li>
+ *     <li>disabled()</li>
+ *     <li>isEnabled()</li>
+ *     <li>getIfPresent(Methods method, boolean raw, Slice keyDigest, Slice initVector, Slice secureData)</li>
+ *     <li>offer(Methods method, boolean raw, Slice keyDigest, Slice initVector, Slice secureData, Slice plaintext)</li>
+ *     <li>invalidateAll()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class DecryptionCache {
+    private static final Logger log = Logger.getLogger(DecryptionCache.class.getName());
+
+    private static final long defaultMaxBytes = 64L * 1024 * 1024;
+    private static final long defaultTtlSeconds = 600;
+    private static final int defaultMaxValueBytes = 1024;
+    // frequency a ciphertext needs before it is cached, 2 keeps values that are seen only once out
+    private static final int admissionFrequency = 2;
+    // retained size of CacheKey and the Guava entry besides the ciphertext and plaintext
+    private static final int entryOverhead = 96;
+
+    private static volatile DecryptionCache cache = disabled();
+
+    private final Cache<CacheKey, Slice> entries;
+    private final FrequencySketch sketch;
+    private final int maxValueBytes;
+    private final DecryptionCacheStats stats = PluginMetrics.decryptionCache();
+
+    private DecryptionCache(Cache<CacheKey, Slice> entries, FrequencySketch sketch, int maxValueBytes) {
+        this.entries = entries;
+        this.sketch = sketch;
+        this.maxValueBytes = maxValueBytes;
+    }
+
+    /**
+     * Cache used by the decrypt_aes functions.
+     * @return Installed DecryptionCache, disabled until one is installed.
+     * @author Wong Kok-Lim
+     */
+    public static DecryptionCache get() {
+        return cache;
+    }
+
+    /**
+     * Replaces the cache used by the decrypt_aes functions and purges the previous one.
+     * @param cache DecryptionCache to install.
+     * @author Wong Kok-Lim
+     */
+    public static void install(DecryptionCache cache) {
+        DecryptionCache previous = DecryptionCache.cache;
+        DecryptionCache.cache = cache;
+        previous.invalidateAll();
+    }
+
+    /**
+     * Installs the cache described by the plugin configuration.
+     * @param config PluginConfig with the decrypt-cache properties.
+     * @throws IllegalArgumentException If a size or time is not a positive number.
+     * @author Wong Kok-Lim
+     */
+    public static void configure(PluginConfig config) {
+        if (!Boolean.parseBoolean(config.get("decrypt-cache.enabled", "false"))) {
+            install(disabled());
+            return;
+        }
+
+        long maxBytes = Long.parseLong(config.get("decrypt-cache.max-bytes", String.valueOf(defaultMaxBytes)));
+        long ttlSeconds = Long.parseLong(config.get("decrypt-cache.ttl-seconds", String.valueOf(defaultTtlSeconds)));
+        int maxValueBytes = Integer.parseInt(config.get("decrypt-cache.max-value-bytes", String.valueOf(defaultMaxValueBytes)));
+        install(create(maxBytes, ttlSeconds, maxValueBytes));
+        log.info("Decryption cache enabled: " + maxBytes + " bytes, " + ttlSeconds + " s TTL");
+    }
+
+    /**
+     * Creates an enabled cache.
+     * @param maxBytes Maximum retained size of the cached ciphertexts and plaintexts.
+     * @param ttlSeconds Time after which an entry expires.
+     * @param maxValueBytes Length of the longest ciphertext to cache.
+     * @return DecryptionCache.
+     * @throws IllegalArgumentException If a size or time is not positive.
+     * @author Wong Kok-Lim
+     */
+    public static DecryptionCache create(long maxBytes, long ttlSeconds, int maxValueBytes) {
+        if (maxBytes <= 0 || ttlSeconds <= 0 || maxValueBytes <= 0) {
+            throw new IllegalArgumentException("Decryption cache sizes and TTL must be positive");
+        }
+
+        DecryptionCacheStats stats = PluginMetrics.decryptionCache();
+        RemovalListener<CacheKey, Slice> listener = removal -> stats.removed(weight(removal.getKey(), removal.getValue()), removal.wasEvicted());
+        Cache<CacheKey, Slice> entries = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(DecryptionCache::weight)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .removalListener(listener)
+                .build();
+
+        // about one counter per expected entry of small values
+        int width = (int) Math.min(1 << 22, Math.max(1024, maxBytes / 256));
+        return new DecryptionCache(entries, new FrequencySketch(width), maxValueBytes);
+    }
+
+    /**
+     * Cache that never holds anything.
+     * @return Disabled DecryptionCache.
+     * @author Wong Kok-Lim
+     */
+    public static DecryptionCache disabled() {
+        return new DecryptionCache(null, null, 0);
+    }
+
+    /**
+     * Whether values are cached at all.
+     * @return false for the disabled cache.
+     * @author Wong Kok-Lim
+     */
+    public boolean isEnabled() {
+        return entries != null;
+    }
+
+    /**
+     * Looks up the plaintext of a ciphertext. The ciphertext Slice is not copied.
+     * @param method AES mode of the ciphertext.
+     * @param raw true for raw ciphertext bytes, false for Base64 text.
+     * @param keyDigest KeyGenerator.keyDigest() of the derived key.
+     * @param initVector Initialize Vector Slice.
+     * @param secureData Ciphertext Slice.
+     * @return Cached plaintext, null if not cached.
+     * @author Wong Kok-Lim
+     */
+    public Slice getIfPresent(Methods method, boolean raw, Slice keyDigest, Slice initVector, Slice secureData) {
+        if (entries == null || secureData.length() > maxValueBytes) {
+            return null;
+        }
+
+        Slice plaintext = entries.getIfPresent(new CacheKey(method, raw, keyDigest, initVector, secureData));
+        if (plaintext != null) {
+            stats.hit();
+        }
+        else {
+            stats.miss();
+        }
+        return plaintext;
+    }
+
+    /**
+     * Offers the plaintext of a ciphertext that was not cached. It is cached if the ciphertext was seen before.
+     * @param method AES mode of the ciphertext.
+     * @param raw true for raw ciphertext bytes, false for Base64 text.
+     * @param keyDigest KeyGenerator.keyDigest() of the derived key.
+     * @param initVector Initialize Vector Slice.
+     * @param secureData Ciphertext Slice.
+     * @param plaintext Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    public void offer(Methods method, boolean raw, Slice keyDigest, Slice initVector, Slice secureData, Slice plaintext) {
+        if (entries == null || secureData.length() > maxValueBytes) {
+            return;
+        }
+
+        CacheKey key = new CacheKey(method, raw, keyDigest, initVector, secureData);
+        if (sketch.increment(key.hash) < admissionFrequency) {
+            stats.rejected();
+            return;
+        }
+
+        // copy, the arguments may be views into page memory
+        CacheKey copy = key.copy();
+        Slice value = Slices.copyOf(plaintext);
+        stats.admitted();
+        stats.added(weight(copy, value));
+        entries.put(copy, value);
+    }
+
+    /**
+     * Purges every cached plaintext.
+     * @author Wong Kok-Lim
+     */
+    public void invalidateAll() {
+        if (entries != null) {
+            entries.invalidateAll();
+            entries.cleanUp();
+            stats.invalidated();
+        }
+    }
+
+    private static int weight(CacheKey key, Slice plaintext) {
+        return entryOverhead + (int) (key.initVector.getRetainedSize() + key.secureData.getRetainedSize() + plaintext.getRetainedSize());
+    }
+
+    /**
+     * Ciphertext together with what it was encrypted with.
+     */
+    private static final class CacheKey {
+        private final Methods method;
+        private final boolean raw;
+        private final Slice keyDigest;
+        private final Slice initVector;
+        private final Slice secureData;
+        private final long hash;
+
+        private CacheKey(Methods method, boolean raw, Slice keyDigest, Slice initVector, Slice secureData) {
+            this(method, raw, keyDigest, initVector, secureData, XxHash64.hash(XxHash64.hash(keyDigest.getLong(0), initVector), secureData) * 31 + method.ordinal() * 2 + (raw ? 1 : 0));
+        }
+
+        private CacheKey(Methods method, boolean raw, Slice keyDigest, Slice initVector, Slice secureData, long hash) {
+            this.method = method;
+            this.raw = raw;
+            this.keyDigest = keyDigest;
+            this.initVector = initVector;
+            this.secureData = secureData;
+            this.hash = hash;
+        }
+
+        private CacheKey copy() {
+            // the digest belongs to KeyGenerator, not to page memory
+            return new CacheKey(method, raw, keyDigest, Slices.copyOf(initVector), Slices.copyOf(secureData), hash);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey that = (CacheKey) other;
+            return hash == that.hash
+                    && method == that.method
+                    && raw == that.raw
+                    && keyDigest.equals(that.keyDigest)
+                    && secureData.equals(that.secureData)
+                    && initVector.equals(that.initVector);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+}
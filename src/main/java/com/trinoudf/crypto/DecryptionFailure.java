@@ -0,0 +1,27 @@
+package com.trinoudf.crypto;
+
+/**
+ * ==Description==
+ * <p>
+ *     Preallocated failure signal of the quiet decryption methods, e.g. Decrypter.tryDecryptSlice().
+ *     The single INSTANCE carries no stack trace, cause or suppressed exceptions, so throwing it for a corrupt
+ *     or wrong key row costs no more than a return, and try_decrypt_aes functions can turn it into NULL.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>INSTANCE</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class does not contain any methods when instantiated.</p>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class DecryptionFailure extends RuntimeException {
+    public static final DecryptionFailure INSTANCE = new DecryptionFailure();
+
+    private DecryptionFailure() {
+        super("AES decryption failed", null, false, false);
+    }
+}
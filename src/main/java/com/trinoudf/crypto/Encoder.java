@@ -1,11 +1,12 @@
 package com.trinoudf.crypto;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
 /**
  * ==Description==
- * <p>Encodes String in Base64.</p>
+ * <p>Encodes String in Base64 with Base64Codec.STANDARD.</p>
  * ===Objects===
  * <p>This class contains the following objects when instantiated:</p>
  * <ul>
@@ -38,7 +39,9 @@ public class Encoder {
      * @author Wong Kok-Lim
      */
     public static String encode(byte[] payload) {
-        return encoder.encodeToString(payload);
+        byte[] encoded = new byte[Base64Codec.STANDARD.encodedLength(payload.length)];
+        Base64Codec.STANDARD.encode(payload, 0, payload.length, encoded, 0);
+        return new String(encoded, StandardCharsets.US_ASCII);
     }
 
     /**
@@ -48,6 +51,12 @@ public class Encoder {
      * @author Wong Kok-Lim
      */
     public static ByteBuffer encode(ByteBuffer payload) {
-        return encoder.encode(payload);
+        if (!payload.hasArray()) {
+            return encoder.encode(payload);
+        }
+        byte[] encoded = new byte[Base64Codec.STANDARD.encodedLength(payload.remaining())];
+        Base64Codec.STANDARD.encode(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining(), encoded, 0);
+        payload.position(payload.limit());
+        return ByteBuffer.wrap(encoded);
     }
 }
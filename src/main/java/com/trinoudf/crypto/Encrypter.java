@@ -1,8 +1,11 @@
 package com.trinoudf.crypto;
 
+import io.airlift.slice.Slice;
+
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -20,6 +23,12 @@ import java.security.NoSuchAlgorithmException;
  * <ul>
  *     <li>encryptString(String payload, String key, String initVector)</li>
  *     <li>encryptByteBuffer(ByteBuffer payload, String key, String initVector)</li>
+ *     <li>encryptByteBuffer(ByteBuffer payload, SecretKeySpec key, byte[] initVector)</li>
+ *     <li>encryptSlice(Slice payload, Slice key, Slice initVector)</li>
+ *     <li>encryptSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>encryptRawSlice(Slice payload, Slice key, Slice initVector)</li>
+ *     <li>encryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector)</li>
+ *     <li>encryptRandomIvSlice(Slice payload, SecretKeySpec key)</li>
  * </ul>
  *
  * @author koklim
@@ -28,4 +37,10 @@ import java.security.NoSuchAlgorithmException;
 public interface Encrypter {
     String encryptString(String payload, String key, String initVector) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException, InvalidAlgorithmParameterException;
     ByteBuffer encryptByteBuffer(ByteBuffer payload, String key, String initVector);
+    ByteBuffer encryptByteBuffer(ByteBuffer payload, SecretKeySpec key, byte[] initVector);
+    Slice encryptSlice(Slice payload, Slice key, Slice initVector);
+    Slice encryptSlice(Slice payload, SecretKeySpec key, Slice initVector);
+    Slice encryptRawSlice(Slice payload, Slice key, Slice initVector);
+    Slice encryptRawSlice(Slice payload, SecretKeySpec key, Slice initVector);
+    Slice encryptRandomIvSlice(Slice payload, SecretKeySpec key);
 }
@@ -0,0 +1,137 @@
+package com.trinoudf.crypto;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ==Description==
+ * <p>
+ *     Approximate access frequency of hashed keys, a count-min sketch of 4 rows of 8 bit counters that are halved
+ *     after every 10 * width recorded accesses, so that old popularity fades out (TinyLFU).
+ *     Eight counters are packed into each long and updated with compare and set, so concurrent increments and the
+ *     halving never lose or resurrect counts. Exactly one thread halves the counters per sample period.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>counters</li>
+ *     <li>additions</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>FrequencySketch(int width)</li>
+ *     <li>increment(long hash)</li>
+ *     <li>frequency(long hash)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+final class FrequencySketch {
+    private static final int depth = 4;
+    private static final int maxCount = 127;
+    // clears the bit each counter receives from its neighbour when a word is shifted right
+    private static final long halfMask = 0x7f7f7f7f7f7f7f7fL;
+    private static final long[] seeds = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final AtomicLongArray counters;
+    private final AtomicInteger additions = new AtomicInteger();
+    private final int mask;
+    private final int sampleSize;
+
+    /**
+     * Constructor for FrequencySketch class.
+     * @param width Counters per row, rounded up to a power of two.
+     * @author Wong Kok-Lim
+     */
+    FrequencySketch(int width) {
+        int rowWidth = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        counters = new AtomicLongArray(depth * rowWidth / Long.BYTES);
+        mask = rowWidth - 1;
+        sampleSize = 10 * rowWidth;
+    }
+
+    /**
+     * Records an access of a key.
+     * @param hash 64 bit hash of the key.
+     * @return Estimated frequency of the key including this access.
+     * @author Wong Kok-Lim
+     */
+    int increment(long hash) {
+        int frequency = maxCount;
+        for (int row = 0; row < depth; row++) {
+            frequency = Math.min(frequency, increment(index(hash, row)));
+        }
+
+        // only the thread that completes a sample ages, the others keep counting into the next sample
+        if (additions.incrementAndGet() == sampleSize) {
+            age();
+        }
+        return frequency;
+    }
+
+    /**
+     * Estimated access frequency of a key.
+     * @param hash 64 bit hash of the key.
+     * @return Estimated frequency, never lower than the true frequency since the last ageing.
+     * @author Wong Kok-Lim
+     */
+    int frequency(long hash) {
+        int frequency = maxCount;
+        for (int row = 0; row < depth; row++) {
+            frequency = Math.min(frequency, count(index(hash, row)));
+        }
+        return frequency;
+    }
+
+    private int index(long hash, int row) {
+        long mixed = (hash ^ seeds[row]) * 0x9e3779b97f4a7c15L;
+        return row * (mask + 1) + ((int) (mixed >>> 32) & mask);
+    }
+
+    private int count(int index) {
+        return (int) (counters.get(index >>> 3) >>> shift(index)) & 0xff;
+    }
+
+    /**
+     * Increments one counter unless it is saturated.
+     * @param index Counter index.
+     * @return Counter value after the increment.
+     * @author Wong Kok-Lim
+     */
+    private int increment(int index) {
+        int word = index >>> 3;
+        int shift = shift(index);
+        while (true) {
+            long value = counters.get(word);
+            int count = (int) (value >>> shift) & 0xff;
+            if (count >= maxCount) {
+                return count;
+            }
+            if (counters.compareAndSet(word, value, value + (1L << shift))) {
+                return count + 1;
+            }
+        }
+    }
+
+    private static int shift(int index) {
+        return (index & 7) << 3;
+    }
+
+    /**
+     * Halves every counter and starts the next sample.
+     * @author Wong Kok-Lim
+     */
+    private void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            while (true) {
+                long value = counters.get(i);
+                if (counters.compareAndSet(i, value, (value >>> 1) & halfMask)) {
+                    break;
+                }
+            }
+        }
+        additions.addAndGet(-sampleSize);
+    }
+}
@@ -0,0 +1,84 @@
+package com.trinoudf.crypto;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * ==Description==
+ * <p>
+ *     Generates random nonces and Initialize Vectors.
+ *     Every thread has its own deterministic random bit generator, seeded once from the system entropy source,
+ *     so that concurrent drivers never contend on a shared instance.
+ *     The default SecureRandom on Linux (NativePRNG) reads /dev/urandom under a lock shared by all its instances,
+ *     which would serialize IV generation across threads even with one instance per thread.
+ *     The JDK DRBG (Java 9 and later) is preferred, SHA1PRNG and the default SecureRandom are the fallbacks.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>nextBytes(byte[] output, int offset, int length)</li>
+ *     <li>getAlgorithm()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class IvGenerator {
+    public static final int IV_LENGTH = 16;
+
+    private static final String[] algorithms = {"DRBG", "SHA1PRNG"};
+
+    private static final ThreadLocal<SecureRandom> randoms = ThreadLocal.withInitial(IvGenerator::newRandom);
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[IV_LENGTH]);
+
+    /**
+     * Constructor for IvGenerator class.
+     * @author Wong Kok-Lim
+     */
+    private IvGenerator() {
+    }
+
+    /**
+     * Fills a byte range with random bytes.
+     * @param output byte[] to write the random bytes to.
+     * @param offset Offset of the random bytes in output.
+     * @param length Number of random bytes, at most 16.
+     * @author Wong Kok-Lim
+     */
+    public static void nextBytes(byte[] output, int offset, int length) {
+        byte[] buffer = buffers.get();
+        randoms.get().nextBytes(buffer);
+        System.arraycopy(buffer, 0, output, offset, length);
+    }
+
+    /**
+     * Algorithm of the calling thread's random generator.
+     * @return SecureRandom algorithm name, e.g. DRBG.
+     * @author Wong Kok-Lim
+     */
+    public static String getAlgorithm() {
+        return randoms.get().getAlgorithm();
+    }
+
+    /**
+     * Creates the random generator of a thread, the first available of DRBG and SHA1PRNG.
+     * @return Seeded SecureRandom.
+     * @author Wong Kok-Lim
+     */
+    private static SecureRandom newRandom() {
+        for (String algorithm : algorithms) {
+            try {
+                SecureRandom random = SecureRandom.getInstance(algorithm);
+                // seed now rather than on the first row
+                random.nextBytes(new byte[IV_LENGTH]);
+                return random;
+            }
+            catch (NoSuchAlgorithmException e) {
+                // not available on this JVM, try the next one
+            }
+        }
+        return new SecureRandom();
+    }
+}
@@ -0,0 +1,74 @@
+package com.trinoudf.crypto;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ==Description==
+ * <p>
+ *     Thread confined pool of initialized Mac objects, the Mac counterpart of CipherCache.
+ *     Every thread keeps one Mac per algorithm together with the key it was last initialized with,
+ *     so consecutive rows using the same key skip the provider lookup and the Mac re-init.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>getMac(SecretKeySpec key)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class MacCache {
+    private static final ThreadLocal<Map<String, CachedMac>> macs = ThreadLocal.withInitial(HashMap::new);
+
+    private MacCache() {
+    }
+
+    /**
+     * Returns the calling thread's Mac for the key's algorithm, initialized with the key and reset.
+     * The Mac must not be shared with other threads.
+     * @param key SecretKeySpec to initialize the Mac with, its algorithm selects the Mac, e.g. HmacSHA256.
+     * @return Initialized Mac.
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeyException
+     * @author Wong Kok-Lim
+     */
+    public static Mac getMac(SecretKeySpec key) throws NoSuchAlgorithmException, InvalidKeyException {
+        Map<String, CachedMac> threadMacs = macs.get();
+        CachedMac cached = threadMacs.get(key.getAlgorithm());
+        if (cached == null) {
+            cached = new CachedMac(Mac.getInstance(key.getAlgorithm()));
+            threadMacs.put(key.getAlgorithm(), cached);
+        }
+
+        if (cached.key != key && !key.equals(cached.key)) {
+            cached.mac.init(key);
+            cached.key = key;
+        }
+        else {
+            // doFinal resets the Mac, this only discards input of a failed call
+            cached.mac.reset();
+        }
+
+        return cached.mac;
+    }
+
+    /**
+     * Mac together with the key it was last initialized with.
+     */
+    private static final class CachedMac {
+        private final Mac mac;
+        private SecretKeySpec key;
+
+        private CachedMac(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
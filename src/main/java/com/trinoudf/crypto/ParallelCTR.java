@@ -0,0 +1,287 @@
+package com.trinoudf.crypto;
+
+import com.trinoudf.global.PluginConfig;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES CTR encryption and decryption of very large values split into segments that run in parallel on a bounded ForkJoinPool.
+ *     CTR must never reuse a counter with the same key, so every value gets a random 16 byte nonce which is prepended to the ciphertext.
+ *     The initial counter block of the value is the nonce XOR the Initialize Vector, so the Initialize Vector still has to match.
+ *     Every segment starts at a multiple of the AES block size and its Cipher is initialized with the counter block of its offset,
+ *     i.e. the initial counter block as 128 bit big endian number plus the segment's block index,
+ *     so only the segment offsets are deterministic and a value decrypts whatever the segment size or parallelism it was encrypted with.
+ *     Values up to the threshold are processed on the calling thread.
+ * </p>
+ * <pre>
+ *     nonce (16) | AES/CTR/NoPadding(key, counter = nonce XOR Initialize Vector) of the value
+ * </pre>
+ * <p>Configuration properties:</p>
+ * <ul>
+ *     <li>large-aes.threshold-bytes - values longer than this are split into segments, 4 MB by default.</li>
+ *     <li>large-aes.segment-bytes - bytes per segment, a multiple of 16, 1 MB by default.</li>
+ *     <li>large-aes.parallelism - threads of the pool shared by all queries, half the processors by default.</li>
+ * </ul>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>pool</li>
+ *     <li>thresholdBytes</li>
+ *     <li>segmentBytes</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>get()</li>
+ *     <li>install(ParallelCTR parallelCtr)</li>
+ *     <li>configure(PluginConfig config)</li>
+ *     <li>create(long thresholdBytes, int segmentBytes, int parallelism)</li>
+ *     <li>encrypt(Slice plaintext, SecretKeySpec key, Slice initVector)</li>
+ *     <li>decrypt(Slice ciphertext, SecretKeySpec key, Slice initVector)</li>
+ *     <li>counterBlock(Slice initVector, long blockIndex)</li>
+ *     <li>initialCounter(Slice nonce, Slice initVector)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class ParallelCTR {
+    public static final int BLOCK_LENGTH = 16;
+    public static final int NONCE_LENGTH = BLOCK_LENGTH;
+
+    private static final Logger log = Logger.getLogger(ParallelCTR.class.getName());
+
+    private static final String AES_TRANSFORM = AESCTREncrypter.AES_TRANSFORM;
+    private static final long defaultThresholdBytes = 4L * 1024 * 1024;
+    private static final int defaultSegmentBytes = 1024 * 1024;
+
+    private static volatile ParallelCTR parallelCtr = create(defaultThresholdBytes, defaultSegmentBytes, defaultParallelism());
+
+    private final ForkJoinPool pool;
+    private final long thresholdBytes;
+    private final int segmentBytes;
+
+    private ParallelCTR(ForkJoinPool pool, long thresholdBytes, int segmentBytes) {
+        this.pool = pool;
+        this.thresholdBytes = thresholdBytes;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * ParallelCTR used by the large value functions.
+     * @return Installed ParallelCTR.
+     * @author Wong Kok-Lim
+     */
+    public static ParallelCTR get() {
+        return parallelCtr;
+    }
+
+    /**
+     * Replaces the ParallelCTR used by the large value functions and shuts down the previous pool once its segments are done.
+     * @param parallelCtr ParallelCTR to install.
+     * @author Wong Kok-Lim
+     */
+    public static void install(ParallelCTR parallelCtr) {
+        ParallelCTR previous = ParallelCTR.parallelCtr;
+        ParallelCTR.parallelCtr = parallelCtr;
+        previous.pool.shutdown();
+    }
+
+    /**
+     * Installs the ParallelCTR described by the plugin configuration.
+     * @param config PluginConfig with the large-aes properties.
+     * @throws IllegalArgumentException If a size or the parallelism is invalid.
+     * @author Wong Kok-Lim
+     */
+    public static void configure(PluginConfig config) {
+        long thresholdBytes = Long.parseLong(config.get("large-aes.threshold-bytes", String.valueOf(defaultThresholdBytes)));
+        int segmentBytes = Integer.parseInt(config.get("large-aes.segment-bytes", String.valueOf(defaultSegmentBytes)));
+        int parallelism = Integer.parseInt(config.get("large-aes.parallelism", String.valueOf(defaultParallelism())));
+        install(create(thresholdBytes, segmentBytes, parallelism));
+        log.info("Large value AES CTR: " + segmentBytes + " byte segments above " + thresholdBytes + " bytes on " + parallelism + " threads");
+    }
+
+    /**
+     * Creates a ParallelCTR with its own pool.
+     * @param thresholdBytes Length above which values are split into segments.
+     * @param segmentBytes Bytes per segment, a positive multiple of 16.
+     * @param parallelism Threads of the pool.
+     * @return ParallelCTR.
+     * @throws IllegalArgumentException If a size or the parallelism is invalid.
+     * @author Wong Kok-Lim
+     */
+    public static ParallelCTR create(long thresholdBytes, int segmentBytes, int parallelism) {
+        if (thresholdBytes < 0 || segmentBytes <= 0 || segmentBytes % BLOCK_LENGTH != 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Large value AES needs a threshold of at least 0, a segment size that is a positive multiple of "
+                    + BLOCK_LENGTH + " and a positive parallelism");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism, ParallelCTR::newWorker, null, false);
+        return new ParallelCTR(pool, thresholdBytes, segmentBytes);
+    }
+
+    /**
+     * Encrypts a value with AES CTR under a fresh random nonce, in parallel segments if it is longer than the threshold.
+     * @param plaintext Slice to be encrypted.
+     * @param key SecretKeySpec to use for encryption.
+     * @param initVector 16 byte Initialize Vector.
+     * @return Nonce followed by the raw ciphertext.
+     * @throws IllegalArgumentException If the Initialize Vector is not 16 bytes.
+     * @author Wong Kok-Lim
+     */
+    public Slice encrypt(Slice plaintext, SecretKeySpec key, Slice initVector) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        IvGenerator.nextBytes(nonce, 0, NONCE_LENGTH);
+        byte[] counter = initialCounter(Slices.wrappedBuffer(nonce), initVector);
+
+        Slice output = Slices.allocate(NONCE_LENGTH + plaintext.length());
+        output.setBytes(0, nonce, 0, NONCE_LENGTH);
+        crypt(Cipher.ENCRYPT_MODE, plaintext, output.slice(NONCE_LENGTH, plaintext.length()), key, counter);
+        return output;
+    }
+
+    /**
+     * Decrypts a value of encrypt(), in parallel segments if it is longer than the threshold.
+     * @param ciphertext Nonce followed by the raw ciphertext.
+     * @param key SecretKeySpec to use for decryption.
+     * @param initVector 16 byte Initialize Vector.
+     * @return Decrypted Slice.
+     * @throws IllegalArgumentException If the Initialize Vector is not 16 bytes or the value is shorter than the nonce.
+     * @author Wong Kok-Lim
+     */
+    public Slice decrypt(Slice ciphertext, SecretKeySpec key, Slice initVector) {
+        if (ciphertext.length() < NONCE_LENGTH) {
+            throw new IllegalArgumentException("AES CTR ciphertext is shorter than its " + NONCE_LENGTH + " byte nonce");
+        }
+        byte[] counter = initialCounter(ciphertext.slice(0, NONCE_LENGTH), initVector);
+
+        int length = ciphertext.length() - NONCE_LENGTH;
+        Slice output = Slices.allocate(length);
+        crypt(Cipher.DECRYPT_MODE, ciphertext.slice(NONCE_LENGTH, length), output, key, counter);
+        return output;
+    }
+
+    /**
+     * Initial counter block of a value, its nonce XOR the Initialize Vector.
+     * @param nonce 16 byte random nonce of the value.
+     * @param initVector 16 byte Initialize Vector.
+     * @return Counter block byte[].
+     * @throws IllegalArgumentException If the Initialize Vector is not 16 bytes.
+     * @author Wong Kok-Lim
+     */
+    public static byte[] initialCounter(Slice nonce, Slice initVector) {
+        if (initVector.length() != BLOCK_LENGTH) {
+            throw new IllegalArgumentException("AES CTR Initialize Vector must be " + BLOCK_LENGTH + " bytes: " + initVector.length());
+        }
+
+        byte[] counter = nonce.getBytes();
+        for (int i = 0; i < BLOCK_LENGTH; i++) {
+            counter[i] ^= initVector.getByte(i);
+        }
+        return counter;
+    }
+
+    /**
+     * Counter block of a block index, the initial counter block plus the index modulo 2^128 like the CTR Cipher increments it.
+     * @param initVector 16 byte initial counter block.
+     * @param blockIndex Index of the AES block in the value.
+     * @return Counter block byte[].
+     * @author Wong Kok-Lim
+     */
+    public static byte[] counterBlock(Slice initVector, long blockIndex) {
+        byte[] counter = initVector.getBytes();
+        long carry = blockIndex;
+        for (int i = BLOCK_LENGTH - 1; i >= 0 && carry != 0; i--) {
+            long sum = (counter[i] & 0xff) + (carry & 0xff);
+            counter[i] = (byte) sum;
+            carry = (carry >>> 8) + (sum >>> 8);
+        }
+        return counter;
+    }
+
+    /**
+     * Runs a CTR value through the segments, forking them on the pool when there is more than one.
+     * @param opmode Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE.
+     * @param input Slice to be processed.
+     * @param output Slice as long as the input.
+     * @param key SecretKeySpec.
+     * @param counter 16 byte initial counter block of the value.
+     * @author Wong Kok-Lim
+     */
+    private void crypt(int opmode, Slice input, Slice output, SecretKeySpec key, byte[] counter) {
+        int segments = input.length() <= thresholdBytes ? 1 : (int) ((input.length() + (long) segmentBytes - 1) / segmentBytes);
+        SegmentTask task = new SegmentTask(opmode, input, output, key, Slices.wrappedBuffer(counter), 0, segments, segments == 1 ? input.length() : segmentBytes);
+        if (segments == 1) {
+            task.compute();
+        }
+        else {
+            pool.invoke(task);
+        }
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("trinoudf-large-aes-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    private static int defaultParallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    /**
+     * Processes a range of segments, splitting it in halves until single segments are left.
+     */
+    private static final class SegmentTask extends RecursiveAction {
+        private final int opmode;
+        private final Slice input;
+        private final Slice output;
+        private final SecretKeySpec key;
+        private final Slice initVector;
+        private final int fromSegment;
+        private final int toSegment;
+        private final int segmentBytes;
+
+        private SegmentTask(int opmode, Slice input, Slice output, SecretKeySpec key, Slice initVector, int fromSegment, int toSegment, int segmentBytes) {
+            this.opmode = opmode;
+            this.input = input;
+            this.output = output;
+            this.key = key;
+            this.initVector = initVector;
+            this.fromSegment = fromSegment;
+            this.toSegment = toSegment;
+            this.segmentBytes = segmentBytes;
+        }
+
+        @Override
+        protected void compute() {
+            if (toSegment - fromSegment > 1) {
+                int middle = (fromSegment + toSegment) >>> 1;
+                invokeAll(new SegmentTask(opmode, input, output, key, initVector, fromSegment, middle, segmentBytes),
+                        new SegmentTask(opmode, input, output, key, initVector, middle, toSegment, segmentBytes));
+                return;
+            }
+
+            int offset = fromSegment * segmentBytes;
+            int length = Math.min(segmentBytes, input.length() - offset);
+            try {
+                Cipher cipher = CipherCache.getCipher(AES_TRANSFORM, opmode, key, counterBlock(initVector, offset / BLOCK_LENGTH));
+                cipher.doFinal(input.toByteBuffer(offset, length), output.toByteBuffer(offset, length));
+            }
+            catch (GeneralSecurityException e) {
+                CipherCache.reset(AES_TRANSFORM, opmode);
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.trinoudf.crypto;
+
+/**
+ * ==Description==
+ * <p>
+ *     Thread confined scratch byte[] for intermediate cipher output.
+ *     Buffers above maxRetainedSize are handed out but not kept, so one huge row does not pin memory on the thread.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>get(int minSize)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+final class ScratchBuffer {
+    private static final int initialSize = 1024;
+    private static final int maxRetainedSize = 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[initialSize]);
+
+    /**
+     * Constructor for ScratchBuffer class.
+     * @author Wong Kok-Lim
+     */
+    private ScratchBuffer() {
+    }
+
+    /**
+     * Returns the calling thread's scratch buffer, at least minSize bytes long.
+     * The content is undefined and is overwritten by the next call on the same thread.
+     * @param minSize Minimum length of the buffer.
+     * @return Scratch byte[].
+     * @author Wong Kok-Lim
+     */
+    static byte[] get(int minSize) {
+        byte[] buffer = buffers.get();
+        if (buffer.length >= minSize) {
+            return buffer;
+        }
+
+        buffer = new byte[Math.max(minSize, buffer.length * 2)];
+        if (buffer.length <= maxRetainedSize) {
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+}
@@ -9,6 +9,8 @@ package com.trinoudf.global;
  * <p>This class contains the following objects when instantiated:</p>
  * <ul>
  *     <li>CBC</li>
+ *     <li>CTR</li>
+ *     <li>GCM</li>
  *     <li>HMAC</li>
  * </ul>
  *
@@ -20,5 +22,7 @@ package com.trinoudf.global;
  */
 public enum Methods {
     CBC,
+    CTR,
+    GCM,
     HMAC
 }
@@ -0,0 +1,141 @@
+package com.trinoudf.global;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * ==Description==
+ * <p>
+ *     Plugin configuration read once at plugin startup from a properties file.
+ *     Trino has no configuration for function plugins, so the file is located through the trinoudf.config system property,
+ *     e.g. -Dtrinoudf.config=/etc/trino/trinoudf.properties in jvm.config, and defaults to etc/trinoudf.properties.
+ *     A missing file gives an empty configuration.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>properties</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>load()</li>
+ *     <li>load(Path path)</li>
+ *     <li>empty()</li>
+ *     <li>of(Map&lt;String, String&gt; properties)</li>
+ *     <li>get(String name)</li>
+ *     <li>get(String name, String defaultValue)</li>
+ *     <li>getWithPrefix(String prefix)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class PluginConfig {
+    public static final String CONFIG_PROPERTY = "trinoudf.config";
+    public static final String DEFAULT_CONFIG_PATH = "etc/trinoudf.properties";
+
+    private final ImmutableMap<String, String> properties;
+
+    private PluginConfig(Map<String, String> properties) {
+        this.properties = ImmutableMap.copyOf(properties);
+    }
+
+    /**
+     * Loads the configuration file named by the trinoudf.config system property, or etc/trinoudf.properties.
+     * @return PluginConfig, empty if the file does not exist.
+     * @throws IOException If the file exists but cannot be read.
+     * @author Wong Kok-Lim
+     */
+    public static PluginConfig load() throws IOException {
+        return load(Paths.get(System.getProperty(CONFIG_PROPERTY, DEFAULT_CONFIG_PATH)));
+    }
+
+    /**
+     * Loads a configuration file.
+     * @param path Path of the properties file.
+     * @return PluginConfig, empty if the file does not exist.
+     * @throws IOException If the file exists but cannot be read.
+     * @author Wong Kok-Lim
+     */
+    public static PluginConfig load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return empty();
+        }
+
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+        }
+
+        ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+        for (String name : properties.stringPropertyNames()) {
+            builder.put(name, properties.getProperty(name).trim());
+        }
+        return new PluginConfig(builder.build());
+    }
+
+    /**
+     * Configuration without any properties.
+     * @return Empty PluginConfig.
+     * @author Wong Kok-Lim
+     */
+    public static PluginConfig empty() {
+        return new PluginConfig(ImmutableMap.of());
+    }
+
+    /**
+     * Configuration of the given properties.
+     * @param properties Property names and values.
+     * @return PluginConfig.
+     * @author Wong Kok-Lim
+     */
+    public static PluginConfig of(Map<String, String> properties) {
+        return new PluginConfig(properties);
+    }
+
+    /**
+     * Value of a property.
+     * @param name Property name.
+     * @return Property value, null if not set.
+     * @author Wong Kok-Lim
+     */
+    public String get(String name) {
+        return properties.get(name);
+    }
+
+    /**
+     * Value of a property with a default.
+     * @param name Property name.
+     * @param defaultValue Value to return if the property is not set.
+     * @return Property value.
+     * @author Wong Kok-Lim
+     */
+    public String get(String name, String defaultValue) {
+        String value = properties.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * All properties whose name starts with a prefix.
+     * @param prefix Name prefix, e.g. keystore.iv.
+     * @return Map of the property names without the prefix to their values.
+     * @author Wong Kok-Lim
+     */
+    public Map<String, String> getWithPrefix(String prefix) {
+        ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            if (property.getKey().startsWith(prefix)) {
+                builder.put(property.getKey().substring(prefix.length()), property.getValue());
+            }
+        }
+        return builder.build();
+    }
+}
@@ -1,5 +1,11 @@
 package com.trinoudf.key;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.trinoudf.crypto.DecryptionCache;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 
 import javax.crypto.SecretKey;
@@ -16,6 +22,7 @@ import java.security.spec.KeySpec;
  * ==Description==<br/>
  * <p>
  *     Generates javax.crypto.SecretKeySpec (i.e. AES key) objects. <br/>
+ *     Derived keys are held in bounded caches so that the same key String is only derived once per worker.
  * </p><br/>
  * ===Objects===<br/>
  * <p>This class does not contain any objects when instantiated.</p>
@@ -25,7 +32,14 @@ import java.security.spec.KeySpec;
  * <ul>
  *     <li>KeyGenerator()</li>
  *     <li>aesHmacKeySpecGenerator(String key)</li>
- *     <li>aesKeySpecGenerator(String key)</li>
+ *     <li>aesShaKeySpecGenerator(String key)</li>
+ *     <li>aesShaKeySpecGenerator(Slice key)</li>
+ *     <li>blindIndexKeySpecGenerator(Slice key)</li>
+ *     <li>chunkKeySpecGenerator(Slice key)</li>
+ *     <li>keyDigest(SecretKeySpec key)</li>
+ *     <li>getShaKeyCacheStats()</li>
+ *     <li>getHmacKeyCacheStats()</li>
+ *     <li>invalidateAll()</li>
  * </ul>
  *
  * @author Wong Kok-Lim
@@ -35,6 +49,38 @@ public class KeyGenerator {
     private static final String msgDigestAlgorithm = "SHA-256";
     private static final int iterationCount = 65536;
     private static final int keyStrength = 256;
+    private static final int maxCachedKeys = 1024;
+    private static final String domainKeyAlgorithm = "HmacSHA256";
+    // domain separation, so these keys never equal the AES key derived from the same key String
+    private static final byte[] blindIndexDomain = "trinoudf-blind-index-v1".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] chunkDomain = "trinoudf-chunked-v1".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] keyDigestDomain = "trinoudf-key-digest-v1".getBytes(StandardCharsets.UTF_8);
+
+    private static final Cache<String, SecretKeySpec> shaKeyCache = CacheBuilder.newBuilder()
+            .maximumSize(maxCachedKeys)
+            .recordStats()
+            .build();
+    private static final Cache<Slice, SecretKeySpec> shaSliceKeyCache = CacheBuilder.newBuilder()
+            .maximumSize(maxCachedKeys)
+            .recordStats()
+            .build();
+    private static final Cache<String, SecretKeySpec> hmacKeyCache = CacheBuilder.newBuilder()
+            .maximumSize(maxCachedKeys)
+            .recordStats()
+            .build();
+    private static final Cache<Slice, SecretKeySpec> blindIndexKeyCache = CacheBuilder.newBuilder()
+            .maximumSize(maxCachedKeys)
+            .recordStats()
+            .build();
+    private static final Cache<Slice, SecretKeySpec> chunkKeyCache = CacheBuilder.newBuilder()
+            .maximumSize(maxCachedKeys)
+            .recordStats()
+            .build();
+    // keyed by identity, the cached SecretKeySpecs are the same objects on every lookup
+    private static final Cache<SecretKeySpec, Slice> keyDigestCache = CacheBuilder.newBuilder()
+            .maximumSize(maxCachedKeys)
+            .weakKeys()
+            .build();
 
     /**
      * Constructor for com.pretoudf.key.KeyGenerator class
@@ -51,7 +97,148 @@ public class KeyGenerator {
      * @author Wong Kok-Lim
      */
     public static SecretKeySpec aesHmacKeySpecGenerator(String key) {
+        SecretKeySpec secret = hmacKeyCache.getIfPresent(key);
+
+        if (secret == null) {
+            secret = deriveHmacKeySpec(key);
+            // failed derivations are not cached so that they are retried and reported again
+            if (secret != null) {
+                hmacKeyCache.put(key, secret);
+            }
+        }
+
+        return secret;
+    }
+
+    /**
+     * Generates SecretKeySpec from a key String using SHA.
+     * @param key Key String to be used in SecretKeySpec generation.
+     * @return SecretKeySpec base on provided key String.
+     * @author Wong Kok-Lim
+     */
+    public static SecretKeySpec aesShaKeySpecGenerator(String key) {
+        SecretKeySpec secret = shaKeyCache.getIfPresent(key);
+
+        if (secret == null) {
+            secret = deriveShaKeySpec(key.getBytes(StandardCharsets.UTF_8));
+            shaKeyCache.put(key, secret);
+        }
+
+        return secret;
+    }
+
+    /**
+     * Generates SecretKeySpec from a UTF-8 key Slice using SHA, without converting the key to a String.
+     * @param key UTF-8 key Slice to be used in SecretKeySpec generation.
+     * @return SecretKeySpec base on provided key Slice.
+     * @author Wong Kok-Lim
+     */
+    public static SecretKeySpec aesShaKeySpecGenerator(Slice key) {
+        SecretKeySpec secret = shaSliceKeyCache.getIfPresent(key);
+
+        if (secret == null) {
+            secret = deriveShaKeySpec(key.getBytes());
+            // copy the key so that the cache does not retain the Block the key Slice points into
+            shaSliceKeyCache.put(Slices.copyOf(key), secret);
+        }
+
+        return secret;
+    }
+
+    /**
+     * Generates the HmacSHA256 SecretKeySpec used by blind_index from a UTF-8 key Slice.
+     * The key is SHA-256 of a fixed domain label followed by the key, so it differs from the AES key of the same key String.
+     * @param key UTF-8 key Slice to be used in SecretKeySpec generation.
+     * @return HmacSHA256 SecretKeySpec base on provided key Slice.
+     * @author Wong Kok-Lim
+     */
+    public static SecretKeySpec blindIndexKeySpecGenerator(Slice key) {
+        SecretKeySpec secret = blindIndexKeyCache.getIfPresent(key);
+
+        if (secret == null) {
+            secret = deriveDomainKeySpec(blindIndexDomain, key.getBytes());
+            blindIndexKeyCache.put(Slices.copyOf(key), secret);
+        }
+
+        return secret;
+    }
+
+    /**
+     * Generates the HmacSHA256 SecretKeySpec from which the chunked ciphertext format derives a data key per value.
+     * @param key UTF-8 key Slice to be used in SecretKeySpec generation.
+     * @return HmacSHA256 SecretKeySpec base on provided key Slice.
+     * @author Wong Kok-Lim
+     */
+    public static SecretKeySpec chunkKeySpecGenerator(Slice key) {
+        SecretKeySpec secret = chunkKeyCache.getIfPresent(key);
+
+        if (secret == null) {
+            secret = deriveDomainKeySpec(chunkDomain, key.getBytes());
+            chunkKeyCache.put(Slices.copyOf(key), secret);
+        }
+
+        return secret;
+    }
+
+    /**
+     * SHA-256 digest identifying a SecretKeySpec, e.g. in the DecryptionCache, without storing the key itself.
+     * The digest is computed once per SecretKeySpec object.
+     * @param key SecretKeySpec to identify.
+     * @return 32 byte digest Slice.
+     * @author Wong Kok-Lim
+     */
+    public static Slice keyDigest(SecretKeySpec key) {
+        Slice digest = keyDigestCache.getIfPresent(key);
+
+        if (digest == null) {
+            digest = Slices.wrappedBuffer(domainDigest(keyDigestDomain, key.getEncoded()));
+            keyDigestCache.put(key, digest);
+        }
+
+        return digest;
+    }
+
+    /**
+     * Hit and miss counts of the SHA derived key cache.
+     * @return CacheStats of the SHA derived key cache.
+     * @author Wong Kok-Lim
+     */
+    public static CacheStats getShaKeyCacheStats() {
+        return shaKeyCache.stats().plus(shaSliceKeyCache.stats());
+    }
+
+    /**
+     * Hit and miss counts of the PBKDF2 (HMAC) derived key cache.
+     * @return CacheStats of the HMAC derived key cache.
+     * @author Wong Kok-Lim
+     */
+    public static CacheStats getHmacKeyCacheStats() {
+        return hmacKeyCache.stats();
+    }
+
+    /**
+     * Discards every cached derived key and every plaintext of the DecryptionCache, e.g. after a key rotation.
+     * @author Wong Kok-Lim
+     */
+    public static void invalidateAll() {
+        DecryptionCache.get().invalidateAll();
+        shaKeyCache.invalidateAll();
+        shaSliceKeyCache.invalidateAll();
+        hmacKeyCache.invalidateAll();
+        blindIndexKeyCache.invalidateAll();
+        chunkKeyCache.invalidateAll();
+        keyDigestCache.invalidateAll();
+    }
+
+    /**
+     * Derives a SecretKeySpec from a key String with PBKDF2WithHmacSHA256.
+     * @param key Key String to be used in SecretKeySpec generation.
+     * @return Derived SecretKeySpec, or null if the derivation failed.
+     * @author Wong Kok-Lim
+     */
+    private static SecretKeySpec deriveHmacKeySpec(String key) {
         SecretKeySpec secret = null;
+        PluginMetrics.crypto().pbkdf2KeyDerived();
 
         byte[] salt = Slices.wrappedBuffer(key.getBytes()).slice(0, 8).getBytes();
 
@@ -69,17 +256,18 @@ public class KeyGenerator {
     }
 
     /**
-     * Generates SecretKeySpec from a key String using SHA.
-     * @param key Key String to be used in SecretKeySpec generation.
-     * @return SecretKeySpec base on provided key String.
+     * Derives a SecretKeySpec from UTF-8 key bytes with SHA-256.
+     * @param key UTF-8 key bytes to be used in SecretKeySpec generation.
+     * @return Derived SecretKeySpec.
      * @author Wong Kok-Lim
      */
-    public static SecretKeySpec aesShaKeySpecGenerator(String key) {
+    private static SecretKeySpec deriveShaKeySpec(byte[] key) {
         byte[] secretKey = null;
+        PluginMetrics.crypto().shaKeyDerived();
 
         try {
             MessageDigest md = MessageDigest.getInstance(msgDigestAlgorithm);
-            secretKey = md.digest(key.getBytes(StandardCharsets.UTF_8));
+            secretKey = md.digest(key);
         }
         catch (NoSuchAlgorithmException e) {
             e.printStackTrace();
@@ -88,4 +276,39 @@ public class KeyGenerator {
         assert secretKey != null;
         return new SecretKeySpec(secretKey, keyAlgorithm);
     }
+
+    /**
+     * Derives a HmacSHA256 SecretKeySpec from UTF-8 key bytes with domain separated SHA-256.
+     * @param domain Label of the key's purpose, hashed in front of the key.
+     * @param key UTF-8 key bytes to be used in SecretKeySpec generation.
+     * @return Derived SecretKeySpec.
+     * @author Wong Kok-Lim
+     */
+    private static SecretKeySpec deriveDomainKeySpec(byte[] domain, byte[] key) {
+        PluginMetrics.crypto().shaKeyDerived();
+        return new SecretKeySpec(domainDigest(domain, key), domainKeyAlgorithm);
+    }
+
+    /**
+     * SHA-256 of a domain label followed by key bytes.
+     * @param domain Label of the digest's purpose, hashed in front of the key.
+     * @param key Key bytes to digest.
+     * @return 32 byte digest.
+     * @author Wong Kok-Lim
+     */
+    private static byte[] domainDigest(byte[] domain, byte[] key) {
+        byte[] digest = null;
+
+        try {
+            MessageDigest md = MessageDigest.getInstance(msgDigestAlgorithm);
+            md.update(domain);
+            digest = md.digest(key);
+        }
+        catch (NoSuchAlgorithmException e) {
+            e.printStackTrace();
+        }
+
+        assert digest != null;
+        return digest;
+    }
 }
@@ -0,0 +1,194 @@
+package com.trinoudf.key;
+
+import com.google.common.collect.ImmutableMap;
+import com.trinoudf.crypto.DecryptionCache;
+import com.trinoudf.global.PluginConfig;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ==Description==
+ * <p>
+ *     Immutable table of AES keys and Initialize Vectors by alias, loaded once from a PKCS12 or JCEKS keystore at plugin startup.
+ *     The keystore keys are used as they are, so alias based functions neither derive keys nor handle key strings per row.
+ *     Keystore aliases are lower case, lookups fall back to the lower cased alias.
+ * </p>
+ * <p>Configuration properties:</p>
+ * <ul>
+ *     <li>keystore.path - keystore file, no aliases are loaded if not set.</li>
+ *     <li>keystore.type - PKCS12 (default) or JCEKS.</li>
+ *     <li>keystore.password - keystore password.</li>
+ *     <li>keystore.key-password - password of the key entries, defaults to keystore.password.</li>
+ *     <li>keystore.iv.&lt;alias&gt; - 16 character Initialize Vector of every AES key alias.</li>
+ * </ul>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>entries</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>get()</li>
+ *     <li>install(KeyRegistry registry)</li>
+ *     <li>load(PluginConfig config)</li>
+ *     <li>fromKeyStore(KeyStore keyStore, char[] keyPassword, Map&lt;String, String&gt; ivs)</li>
+ *     <li>lookup(Slice alias)</li>
+ *     <li>size()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class KeyRegistry {
+    private static final String ivPrefix = "keystore.iv.";
+    private static final int ivLength = 16;
+
+    private static volatile KeyRegistry registry = new KeyRegistry(ImmutableMap.of());
+
+    private final ImmutableMap<Slice, Entry> entries;
+
+    private KeyRegistry(ImmutableMap<Slice, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Registry used by the alias based functions.
+     * @return Installed KeyRegistry, empty until one is installed.
+     * @author Wong Kok-Lim
+     */
+    public static KeyRegistry get() {
+        return registry;
+    }
+
+    /**
+     * Replaces the registry used by the alias based functions and purges the plaintexts cached under the old keys.
+     * @param registry KeyRegistry to install.
+     * @author Wong Kok-Lim
+     */
+    public static void install(KeyRegistry registry) {
+        KeyRegistry.registry = registry;
+        DecryptionCache.get().invalidateAll();
+    }
+
+    /**
+     * Loads the keystore named by the plugin configuration.
+     * @param config PluginConfig with the keystore properties.
+     * @return KeyRegistry, empty if keystore.path is not set.
+     * @throws IOException If the keystore cannot be read or the password is wrong.
+     * @throws GeneralSecurityException If a key cannot be recovered.
+     * @author Wong Kok-Lim
+     */
+    public static KeyRegistry load(PluginConfig config) throws IOException, GeneralSecurityException {
+        String path = config.get("keystore.path");
+        if (path == null) {
+            return new KeyRegistry(ImmutableMap.of());
+        }
+
+        char[] password = config.get("keystore.password", "").toCharArray();
+        char[] keyPassword = config.get("keystore.key-password", new String(password)).toCharArray();
+
+        KeyStore keyStore = KeyStore.getInstance(config.get("keystore.type", "PKCS12"));
+        try (InputStream input = Files.newInputStream(Paths.get(path))) {
+            keyStore.load(input, password);
+        }
+        return fromKeyStore(keyStore, keyPassword, config.getWithPrefix(ivPrefix));
+    }
+
+    /**
+     * Builds the registry from the AES secret key entries of a loaded keystore. Other entries are ignored.
+     * @param keyStore Loaded KeyStore.
+     * @param keyPassword Password of the key entries.
+     * @param ivs Initialize Vector of every AES key alias.
+     * @return KeyRegistry.
+     * @throws GeneralSecurityException If a key cannot be recovered.
+     * @throws IllegalArgumentException If an AES key has no valid Initialize Vector or an invalid length.
+     * @author Wong Kok-Lim
+     */
+    public static KeyRegistry fromKeyStore(KeyStore keyStore, char[] keyPassword, Map<String, String> ivs) throws GeneralSecurityException {
+        ImmutableMap.Builder<Slice, Entry> entries = ImmutableMap.builder();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (!keyStore.isKeyEntry(alias)) {
+                continue;
+            }
+            Key key = keyStore.getKey(alias, keyPassword);
+            if (!(key instanceof SecretKey) || !"AES".equalsIgnoreCase(key.getAlgorithm())) {
+                continue;
+            }
+
+            byte[] encoded = key.getEncoded();
+            if (encoded.length != 16 && encoded.length != 24 && encoded.length != 32) {
+                throw new IllegalArgumentException("AES key " + alias + " must be 16, 24 or 32 bytes: " + encoded.length);
+            }
+            String iv = ivs.get(alias);
+            if (iv == null) {
+                iv = ivs.get(alias.toLowerCase(Locale.ENGLISH));
+            }
+            if (iv == null || iv.getBytes(StandardCharsets.UTF_8).length != ivLength) {
+                throw new IllegalArgumentException("Key alias " + alias + " needs a " + ivLength + " byte " + ivPrefix + alias + " property");
+            }
+
+            Entry entry = new Entry(new SecretKeySpec(encoded, "AES"), Slices.utf8Slice(iv));
+            entries.put(Slices.utf8Slice(alias.toLowerCase(Locale.ENGLISH)), entry);
+        }
+        return new KeyRegistry(entries.build());
+    }
+
+    /**
+     * Looks up the key and Initialize Vector of an alias.
+     * @param alias Key alias.
+     * @return Entry of the alias, null if the alias is unknown.
+     * @author Wong Kok-Lim
+     */
+    public Entry lookup(Slice alias) {
+        Entry entry = entries.get(alias);
+        if (entry == null) {
+            entry = entries.get(Slices.utf8Slice(alias.toStringUtf8().toLowerCase(Locale.ENGLISH)));
+        }
+        return entry;
+    }
+
+    /**
+     * Number of loaded aliases.
+     * @return Number of aliases.
+     * @author Wong Kok-Lim
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * AES key and Initialize Vector of an alias.
+     */
+    public static final class Entry {
+        private final SecretKeySpec key;
+        private final Slice iv;
+
+        private Entry(SecretKeySpec key, Slice iv) {
+            this.key = key;
+            this.iv = iv;
+        }
+
+        public SecretKeySpec getKey() {
+            return key;
+        }
+
+        public Slice getIv() {
+            return iv;
+        }
+    }
+}
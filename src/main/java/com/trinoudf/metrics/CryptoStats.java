@@ -0,0 +1,79 @@
+package com.trinoudf.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ==Description==
+ * <p>
+ *     Key derivation and Cipher counters shared by every SQL function.
+ *     Key derivations count cache misses of KeyGenerator, Cipher inits count the expensive key schedule set ups
+ *     that the thread Cipher cache could not skip.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>shaKeyDerived()</li>
+ *     <li>pbkdf2KeyDerived()</li>
+ *     <li>cipherCreated()</li>
+ *     <li>cipherInitialized()</li>
+ *     <li>cipherInitSkipped()</li>
+ *     <li>CryptoStatsMBean getters</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class CryptoStats implements CryptoStatsMBean {
+    private final LongAdder shaKeyDerivations = new LongAdder();
+    private final LongAdder pbkdf2KeyDerivations = new LongAdder();
+    private final LongAdder cipherInstances = new LongAdder();
+    private final LongAdder cipherInits = new LongAdder();
+    private final LongAdder cipherInitsSkipped = new LongAdder();
+
+    public void shaKeyDerived() {
+        shaKeyDerivations.increment();
+    }
+
+    public void pbkdf2KeyDerived() {
+        pbkdf2KeyDerivations.increment();
+    }
+
+    public void cipherCreated() {
+        cipherInstances.increment();
+    }
+
+    public void cipherInitialized() {
+        cipherInits.increment();
+    }
+
+    public void cipherInitSkipped() {
+        cipherInitsSkipped.increment();
+    }
+
+    @Override
+    public long getShaKeyDerivations() {
+        return shaKeyDerivations.sum();
+    }
+
+    @Override
+    public long getPbkdf2KeyDerivations() {
+        return pbkdf2KeyDerivations.sum();
+    }
+
+    @Override
+    public long getCipherInstances() {
+        return cipherInstances.sum();
+    }
+
+    @Override
+    public long getCipherInits() {
+        return cipherInits.sum();
+    }
+
+    @Override
+    public long getCipherInitsSkipped() {
+        return cipherInitsSkipped.sum();
+    }
+}
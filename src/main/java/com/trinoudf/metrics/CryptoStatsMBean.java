@@ -0,0 +1,33 @@
+package com.trinoudf.metrics;
+
+/**
+ * ==Description==
+ * <p>
+ *     JMX view of the key derivation and Cipher statistics of the plugin, see CryptoStats.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>getShaKeyDerivations()</li>
+ *     <li>getPbkdf2KeyDerivations()</li>
+ *     <li>getCipherInstances()</li>
+ *     <li>getCipherInits()</li>
+ *     <li>getCipherInitsSkipped()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public interface CryptoStatsMBean {
+    long getShaKeyDerivations();
+
+    long getPbkdf2KeyDerivations();
+
+    long getCipherInstances();
+
+    long getCipherInits();
+
+    long getCipherInitsSkipped();
+}
@@ -0,0 +1,119 @@
+package com.trinoudf.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ==Description==
+ * <p>
+ *     Counters of the decryption result cache.
+ *     Admissions and rejections count the misses the frequency filter let into the cache or kept out of it,
+ *     entries and retained bytes are the current content of the cache.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>hit()</li>
+ *     <li>miss()</li>
+ *     <li>admitted()</li>
+ *     <li>rejected()</li>
+ *     <li>added(long retainedBytes)</li>
+ *     <li>removed(long retainedBytes, boolean evicted)</li>
+ *     <li>invalidated()</li>
+ *     <li>DecryptionCacheStatsMBean getters</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class DecryptionCacheStats implements DecryptionCacheStatsMBean {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder admissions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder retainedBytes = new LongAdder();
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void admitted() {
+        admissions.increment();
+    }
+
+    public void rejected() {
+        rejections.increment();
+    }
+
+    public void added(long retainedBytes) {
+        entries.increment();
+        this.retainedBytes.add(retainedBytes);
+    }
+
+    public void removed(long retainedBytes, boolean evicted) {
+        entries.decrement();
+        this.retainedBytes.add(-retainedBytes);
+        if (evicted) {
+            evictions.increment();
+        }
+    }
+
+    public void invalidated() {
+        invalidations.increment();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public long getAdmissions() {
+        return admissions.sum();
+    }
+
+    @Override
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public long getEntries() {
+        return entries.sum();
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        return retainedBytes.sum();
+    }
+}
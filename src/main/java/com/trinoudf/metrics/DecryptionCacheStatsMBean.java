@@ -0,0 +1,45 @@
+package com.trinoudf.metrics;
+
+/**
+ * ==Description==
+ * <p>
+ *     JMX view of the decryption result cache statistics, see DecryptionCacheStats.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>getHits()</li>
+ *     <li>getMisses()</li>
+ *     <li>getHitRate()</li>
+ *     <li>getAdmissions()</li>
+ *     <li>getRejections()</li>
+ *     <li>getEvictions()</li>
+ *     <li>getInvalidations()</li>
+ *     <li>getEntries()</li>
+ *     <li>getRetainedBytes()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public interface DecryptionCacheStatsMBean {
+    long getHits();
+
+    long getMisses();
+
+    double getHitRate();
+
+    long getAdmissions();
+
+    long getRejections();
+
+    long getEvictions();
+
+    long getInvalidations();
+
+    long getEntries();
+
+    long getRetainedBytes();
+}
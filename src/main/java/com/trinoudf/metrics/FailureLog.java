@@ -0,0 +1,71 @@
+package com.trinoudf.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * ==Description==
+ * <p>
+ *     Rate limited log of expected per row failures, e.g. rows try_decrypt_aes turns into NULL.
+ *     Failures are only counted, and at most one summary line per interval is written to the worker log,
+ *     so a scan over many corrupt rows neither floods the log nor contends on a lock.
+ * </p>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>name</li>
+ *     <li>intervalNanos</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>FailureLog(String name, long interval, TimeUnit unit)</li>
+ *     <li>failed()</li>
+ *     <li>getFailures()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class FailureLog {
+    private static final Logger log = Logger.getLogger(FailureLog.class.getName());
+
+    private final String name;
+    private final long intervalNanos;
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder unreported = new LongAdder();
+    private final AtomicLong nextReportNanos;
+
+    public FailureLog(String name, long interval, TimeUnit unit) {
+        this.name = name;
+        this.intervalNanos = unit.toNanos(interval);
+        this.nextReportNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Counts a failure and writes a summary line if the interval since the last one has passed.
+     * @author Wong Kok-Lim
+     */
+    public void failed() {
+        failures.increment();
+        unreported.increment();
+
+        long now = System.nanoTime();
+        long next = nextReportNanos.get();
+        if (now - next >= 0 && nextReportNanos.compareAndSet(next, now + intervalNanos)) {
+            log.warning(name + ": " + unreported.sumThenReset() + " values could not be decrypted and were returned as NULL, "
+                    + failures.sum() + " in total");
+        }
+    }
+
+    /**
+     * Total number of failures.
+     * @return Number of failures since creation.
+     * @author Wong Kok-Lim
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+}
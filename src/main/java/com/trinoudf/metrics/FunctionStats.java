@@ -0,0 +1,214 @@
+package com.trinoudf.metrics;
+
+import io.airlift.slice.Slice;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ==Description==
+ * <p>
+ *     Call, failure, byte and latency statistics of a single SQL function.
+ *     All counters are LongAdders, so concurrent rows on different worker threads update separate cells
+ *     instead of contending on one cache line. Latencies are counted in power of two nanosecond buckets,
+ *     bucket i holding calls that took between 2^i and 2^(i+1) - 1 nanoseconds.
+ * </p>
+ * <p>Typical use from a SQL function:</p>
+ * <pre>
+ *     long start = stats.start();
+ *     try {
+ *         return stats.record(start, input.length(), output);
+ *     }
+ *     catch (RuntimeException e) {
+ *         stats.failed(start);
+ *         throw e;
+ *     }
+ * </pre>
+ * ===Objects===
+ * <p>This class contains the following objects when instantiated:</p>
+ * <ul>
+ *     <li>name</li>
+ * </ul>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>FunctionStats(String name)</li>
+ *     <li>getName()</li>
+ *     <li>start()</li>
+ *     <li>record(long start, long bytesIn, Slice output)</li>
+ *     <li>record(long start, Slice input, Slice output)</li>
+ *     <li>record(long start, long bytesIn, long bytesOut)</li>
+ *     <li>failed(long start)</li>
+ *     <li>FunctionStatsMBean getters</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class FunctionStats implements FunctionStatsMBean {
+    private static final int BUCKETS = 64;
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder totalTimeNanos = new LongAdder();
+    private final LongAdder[] latencyBuckets = new LongAdder[BUCKETS];
+
+    public FunctionStats(String name) {
+        this.name = name;
+        for (int i = 0; i < BUCKETS; i++) {
+            latencyBuckets[i] = new LongAdder();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Start time of a call.
+     * @return Current System.nanoTime().
+     * @author Wong Kok-Lim
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a successful call.
+     * @param start Start time returned by start().
+     * @param bytesIn Number of input bytes.
+     * @param output Result of the call, may be null.
+     * @return output, so the call can be wrapped in a return statement.
+     * @author Wong Kok-Lim
+     */
+    public Slice record(long start, long bytesIn, Slice output) {
+        record(start, bytesIn, output == null ? 0 : output.length());
+        return output;
+    }
+
+    /**
+     * Records a successful call.
+     * @param start Start time returned by start().
+     * @param input Input of the call, may be null.
+     * @param output Result of the call, may be null.
+     * @return output, so the call can be wrapped in a return statement.
+     * @author Wong Kok-Lim
+     */
+    public Slice record(long start, Slice input, Slice output) {
+        return record(start, input == null ? 0 : input.length(), output);
+    }
+
+    /**
+     * Records a successful call.
+     * @param start Start time returned by start().
+     * @param bytesIn Number of input bytes.
+     * @param bytesOut Number of output bytes.
+     * @author Wong Kok-Lim
+     */
+    public void record(long start, long bytesIn, long bytesOut) {
+        this.bytesIn.add(bytesIn);
+        this.bytesOut.add(bytesOut);
+        recordLatency(start);
+    }
+
+    /**
+     * Records a failed call.
+     * @param start Start time returned by start().
+     * @author Wong Kok-Lim
+     */
+    public void failed(long start) {
+        failures.increment();
+        recordLatency(start);
+    }
+
+    private void recordLatency(long start) {
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        calls.increment();
+        totalTimeNanos.add(elapsed);
+        latencyBuckets[63 - Long.numberOfLeadingZeros(elapsed)].increment();
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getTotalTimeNanos() {
+        return totalTimeNanos.sum();
+    }
+
+    @Override
+    public double getAverageLatencyNanos() {
+        long count = calls.sum();
+        return count == 0 ? 0.0 : (double) totalTimeNanos.sum() / count;
+    }
+
+    @Override
+    public long getLatencyP50Nanos() {
+        return latencyPercentile(0.50);
+    }
+
+    @Override
+    public long getLatencyP90Nanos() {
+        return latencyPercentile(0.90);
+    }
+
+    @Override
+    public long getLatencyP99Nanos() {
+        return latencyPercentile(0.99);
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = latencyBuckets[i].sum();
+        }
+        return histogram;
+    }
+
+    /**
+     * Upper bound of the latency bucket containing the given percentile.
+     * @param percentile Percentile between 0 and 1.
+     * @return Upper bound in nanoseconds, 0 if there were no calls.
+     * @author Wong Kok-Lim
+     */
+    private long latencyPercentile(double percentile) {
+        long[] histogram = getLatencyHistogram();
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
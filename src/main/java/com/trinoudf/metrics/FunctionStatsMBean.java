@@ -0,0 +1,48 @@
+package com.trinoudf.metrics;
+
+/**
+ * ==Description==
+ * <p>
+ *     JMX view of the statistics of a single SQL function, see FunctionStats.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>getCalls()</li>
+ *     <li>getFailures()</li>
+ *     <li>getBytesIn()</li>
+ *     <li>getBytesOut()</li>
+ *     <li>getTotalTimeNanos()</li>
+ *     <li>getAverageLatencyNanos()</li>
+ *     <li>getLatencyP50Nanos()</li>
+ *     <li>getLatencyP90Nanos()</li>
+ *     <li>getLatencyP99Nanos()</li>
+ *     <li>getLatencyHistogram()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public interface FunctionStatsMBean {
+    long getCalls();
+
+    long getFailures();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    long getTotalTimeNanos();
+
+    double getAverageLatencyNanos();
+
+    long getLatencyP50Nanos();
+
+    long getLatencyP90Nanos();
+
+    long getLatencyP99Nanos();
+
+    long[] getLatencyHistogram();
+}
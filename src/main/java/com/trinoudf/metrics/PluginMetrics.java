@@ -0,0 +1,157 @@
+package com.trinoudf.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ==Description==
+ * <p>
+ *     Registry of the plugin's FunctionStats, CryptoStats and DecryptionCacheStats and their JMX registration.
+ *     MBeans are registered as com.trinoudf:type=FunctionStats,name=&lt;function&gt;, com.trinoudf:type=CryptoStats
+ *     and com.trinoudf:type=DecryptionCacheStats, and MBeans of optional jars, e.g. the KMS decrypter, as com.trinoudf:type=&lt;type&gt;,
+ *     which Trino's JMX connector exposes as tables, e.g. SELECT * FROM jmx.current."com.trinoudf:type=functionstats,name=encrypt_aes".
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>function(String name)</li>
+ *     <li>crypto()</li>
+ *     <li>decryptionCache()</li>
+ *     <li>component(String type, Object mbean)</li>
+ *     <li>register(MBeanServer server)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class PluginMetrics {
+    private static final String DOMAIN = "com.trinoudf";
+    private static final Map<String, FunctionStats> functions = new ConcurrentHashMap<>();
+    private static final CryptoStats crypto = new CryptoStats();
+    private static final DecryptionCacheStats decryptionCache = new DecryptionCacheStats();
+    private static final Map<String, Object> components = new ConcurrentHashMap<>();
+    private static volatile MBeanServer server;
+
+    private PluginMetrics() {
+    }
+
+    /**
+     * FunctionStats of a SQL function, created on first use.
+     * Callers should keep the result in a static field instead of looking it up per row.
+     * @param name SQL function name.
+     * @return FunctionStats of the function.
+     * @author Wong Kok-Lim
+     */
+    public static FunctionStats function(String name) {
+        FunctionStats stats = functions.get(name);
+        if (stats == null) {
+            FunctionStats created = new FunctionStats(name);
+            stats = functions.putIfAbsent(name, created);
+            if (stats == null) {
+                stats = created;
+                registerQuietly(stats);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Key derivation and Cipher statistics.
+     * @return CryptoStats of the plugin.
+     * @author Wong Kok-Lim
+     */
+    public static CryptoStats crypto() {
+        return crypto;
+    }
+
+    /**
+     * Decryption result cache statistics.
+     * @return DecryptionCacheStats of the plugin.
+     * @author Wong Kok-Lim
+     */
+    public static DecryptionCacheStats decryptionCache() {
+        return decryptionCache;
+    }
+
+    /**
+     * Adds the MBean of a component that is created lazily, e.g. by an optional jar on its first call.
+     * It is registered right away if register(MBeanServer) was already called, otherwise together with the others.
+     * @param type MBean type, unique per component.
+     * @param mbean Standard MBean of the component.
+     * @author Wong Kok-Lim
+     */
+    public static void component(String type, Object mbean) {
+        components.put(type, mbean);
+        MBeanServer current = server;
+        if (current == null) {
+            return;
+        }
+        try {
+            register(current, new ObjectName(DOMAIN + ":type=" + type), mbean);
+        }
+        catch (JMException ignored) {
+            // left unregistered, metrics must never fail a query
+        }
+    }
+
+    /**
+     * Registers every FunctionStats, the CryptoStats, the DecryptionCacheStats and the component MBeans with the MBeanServer.
+     * FunctionStats created afterwards are registered with the same MBeanServer when they are created.
+     * MBeans that are already registered, e.g. by an earlier plugin instance, are left as they are.
+     * @param server MBeanServer to register with, normally the platform MBeanServer Trino's JMX connector reads.
+     * @throws JMException If an MBean cannot be registered.
+     * @author Wong Kok-Lim
+     */
+    public static void register(MBeanServer server) throws JMException {
+        PluginMetrics.server = server;
+        register(server, new ObjectName(DOMAIN + ":type=CryptoStats"), crypto);
+        register(server, new ObjectName(DOMAIN + ":type=DecryptionCacheStats"), decryptionCache);
+        for (FunctionStats stats : functions.values()) {
+            register(server, functionName(stats), stats);
+        }
+        for (Map.Entry<String, Object> component : components.entrySet()) {
+            register(server, new ObjectName(DOMAIN + ":type=" + component.getKey()), component.getValue());
+        }
+    }
+
+    private static ObjectName functionName(FunctionStats stats) throws JMException {
+        return new ObjectName(DOMAIN + ":type=FunctionStats,name=" + stats.getName());
+    }
+
+    /**
+     * Registers FunctionStats created after register(MBeanServer). Metrics must never fail a query,
+     * so registration errors only leave the function unregistered.
+     * @param stats FunctionStats to register.
+     * @author Wong Kok-Lim
+     */
+    private static void registerQuietly(FunctionStats stats) {
+        MBeanServer current = server;
+        if (current == null) {
+            return;
+        }
+        try {
+            register(current, functionName(stats), stats);
+        }
+        catch (JMException ignored) {
+            // left unregistered
+        }
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+        if (server.isRegistered(name)) {
+            return;
+        }
+        try {
+            server.registerMBean(mbean, name);
+        }
+        catch (InstanceAlreadyExistsException ignored) {
+            // registered concurrently
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESDecrypt;
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.crypto.AESReencrypt;
+import com.trinoudf.global.Methods;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+
+/**
+ * ==Description==
+ * <p>
+ *     Resolves the AES mode argument of the SQL functions to a shared AESEncrypt, AESDecrypt or AESReencrypt.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encrypter(Slice mode)</li>
+ *     <li>decrypter(Slice mode)</li>
+ *     <li>reencrypter(Slice mode)</li>
+ *     <li>method(Slice mode)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+final class AESModes {
+    private static final Map<Methods, AESEncrypt> encrypters = new EnumMap<>(Methods.class);
+    private static final Map<Methods, AESDecrypt> decrypters = new EnumMap<>(Methods.class);
+    private static final Map<Methods, AESReencrypt> reencrypters = new EnumMap<>(Methods.class);
+
+    static {
+        for (Methods method : new Methods[] {Methods.CBC, Methods.CTR, Methods.GCM}) {
+            encrypters.put(method, new AESEncrypt(method));
+            decrypters.put(method, new AESDecrypt(method));
+            reencrypters.put(method, new AESReencrypt(method));
+        }
+    }
+
+    private AESModes() {
+    }
+
+    /**
+     * Shared AESEncrypt for the given mode.
+     * @param mode Mode name, one of CBC, CTR or GCM, case insensitive.
+     * @return AESEncrypt of the mode.
+     * @author Wong Kok-Lim
+     */
+    static AESEncrypt encrypter(Slice mode) {
+        return encrypters.get(method(mode));
+    }
+
+    /**
+     * Shared AESDecrypt for the given mode.
+     * @param mode Mode name, one of CBC, CTR or GCM, case insensitive.
+     * @return AESDecrypt of the mode.
+     * @author Wong Kok-Lim
+     */
+    static AESDecrypt decrypter(Slice mode) {
+        return decrypters.get(method(mode));
+    }
+
+    /**
+     * Shared AESReencrypt for the given mode.
+     * @param mode Mode name, one of CBC, CTR or GCM, case insensitive.
+     * @return AESReencrypt of the mode.
+     * @author Wong Kok-Lim
+     */
+    static AESReencrypt reencrypter(Slice mode) {
+        return reencrypters.get(method(mode));
+    }
+
+    /**
+     * Parses the mode argument of an AES SQL function.
+     * @param mode Mode name, one of CBC, CTR or GCM, case insensitive.
+     * @return Methods of the mode.
+     * @throws TrinoException If the mode is not an AES mode.
+     * @author Wong Kok-Lim
+     */
+    static Methods method(Slice mode) {
+        String name = mode.toStringUtf8().toUpperCase(Locale.ENGLISH);
+        switch (name) {
+            case "CBC":
+                return Methods.CBC;
+            case "CTR":
+                return Methods.CTR;
+            case "GCM":
+                return Methods.GCM;
+            default:
+                throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "Unsupported AES mode: " + mode.toStringUtf8() + ", expected CBC, CTR or GCM");
+        }
+    }
+}
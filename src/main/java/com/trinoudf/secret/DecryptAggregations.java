@@ -0,0 +1,159 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESDecrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.metrics.FunctionStats;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+
+import static io.trino.spi.StandardErrorCode.INVALID_CAST_ARGUMENT;
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+import static io.trino.spi.StandardErrorCode.NUMERIC_VALUE_OUT_OF_RANGE;
+
+/**
+ * ==Description==
+ * <p>
+ *     Per row decryption shared by the decrypt and aggregate functions.
+ *     Values are Base64 decoded into a thread local scratch buffer, decrypted there in place and parsed from there,
+ *     so no plaintext Slice or String is created per row. The key is derived once per key through the KeyGenerator cache and the Cipher comes initialized
+ *     from the calling thread's CipherCache, which skips the re-init while key and IV stay the same across rows.
+ *     Values that are not valid Base64 or do not decrypt under the key and IV fail with INVALID_FUNCTION_ARGUMENT,
+ *     plaintexts that are not numbers with INVALID_CAST_ARGUMENT.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>decryptLong(FunctionStats stats, Slice secureData, Slice key, Slice iv)</li>
+ *     <li>decryptDouble(FunctionStats stats, Slice secureData, Slice key, Slice iv)</li>
+ *     <li>decryptHash(FunctionStats stats, Slice secureData, Slice key, Slice iv)</li>
+ *     <li>add(long left, long right)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+final class DecryptAggregations {
+    private static final AESDecrypt aesDecrypt = new AESDecrypt(Methods.CBC);
+
+    /**
+     * Constructor for DecryptAggregations class.
+     * @author Wong Kok-Lim
+     */
+    private DecryptAggregations() {
+    }
+
+    /**
+     * Decrypts a value encrypted by encrypt_aes() to BIGINT with call statistics.
+     * @param stats FunctionStats of the calling aggregation.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted value.
+     * @author Wong Kok-Lim
+     */
+    static long decryptLong(FunctionStats stats, Slice secureData, Slice key, Slice iv) {
+        long start = stats.start();
+        try {
+            long value = aesDecrypt.longAES(secureData, key, iv);
+            stats.record(start, secureData.length(), Long.BYTES);
+            return value;
+        }
+        catch (NumberFormatException e) {
+            stats.failed(start);
+            throw new TrinoException(INVALID_CAST_ARGUMENT, "Cannot cast decrypted value to BIGINT: " + e.getMessage(), e);
+        }
+        catch (IllegalStateException | IllegalArgumentException e) {
+            stats.failed(start);
+            throw invalidCiphertext(e);
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Decrypts a value encrypted by encrypt_aes() to DOUBLE with call statistics.
+     * @param stats FunctionStats of the calling aggregation.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted value.
+     * @author Wong Kok-Lim
+     */
+    static double decryptDouble(FunctionStats stats, Slice secureData, Slice key, Slice iv) {
+        long start = stats.start();
+        try {
+            double value = aesDecrypt.doubleAES(secureData, key, iv);
+            stats.record(start, secureData.length(), Double.BYTES);
+            return value;
+        }
+        catch (NumberFormatException e) {
+            stats.failed(start);
+            throw new TrinoException(INVALID_CAST_ARGUMENT, "Cannot cast decrypted value to DOUBLE: " + e.getMessage(), e);
+        }
+        catch (IllegalStateException | IllegalArgumentException e) {
+            stats.failed(start);
+            throw invalidCiphertext(e);
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Decrypts a value encrypted by encrypt_aes() to the hash of its plaintext with call statistics.
+     * @param stats FunctionStats of the calling aggregation.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Hash of the decrypted value.
+     * @author Wong Kok-Lim
+     */
+    static long decryptHash(FunctionStats stats, Slice secureData, Slice key, Slice iv) {
+        long start = stats.start();
+        try {
+            long hash = aesDecrypt.hashAES(secureData, key, iv);
+            stats.record(start, secureData.length(), Long.BYTES);
+            return hash;
+        }
+        catch (IllegalStateException | IllegalArgumentException e) {
+            stats.failed(start);
+            throw invalidCiphertext(e);
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * User error for a value that is not valid Base64 or does not decrypt under the given key and Initialize Vector.
+     * @param e Base64 or cipher failure.
+     * @return TrinoException with INVALID_FUNCTION_ARGUMENT.
+     * @author Wong Kok-Lim
+     */
+    private static TrinoException invalidCiphertext(RuntimeException e) {
+        Throwable cause = e instanceof IllegalStateException && e.getCause() != null ? e.getCause() : e;
+        return new TrinoException(INVALID_FUNCTION_ARGUMENT, "Cannot decrypt value: " + cause.getMessage(), e);
+    }
+
+    /**
+     * BIGINT addition failing like sum() on overflow.
+     * @param left Left operand.
+     * @param right Right operand.
+     * @return Sum.
+     * @author Wong Kok-Lim
+     */
+    static long add(long left, long right) {
+        try {
+            return Math.addExact(left, right);
+        }
+        catch (ArithmeticException e) {
+            throw new TrinoException(NUMERIC_VALUE_OUT_OF_RANGE, "bigint addition overflow: " + left + " + " + right, e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.trinoudf.secret;
+
+import io.trino.spi.function.AccumulatorState;
+
+/**
+ * ==Description==
+ * <p>
+ *     Accumulator state of avg_decrypt_aes(), the running sum and count of the decrypted values.
+ *     Trino generates the single and grouped implementations and the serializer of this interface.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>getSum()</li>
+ *     <li>setSum(double sum)</li>
+ *     <li>getCount()</li>
+ *     <li>setCount(long count)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public interface DecryptedAverageState extends AccumulatorState {
+    double getSum();
+
+    void setSum(double sum);
+
+    long getCount();
+
+    void setCount(long count);
+}
@@ -0,0 +1,28 @@
+package com.trinoudf.secret;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.function.AccumulatorState;
+
+/**
+ * ==Description==
+ * <p>
+ *     Accumulator state of approx_distinct_decrypt_aes(), the HyperLogLog registers of a DistinctSketch,
+ *     NULL until the first row. Trino generates the single and grouped implementations and the serializer of this interface.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>getSketch()</li>
+ *     <li>setSketch(Slice sketch)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public interface DecryptedDistinctState extends AccumulatorState {
+    Slice getSketch();
+
+    void setSketch(Slice sketch);
+}
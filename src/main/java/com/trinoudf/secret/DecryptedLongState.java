@@ -0,0 +1,33 @@
+package com.trinoudf.secret;
+
+import io.trino.spi.function.AccumulatorState;
+
+/**
+ * ==Description==
+ * <p>
+ *     Accumulator state of the BIGINT decrypt and aggregate functions, a long that stays NULL until the first row.
+ *     Trino generates the single and grouped implementations and the serializer of this interface.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>getValue()</li>
+ *     <li>setValue(long value)</li>
+ *     <li>isPresent()</li>
+ *     <li>setPresent(boolean present)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public interface DecryptedLongState extends AccumulatorState {
+    long getValue();
+
+    void setValue(long value);
+
+    boolean isPresent();
+
+    void setPresent(boolean present);
+}
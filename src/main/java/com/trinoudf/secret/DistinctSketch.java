@@ -0,0 +1,101 @@
+package com.trinoudf.secret;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+/**
+ * ==Description==
+ * <p>
+ *     Minimal HyperLogLog over a Slice of 2048 one byte registers, the same standard error of about 2.3% as approx_distinct().
+ *     The registers live in a plain Slice so that Trino can serialize the aggregation state without a custom serializer.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>newSketch()</li>
+ *     <li>add(Slice sketch, long hash)</li>
+ *     <li>merge(Slice sketch, Slice other)</li>
+ *     <li>cardinality(Slice sketch)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+final class DistinctSketch {
+    private static final int indexBits = 11;
+    private static final int registerCount = 1 << indexBits;
+    private static final double alpha = 0.7213 / (1 + 1.079 / registerCount);
+
+    /**
+     * Constructor for DistinctSketch class.
+     * @author Wong Kok-Lim
+     */
+    private DistinctSketch() {
+    }
+
+    /**
+     * Creates an empty sketch.
+     * @return Slice of zeroed registers.
+     * @author Wong Kok-Lim
+     */
+    static Slice newSketch() {
+        return Slices.allocate(registerCount);
+    }
+
+    /**
+     * Adds the 64 bit hash of a value to a sketch.
+     * @param sketch Sketch registers.
+     * @param hash Hash of the value.
+     * @author Wong Kok-Lim
+     */
+    static void add(Slice sketch, long hash) {
+        int index = (int) (hash >>> (Long.SIZE - indexBits));
+        // guard bit below the remaining hash bits bounds the rank to 64 - indexBits + 1
+        long remaining = (hash << indexBits) | (1L << (indexBits - 1));
+        int rank = Long.numberOfLeadingZeros(remaining) + 1;
+        if (rank > sketch.getByte(index)) {
+            sketch.setByte(index, rank);
+        }
+    }
+
+    /**
+     * Merges another sketch into a sketch.
+     * @param sketch Sketch registers to merge into.
+     * @param other Sketch registers to merge from.
+     * @author Wong Kok-Lim
+     */
+    static void merge(Slice sketch, Slice other) {
+        for (int i = 0; i < registerCount; i++) {
+            byte rank = other.getByte(i);
+            if (rank > sketch.getByte(i)) {
+                sketch.setByte(i, rank);
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of distinct values added to a sketch, using linear counting for small cardinalities.
+     * @param sketch Sketch registers.
+     * @return Estimated number of distinct values.
+     * @author Wong Kok-Lim
+     */
+    static long cardinality(Slice sketch) {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < registerCount; i++) {
+            byte rank = sketch.getByte(i);
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
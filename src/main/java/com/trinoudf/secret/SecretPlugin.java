@@ -1,16 +1,142 @@
 package com.trinoudf.secret;
 
+import com.trinoudf.crypto.CipherProviders;
+import com.trinoudf.crypto.CompressedPayload;
+import com.trinoudf.crypto.DecryptionCache;
+import com.trinoudf.crypto.ParallelCTR;
+import com.trinoudf.global.PluginConfig;
+import com.trinoudf.key.KeyRegistry;
+import com.trinoudf.metrics.PluginMetrics;
 import io.trino.spi.Plugin;
 import com.google.common.collect.ImmutableSet;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.security.GeneralSecurityException;
 import java.util.Set;
+import java.util.logging.Logger;
 
 public class SecretPlugin  implements Plugin {
+    private static final Logger log = Logger.getLogger(SecretPlugin.class.getName());
+
+    // function classes of the optional Jasypt and KMS jars, registered only if their jar is installed next to this one
+    private static final String[] optionalFunctions = {
+            "com.trinoudf.secret.SecretFunctions",
+            "com.trinoudf.kms.KmsFunctions",
+    };
+
+    public SecretPlugin() {
+        // metrics are exposed through Trino's JMX connector, a failed registration must not stop the functions from loading
+        try {
+            PluginMetrics.register(ManagementFactory.getPlatformMBeanServer());
+        }
+        catch (JMException e) {
+            e.printStackTrace();
+        }
+
+        PluginConfig config;
+        try {
+            config = PluginConfig.load();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            config = PluginConfig.empty();
+        }
+
+        // a bad provider setting keeps the JCE provider order instead of failing the plugin
+        try {
+            CipherProviders.configure(config);
+        }
+        catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+
+        // the decryption cache is opt-in, a bad setting leaves it disabled
+        try {
+            DecryptionCache.configure(config);
+        }
+        catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+
+        // a bad large value setting keeps the default segments and pool
+        try {
+            ParallelCTR.configure(config);
+        }
+        catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+
+        // a bad compression setting keeps the default minimum size
+        try {
+            CompressedPayload.configure(config);
+        }
+        catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+
+        // keys for the alias based functions, a broken keystore only fails the queries that use an alias
+        try {
+            KeyRegistry.install(KeyRegistry.load(config));
+        }
+        catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public Set<Class<?>> getFunctions(){
-        return ImmutableSet.<Class<?>>builder()
-                .add(SecretFunctions.class)
+        ImmutableSet.Builder<Class<?>> functions = ImmutableSet.<Class<?>>builder()
                 .add(TrinoEncryptAES.class)
+                .add(TrinoEncryptAESMode.class)
+                .add(TrinoEncryptAESArray.class)
+                .add(TrinoEncryptAESRaw.class)
+                .add(TrinoEncryptAESFixed.class)
                 .add(TrinoDecryptAES.class)
-                .build();
+                .add(TrinoDecryptAESFixed.class)
+                .add(TrinoBlindIndex.class)
+                .add(TrinoBlindIndexLength.class)
+                .add(TrinoBlindIndexReal.class)
+                .add(TrinoTryDecryptAES.class)
+                .add(TrinoChunkedAES.class)
+                .add(TrinoLargeAES.class)
+                .add(TrinoReencryptAES.class)
+                .add(TrinoCompressedAES.class)
+                .add(TrinoKeyAliasAES.class)
+                .add(TrinoKeyAliasEncryptAES.class)
+                .add(TrinoRandomIvAES.class)
+                .add(TrinoRandomIvEncryptAES.class)
+                .add(TrinoRandomIvEncryptAESMode.class)
+                .add(TrinoSumDecryptAES.class)
+                .add(TrinoAvgDecryptAES.class)
+                .add(TrinoMinDecryptAES.class)
+                .add(TrinoMaxDecryptAES.class)
+                .add(TrinoApproxDistinctDecryptAES.class);
+
+        for (String name : optionalFunctions) {
+            Class<?> optional = loadOptional(name);
+            if (optional != null) {
+                functions.add(optional);
+            }
+        }
+        return functions.build();
+    }
+
+    /**
+     * Looks up a function class of an optional jar without initializing it,
+     * so its libraries are only loaded when one of its functions is first called.
+     * @param name Class name.
+     * @return Function class, null if its jar is not installed.
+     * @author Wong Kok-Lim
+     */
+    private static Class<?> loadOptional(String name) {
+        try {
+            return Class.forName(name, false, SecretPlugin.class.getClassLoader());
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            log.info("Optional functions not installed: " + name);
+            return null;
+        }
     }
 }
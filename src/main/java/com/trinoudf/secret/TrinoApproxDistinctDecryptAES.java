@@ -0,0 +1,96 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.function.AggregationFunction;
+import io.trino.spi.function.AggregationState;
+import io.trino.spi.function.CombineFunction;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.InputFunction;
+import io.trino.spi.function.OutputFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+
+/**
+ * ==Description==
+ * <p>
+ *     PrestoSQL aggregation for the approximate number of distinct values encrypted by encrypt_aes(),
+ *     like approx_distinct(decrypt_aes(...)) with a standard error of about 2.3%.
+ *     Only the hash of every decrypted value is kept, in a DistinctSketch per group.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>input(@AggregationState DecryptedDistinctState state, @SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>combine(@AggregationState DecryptedDistinctState state, @AggregationState DecryptedDistinctState otherState)</li>
+ *     <li>output(@AggregationState DecryptedDistinctState state, BlockBuilder out)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+@AggregationFunction("approx_distinct_decrypt_aes")
+@Description("Approximate number of distinct AES encrypted values")
+public final class TrinoApproxDistinctDecryptAES {
+    private static final FunctionStats stats = PluginMetrics.function("approx_distinct_decrypt_aes");
+
+    private TrinoApproxDistinctDecryptAES() {
+    }
+
+    /**
+     * Adds the decrypted value of a row to the group's state.
+     * @param state Accumulator state of the group.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @author Wong Kok-Lim
+     */
+    @InputFunction
+    public static void input(@AggregationState DecryptedDistinctState state, @SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        long hash = DecryptAggregations.decryptHash(stats, secureData, key, iv);
+        Slice sketch = state.getSketch();
+        if (sketch == null) {
+            sketch = DistinctSketch.newSketch();
+            state.setSketch(sketch);
+        }
+        DistinctSketch.add(sketch, hash);
+    }
+
+    /**
+     * Merges the partial state of another worker or split into the state.
+     * @param state Accumulator state to merge into.
+     * @param otherState Accumulator state to merge from.
+     * @author Wong Kok-Lim
+     */
+    @CombineFunction
+    public static void combine(@AggregationState DecryptedDistinctState state, @AggregationState DecryptedDistinctState otherState) {
+        Slice other = otherState.getSketch();
+        if (other == null) {
+            return;
+        }
+        Slice sketch = state.getSketch();
+        if (sketch == null) {
+            sketch = DistinctSketch.newSketch();
+            state.setSketch(sketch);
+        }
+        DistinctSketch.merge(sketch, other);
+    }
+
+    /**
+     * Writes the aggregation result of the state.
+     * @param state Accumulator state of the group.
+     * @param out BlockBuilder to write the result to.
+     * @author Wong Kok-Lim
+     */
+    @OutputFunction(StandardTypes.BIGINT)
+    public static void output(@AggregationState DecryptedDistinctState state, BlockBuilder out) {
+        Slice sketch = state.getSketch();
+        BIGINT.writeLong(out, sketch == null ? 0 : DistinctSketch.cardinality(sketch));
+    }
+}
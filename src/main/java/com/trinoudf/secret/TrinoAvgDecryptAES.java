@@ -0,0 +1,86 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.function.AggregationFunction;
+import io.trino.spi.function.AggregationState;
+import io.trino.spi.function.CombineFunction;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.InputFunction;
+import io.trino.spi.function.OutputFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import static io.trino.spi.type.DoubleType.DOUBLE;
+
+/**
+ * ==Description==
+ * <p>
+ *     PrestoSQL aggregation for the average of values encrypted by encrypt_aes(), the same as avg(CAST(decrypt_aes(...) AS DOUBLE)).
+ *     Decrypts every value without creating a plaintext Slice and keeps a primitive sum and count per group.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>input(@AggregationState DecryptedAverageState state, @SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>combine(@AggregationState DecryptedAverageState state, @AggregationState DecryptedAverageState otherState)</li>
+ *     <li>output(@AggregationState DecryptedAverageState state, BlockBuilder out)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+@AggregationFunction("avg_decrypt_aes")
+@Description("Average of AES encrypted numeric values")
+public final class TrinoAvgDecryptAES {
+    private static final FunctionStats stats = PluginMetrics.function("avg_decrypt_aes");
+
+    private TrinoAvgDecryptAES() {
+    }
+
+    /**
+     * Adds the decrypted value of a row to the group's state.
+     * @param state Accumulator state of the group.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @author Wong Kok-Lim
+     */
+    @InputFunction
+    public static void input(@AggregationState DecryptedAverageState state, @SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        state.setSum(state.getSum() + DecryptAggregations.decryptDouble(stats, secureData, key, iv));
+        state.setCount(state.getCount() + 1);
+    }
+
+    /**
+     * Merges the partial state of another worker or split into the state.
+     * @param state Accumulator state to merge into.
+     * @param otherState Accumulator state to merge from.
+     * @author Wong Kok-Lim
+     */
+    @CombineFunction
+    public static void combine(@AggregationState DecryptedAverageState state, @AggregationState DecryptedAverageState otherState) {
+        state.setSum(state.getSum() + otherState.getSum());
+        state.setCount(state.getCount() + otherState.getCount());
+    }
+
+    /**
+     * Writes the aggregation result of the state.
+     * @param state Accumulator state of the group.
+     * @param out BlockBuilder to write the result to.
+     * @author Wong Kok-Lim
+     */
+    @OutputFunction(StandardTypes.DOUBLE)
+    public static void output(@AggregationState DecryptedAverageState state, BlockBuilder out) {
+        if (state.getCount() == 0) {
+            out.appendNull();
+        }
+        else {
+            DOUBLE.writeDouble(out, state.getSum() / state.getCount());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.BlindIndex;
+import com.trinoudf.key.KeyGenerator;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.function.*;
+import io.trino.spi.type.StandardTypes;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+
+/**
+ * ==Description==
+ * <p>
+ *     Blind index methods for PrestoSQL.
+ *     blind_index(value, key) returns a 16 byte HMAC-SHA256 token of the value as VARBINARY,
+ *     blind_index(value, key, length) of TrinoBlindIndexLength a token of 8 to 32 bytes. Storing the token next to the
+ *     ciphertext allows equality filters, joins and partitioning on encrypted columns without decrypting.
+ *     VARCHAR, CHAR, VARBINARY, UUID, IPADDRESS and JSON values are indexed by their bytes, integer, DATE and TIMESTAMP values
+ *     by their 8 byte little endian encoding, REAL and DOUBLE by their bits and BOOLEAN by 1 byte, each behind a type tag,
+ *     so equal tokens require equal values of the same kind. REAL and DOUBLE -0.0 are indexed as 0.0 and every NaN as the
+ *     canonical NaN, so values that compare equal give equal tokens. REAL values are indexed by TrinoBlindIndexReal.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated.</p>
+ * <ul>
+ *     <li>blindIndexSlice(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>blindIndexLong(@SqlType("T") long value, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>blindIndexDouble(@SqlType("T") double value, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>blindIndexBool(@SqlType("T") boolean value, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>indexBinary(Slice value, Slice key, int length)</li>
+ *     <li>indexIntegral(long value, Slice key, int length)</li>
+ *     <li>indexReal(long value, Slice key, int length)</li>
+ *     <li>indexDouble(double value, Slice key, int length)</li>
+ *     <li>indexBoolean(boolean value, Slice key, int length)</li>
+ *     <li>checkedLength(long length)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+
+@ScalarFunction("blind_index")
+@Description("Keyed HMAC-SHA256 token of a value for equality filtering on encrypted columns")
+public final class TrinoBlindIndex {
+    private static final FunctionStats stats = PluginMetrics.function("blind_index");
+    private static final ThreadLocal<byte[]> fixedWidthBuffer = ThreadLocal.withInitial(() -> new byte[Long.BYTES]);
+
+    private TrinoBlindIndex() {
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of binary values.
+     * @param value VARCHAR, CHAR, VARBINARY, UUID, IPADDRESS, JSON to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexSlice(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return indexBinary(value, key, BlindIndex.DEFAULT_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of 8 byte values.
+     * @param value BigInt, Integer, SmallInt, TinyInt, Date, Timestamp to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexLong(@SqlType("T") long value, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return indexIntegral(value, key, BlindIndex.DEFAULT_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of Double values.
+     * @param value Double to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexDouble(@SqlType("T") double value, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return indexDouble(value, key, BlindIndex.DEFAULT_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of Boolean values.
+     * @param value Boolean to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexBool(@SqlType("T") boolean value, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return indexBoolean(value, key, BlindIndex.DEFAULT_LENGTH);
+    }
+
+    /**
+     * Blind index token of a binary value.
+     * @param value Slice to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    static Slice indexBinary(Slice value, Slice key, int length) {
+        return index(BlindIndex.TAG_BINARY, value, key, length);
+    }
+
+    /**
+     * Blind index token of an integral, date or timestamp value in its 8 byte encoding.
+     * @param value Value to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    static Slice indexIntegral(long value, Slice key, int length) {
+        byte[] buffer = fixedWidthBuffer.get();
+        writeLong(buffer, value);
+        return index(BlindIndex.TAG_INTEGRAL, buffer, Long.BYTES, key, length);
+    }
+
+    /**
+     * Blind index token of a Real value by its canonical float bits.
+     * @param value Real to be indexed, the float bits in a long.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    static Slice indexReal(long value, Slice key, int length) {
+        byte[] buffer = fixedWidthBuffer.get();
+        writeLong(buffer, canonicalBits(Float.intBitsToFloat((int) value)));
+        return index(BlindIndex.TAG_REAL, buffer, Integer.BYTES, key, length);
+    }
+
+    /**
+     * Blind index token of a Double value by its canonical bits.
+     * @param value Double to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    static Slice indexDouble(double value, Slice key, int length) {
+        byte[] buffer = fixedWidthBuffer.get();
+        writeLong(buffer, canonicalBits(value));
+        return index(BlindIndex.TAG_DOUBLE, buffer, Long.BYTES, key, length);
+    }
+
+    /**
+     * Blind index token of a Boolean value.
+     * @param value Boolean to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    static Slice indexBoolean(boolean value, Slice key, int length) {
+        byte[] buffer = fixedWidthBuffer.get();
+        buffer[0] = (byte) (value ? 1 : 0);
+        return index(BlindIndex.TAG_BOOLEAN, buffer, 1, key, length);
+    }
+
+    /**
+     * Blind index token of a Slice with call statistics.
+     * @param typeTag Type tag of the value.
+     * @param value Slice to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    private static Slice index(byte typeTag, Slice value, Slice key, int length) {
+        long start = stats.start();
+        try {
+            SecretKeySpec skeySpec = KeyGenerator.blindIndexKeySpecGenerator(key);
+            return stats.record(start, value, BlindIndex.index(typeTag, value, skeySpec, length));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Blind index token of a fixed width encoded value with call statistics.
+     * @param typeTag Type tag of the value.
+     * @param value byte[] holding the encoded value from offset 0.
+     * @param valueLength Length of the encoded value.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    private static Slice index(byte typeTag, byte[] value, int valueLength, Slice key, int length) {
+        long start = stats.start();
+        try {
+            SecretKeySpec skeySpec = KeyGenerator.blindIndexKeySpecGenerator(key);
+            return stats.record(start, valueLength, BlindIndex.index(typeTag, value, 0, valueLength, skeySpec, length));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+
+    private static void writeLong(byte[] buffer, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            buffer[i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    /**
+     * Bits of a double with -0.0 mapped to 0.0 and every NaN to the canonical NaN, so values that compare equal index equal.
+     * @param value Double value.
+     * @return Canonical bits.
+     * @author Wong Kok-Lim
+     */
+    private static long canonicalBits(double value) {
+        return value == 0.0 ? 0L : Double.doubleToLongBits(value);
+    }
+
+    /**
+     * Bits of a float with -0.0 mapped to 0.0 and every NaN to the canonical NaN, so values that compare equal index equal.
+     * @param value Float value.
+     * @return Canonical bits.
+     * @author Wong Kok-Lim
+     */
+    private static int canonicalBits(float value) {
+        return value == 0.0f ? 0 : Float.floatToIntBits(value);
+    }
+
+    static int checkedLength(long length) {
+        if (length < BlindIndex.MIN_LENGTH || length > BlindIndex.MAX_LENGTH) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "blind_index length must be between " + BlindIndex.MIN_LENGTH + " and " + BlindIndex.MAX_LENGTH + " bytes: " + length);
+        }
+        return (int) length;
+    }
+}
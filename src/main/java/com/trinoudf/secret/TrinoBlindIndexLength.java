@@ -0,0 +1,89 @@
+package com.trinoudf.secret;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.function.*;
+import io.trino.spi.type.StandardTypes;
+
+/**
+ * ==Description==
+ * <p>
+ *     Blind index methods for PrestoSQL with a chosen token length, the three argument form of blind_index().
+ *     blind_index(value, key, length) returns an HMAC-SHA256 token of 8 to 32 bytes, encoded as by TrinoBlindIndex.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated.</p>
+ * <ul>
+ *     <li>blindIndexSlice(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length)</li>
+ *     <li>blindIndexLong(@SqlType("T") long value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length)</li>
+ *     <li>blindIndexDouble(@SqlType("T") double value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length)</li>
+ *     <li>blindIndexBool(@SqlType("T") boolean value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+
+@ScalarFunction("blind_index")
+@Description("Keyed HMAC-SHA256 token of a value of the given length for equality filtering on encrypted columns")
+public final class TrinoBlindIndexLength {
+    private TrinoBlindIndexLength() {
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of binary values.
+     * @param value VARCHAR, CHAR, VARBINARY, UUID, IPADDRESS, JSON to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes, between 8 and 32.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexSlice(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length) {
+        return TrinoBlindIndex.indexBinary(value, key, TrinoBlindIndex.checkedLength(length));
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of 8 byte values.
+     * @param value BigInt, Integer, SmallInt, TinyInt, Date, Timestamp to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes, between 8 and 32.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexLong(@SqlType("T") long value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length) {
+        return TrinoBlindIndex.indexIntegral(value, key, TrinoBlindIndex.checkedLength(length));
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of Double values.
+     * @param value Double to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes, between 8 and 32.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexDouble(@SqlType("T") double value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length) {
+        return TrinoBlindIndex.indexDouble(value, key, TrinoBlindIndex.checkedLength(length));
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of Boolean values.
+     * @param value Boolean to be indexed.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes, between 8 and 32.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexBool(@SqlType("T") boolean value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length) {
+        return TrinoBlindIndex.indexBoolean(value, key, TrinoBlindIndex.checkedLength(length));
+    }
+}
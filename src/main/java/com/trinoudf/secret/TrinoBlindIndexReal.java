@@ -0,0 +1,58 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.BlindIndex;
+import io.airlift.slice.Slice;
+import io.trino.spi.function.*;
+import io.trino.spi.type.StandardTypes;
+
+/**
+ * ==Description==
+ * <p>
+ *     Blind index methods for PrestoSQL REAL values. REAL shares its long carrier with the integral types, so it is
+ *     declared as its own blind_index() functions and indexed by its canonical float bits instead of as an integer.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated.</p>
+ * <ul>
+ *     <li>blindIndexReal(@SqlType(StandardTypes.REAL) long value, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>blindIndexReal(@SqlType(StandardTypes.REAL) long value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoBlindIndexReal {
+    private TrinoBlindIndexReal() {
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of Real values.
+     * @param value Real to be indexed, the float bits in a long.
+     * @param key Key String to derive the HMAC key from.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @Description("Keyed HMAC-SHA256 token of a value for equality filtering on encrypted columns")
+    @ScalarFunction("blind_index")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexReal(@SqlType(StandardTypes.REAL) long value, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return TrinoBlindIndex.indexReal(value, key, BlindIndex.DEFAULT_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for the blind index token of Real values.
+     * @param value Real to be indexed, the float bits in a long.
+     * @param key Key String to derive the HMAC key from.
+     * @param length Token length in bytes, between 8 and 32.
+     * @return Blind index token.
+     * @author Wong Kok-Lim
+     */
+    @Description("Keyed HMAC-SHA256 token of a value of the given length for equality filtering on encrypted columns")
+    @ScalarFunction("blind_index")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice blindIndexReal(@SqlType(StandardTypes.REAL) long value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long length) {
+        return TrinoBlindIndex.indexReal(value, key, TrinoBlindIndex.checkedLength(length));
+    }
+}
@@ -0,0 +1,186 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.ChunkedAES;
+import com.trinoudf.key.KeyGenerator;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.function.TypeParameter;
+import io.trino.spi.type.StandardTypes;
+
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+
+/**
+ * ==Description==
+ * <p>
+ *     Chunked AES encryption methods for PrestoSQL, for large VARCHAR and VARBINARY values.
+ *     encrypt_aes_chunked() returns the ChunkedAES format as VARBINARY, in which every chunk is encrypted and authenticated
+ *     with AES GCM on its own, so decrypt_aes_range() decrypts a byte range from the chunks it touches only.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encryptChunkedAes(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>encryptChunkedAes(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long chunkSize)</li>
+ *     <li>decryptChunkedStringAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>decryptChunkedBinaryAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>decryptRangeAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long offset, @SqlType(StandardTypes.BIGINT) long length)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoChunkedAES {
+    private static final FunctionStats encryptAesChunkedStats = PluginMetrics.function("encrypt_aes_chunked");
+    private static final FunctionStats decryptAesChunkedStats = PluginMetrics.function("decrypt_aes_chunked");
+    private static final FunctionStats decryptAesChunkedBinaryStats = PluginMetrics.function("decrypt_aes_chunked_binary");
+    private static final FunctionStats decryptAesRangeStats = PluginMetrics.function("decrypt_aes_range");
+
+    private TrinoChunkedAES() {
+    }
+
+    /**
+     * PrestoSQL user defined function for chunked AES encryption with 64 KiB chunks.
+     * @param value VARCHAR or VARBINARY to be encrypted.
+     * @param key Key String to derive the chunk key from.
+     * @return Chunked ciphertext.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a large value using chunked AES GCM")
+    @ScalarFunction("encrypt_aes_chunked")
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice encryptChunkedAes(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return encrypt(value, key, ChunkedAES.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * PrestoSQL user defined function for chunked AES encryption with a chosen chunk size.
+     * @param value VARCHAR or VARBINARY to be encrypted.
+     * @param key Key String to derive the chunk key from.
+     * @param chunkSize Plaintext bytes per chunk, between 4 KiB and 1 MiB.
+     * @return Chunked ciphertext.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a large value using chunked AES GCM with the given chunk size")
+    @ScalarFunction("encrypt_aes_chunked")
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice encryptChunkedAes(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long chunkSize) {
+        if (chunkSize < ChunkedAES.MIN_CHUNK_SIZE || chunkSize > ChunkedAES.MAX_CHUNK_SIZE) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "encrypt_aes_chunked chunk size must be between " + ChunkedAES.MIN_CHUNK_SIZE + " and " + ChunkedAES.MAX_CHUNK_SIZE + " bytes: " + chunkSize);
+        }
+        return encrypt(value, key, (int) chunkSize);
+    }
+
+    /**
+     * PrestoSQL user defined function for decryption of a chunked AES ciphertext to VARCHAR.
+     * @param secureData Chunked ciphertext to be decrypted.
+     * @param key Key String to derive the chunk key from.
+     * @return Decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a chunked AES value")
+    @ScalarFunction("decrypt_aes_chunked")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptChunkedStringAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return decrypt(decryptAesChunkedStats, secureData, key);
+    }
+
+    /**
+     * PrestoSQL user defined function for decryption of a chunked AES ciphertext to VARBINARY.
+     * @param secureData Chunked ciphertext to be decrypted.
+     * @param key Key String to derive the chunk key from.
+     * @return Decrypted binary value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a chunked AES value")
+    @ScalarFunction("decrypt_aes_chunked_binary")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptChunkedBinaryAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return decrypt(decryptAesChunkedBinaryStats, secureData, key);
+    }
+
+    /**
+     * PrestoSQL user defined function for decryption of a byte range of a chunked AES ciphertext.
+     * Only the chunks overlapping the range are decrypted. A range reaching past the end of the value is cut at the end.
+     * @param secureData Chunked ciphertext to be decrypted.
+     * @param key Key String to derive the chunk key from.
+     * @param offset Offset of the range in the plaintext, starting at 0.
+     * @param length Length of the range in bytes.
+     * @return Decrypted bytes of the range.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a byte range of a chunked AES value")
+    @ScalarFunction("decrypt_aes_range")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptRangeAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.BIGINT) long offset, @SqlType(StandardTypes.BIGINT) long length) {
+        if (offset < 0 || length < 0 || length > Integer.MAX_VALUE) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "decrypt_aes_range offset and length must not be negative: " + offset + ", " + length);
+        }
+
+        long start = decryptAesRangeStats.start();
+        try {
+            Slice plaintext = ChunkedAES.decryptRange(secureData, KeyGenerator.chunkKeySpecGenerator(key), offset, (int) length);
+            return decryptAesRangeStats.record(start, secureData, plaintext);
+        }
+        catch (IllegalArgumentException e) {
+            decryptAesRangeStats.failed(start);
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, e.getMessage(), e);
+        }
+        catch (RuntimeException e) {
+            decryptAesRangeStats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Chunked AES encryption with call statistics.
+     * @param value Slice to be encrypted.
+     * @param key Key String to derive the chunk key from.
+     * @param chunkSize Plaintext bytes per chunk.
+     * @return Chunked ciphertext.
+     * @author Wong Kok-Lim
+     */
+    private static Slice encrypt(Slice value, Slice key, int chunkSize) {
+        long start = encryptAesChunkedStats.start();
+        try {
+            Slice ciphertext = ChunkedAES.encrypt(value, KeyGenerator.chunkKeySpecGenerator(key), chunkSize);
+            return encryptAesChunkedStats.record(start, value, ciphertext);
+        }
+        catch (RuntimeException e) {
+            encryptAesChunkedStats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Chunked AES decryption of a whole value with call statistics.
+     * @param stats FunctionStats of the calling function.
+     * @param secureData Chunked ciphertext to be decrypted.
+     * @param key Key String to derive the chunk key from.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private static Slice decrypt(FunctionStats stats, Slice secureData, Slice key) {
+        long start = stats.start();
+        try {
+            Slice plaintext = ChunkedAES.decrypt(secureData, KeyGenerator.chunkKeySpecGenerator(key));
+            return stats.record(start, secureData, plaintext);
+        }
+        catch (IllegalArgumentException e) {
+            stats.failed(start);
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, e.getMessage(), e);
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESDecrypt;
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.crypto.CompressedPayload;
+import com.trinoudf.global.Methods;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.function.TypeParameter;
+import io.trino.spi.type.StandardTypes;
+
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+
+/**
+ * ==Description==
+ * <p>
+ *     Compress then encrypt methods for PrestoSQL, for large VARCHAR, JSON and VARBINARY values.
+ *     encrypt_aes_compressed() compresses values of at least compress.min-bytes with LZ4 before AES encryption and marks
+ *     the payload with a versioned header, see CompressedPayload. decrypt_aes_compressed() detects the header after decryption
+ *     and rejects values without it, such as values of encrypt_aes(). CBC by default, CTR and GCM through the optional mode argument.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encryptCompressedAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>encryptCompressedAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>decryptCompressedStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptCompressedBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptCompressedStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>decryptCompressedBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoCompressedAES {
+    private static final AESEncrypt aesEncrypt = new AESEncrypt(Methods.CBC);
+    private static final AESDecrypt aesDecrypt = new AESDecrypt(Methods.CBC);
+    private static final FunctionStats encryptStats = PluginMetrics.function("encrypt_aes_compressed");
+    private static final FunctionStats decryptStats = PluginMetrics.function("decrypt_aes_compressed");
+    private static final FunctionStats decryptBinaryStats = PluginMetrics.function("decrypt_aes_compressed_binary");
+
+    private TrinoCompressedAES() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES CBC encryption of a value compressed with LZ4.
+     * @param privateData VARCHAR, JSON or VARBINARY to be compressed and encrypted.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Compresses a value with LZ4 and encrypts it using AES")
+    @ScalarFunction("encrypt_aes_compressed")
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptCompressedAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return encrypt(aesEncrypt, privateData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of a value compressed with LZ4 in the chosen AES mode.
+     * @param privateData VARCHAR, JSON or VARBINARY to be compressed and encrypted.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @param mode AES mode, one of CBC, CTR or GCM.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Compresses a value with LZ4 and encrypts it using the given AES mode")
+    @ScalarFunction("encrypt_aes_compressed")
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptCompressedAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return encrypt(AESModes.encrypter(mode), privateData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES CBC decryption of values of encrypt_aes_compressed or encrypt_aes to VARCHAR.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts an AES value and decompresses it if it was compressed")
+    @ScalarFunction("decrypt_aes_compressed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptCompressedStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decrypt(decryptStats, aesDecrypt, secureData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES CBC decryption of values of encrypt_aes_compressed or encrypt_aes to VARBINARY.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted binary value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts an AES value and decompresses it if it was compressed")
+    @ScalarFunction("decrypt_aes_compressed_binary")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptCompressedBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decrypt(decryptBinaryStats, aesDecrypt, secureData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of values of encrypt_aes_compressed or encrypt_aes to VARCHAR in the chosen AES mode.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return Decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts an AES value using the given AES mode and decompresses it if it was compressed")
+    @ScalarFunction("decrypt_aes_compressed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptCompressedStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return decrypt(decryptStats, AESModes.decrypter(mode), secureData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of values of encrypt_aes_compressed or encrypt_aes to VARBINARY in the chosen AES mode.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return Decrypted binary value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts an AES value using the given AES mode and decompresses it if it was compressed")
+    @ScalarFunction("decrypt_aes_compressed_binary")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptCompressedBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return decrypt(decryptBinaryStats, AESModes.decrypter(mode), secureData, key, iv);
+    }
+
+    /**
+     * Compression and AES encryption of a Slice with call statistics.
+     * @param encrypter AESEncrypt of the chosen AES mode.
+     * @param privateData Slice to be compressed and encrypted.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @return AES encrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private static Slice encrypt(AESEncrypt encrypter, Slice privateData, Slice key, Slice iv) {
+        long start = encryptStats.start();
+        try {
+            return encryptStats.record(start, privateData, encrypter.sliceAES(CompressedPayload.compress(privateData), key, iv));
+        }
+        catch (RuntimeException e) {
+            encryptStats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * AES decryption and decompression of a Slice with call statistics.
+     * @param stats FunctionStats of the calling function.
+     * @param decrypter AESDecrypt of the chosen AES mode.
+     * @param secureData AES encrypted Slice to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private static Slice decrypt(FunctionStats stats, AESDecrypt decrypter, Slice secureData, Slice key, Slice iv) {
+        long start = stats.start();
+        try {
+            return stats.record(start, secureData, CompressedPayload.decompress(decrypter.cachedSliceAES(secureData, key, iv)));
+        }
+        catch (IllegalArgumentException e) {
+            stats.failed(start);
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, e.getMessage(), e);
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+}
@@ -2,12 +2,21 @@ package com.trinoudf.secret;
 
 import com.trinoudf.crypto.AESDecrypt;
 import com.trinoudf.global.Methods;
+import com.trinoudf.key.KeyGenerator;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
 import io.airlift.slice.Slice;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
 import io.trino.spi.function.Description;
 import io.trino.spi.function.ScalarFunction;
 import io.trino.spi.function.SqlType;
 import io.trino.spi.type.StandardTypes;
 
+import javax.crypto.spec.SecretKeySpec;
+
+import static io.trino.spi.type.VarcharType.VARCHAR;
+
 /**
  * ==Description==
  * <p>
@@ -22,6 +31,15 @@ import io.trino.spi.type.StandardTypes;
  *     <li>PrestoDecryptAES()</li>
  *     <li>decryptStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
  *     <li>decryptBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptStringAesRaw(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptBinaryAesRaw(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptIpAesRaw(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptUuidAesRaw(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptStringAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>decryptBinaryAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>decryptIpAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>decryptUuidAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>decryptArrayAes(@SqlType("array(varchar)") Block secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
  * </ul>
  *
  * @author koklim
@@ -29,6 +47,15 @@ import io.trino.spi.type.StandardTypes;
  */
 public final class TrinoDecryptAES {
     private static final AESDecrypt aesDecrypt = new AESDecrypt(Methods.CBC);
+    private static final FunctionStats decryptAesStats = PluginMetrics.function("decrypt_aes");
+    private static final FunctionStats decryptAesBinaryStats = PluginMetrics.function("decrypt_aes_binary");
+    private static final FunctionStats decryptAesIpStats = PluginMetrics.function("decrypt_aes_ip");
+    private static final FunctionStats decryptAesUuidStats = PluginMetrics.function("decrypt_aes_uuid");
+    private static final FunctionStats decryptAesRawStats = PluginMetrics.function("decrypt_aes_raw");
+    private static final FunctionStats decryptAesRawBinaryStats = PluginMetrics.function("decrypt_aes_raw_binary");
+    private static final FunctionStats decryptAesRawIpStats = PluginMetrics.function("decrypt_aes_raw_ip");
+    private static final FunctionStats decryptAesRawUuidStats = PluginMetrics.function("decrypt_aes_raw_uuid");
+    private static final FunctionStats decryptAesArrayStats = PluginMetrics.function("decrypt_aes_array");
 
     private TrinoDecryptAES() {
     }
@@ -45,7 +72,7 @@ public final class TrinoDecryptAES {
     @ScalarFunction("decrypt_aes")
     @SqlType(StandardTypes.VARCHAR)
     public static Slice decryptStringAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
-        return aesDecrypt.stringAES(secureData.toStringUtf8(), key.toStringUtf8(), iv.toStringUtf8());
+        return decrypt(decryptAesStats, aesDecrypt, secureData, key, iv);
     }
 
     /**
@@ -60,7 +87,7 @@ public final class TrinoDecryptAES {
     @ScalarFunction("decrypt_aes_binary")
     @SqlType(StandardTypes.VARBINARY)
     public static Slice decryptBinaryAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
-        return aesDecrypt.byteBufferAES(secureData.toStringUtf8(), key.toStringUtf8(), iv.toStringUtf8());
+        return decrypt(decryptAesBinaryStats, aesDecrypt, secureData, key, iv);
     }
 
     /**
@@ -75,7 +102,7 @@ public final class TrinoDecryptAES {
     @ScalarFunction("decrypt_aes_ip")
     @SqlType(StandardTypes.IPADDRESS)
     public static Slice decryptIpAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
-        Slice decrypted = aesDecrypt.byteBufferAES(secureData.toStringUtf8(), key.toStringUtf8(), iv.toStringUtf8());
+        Slice decrypted = decrypt(decryptAesIpStats, aesDecrypt, secureData, key, iv);
         return decrypted.slice(0, 16);
     }
 
@@ -91,7 +118,213 @@ public final class TrinoDecryptAES {
     @ScalarFunction("decrypt_aes_uuid")
     @SqlType(StandardTypes.UUID)
     public static Slice decryptUuidAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
-        Slice decrypted = aesDecrypt.byteBufferAES(secureData.toStringUtf8(), key.toStringUtf8(), iv.toStringUtf8());
+        Slice decrypted = decrypt(decryptAesUuidStats, aesDecrypt, secureData, key, iv);
+        return decrypted.slice(0, 16);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of raw AES encrypted VARBINARY into a String.
+     * @param secureData AES encrypted VARBINARY to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return AES decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a raw AES ciphertext to a string")
+    @ScalarFunction("decrypt_aes_raw")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptStringAesRaw(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decryptRaw(decryptAesRawStats, aesDecrypt, secureData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of raw AES encrypted VARBINARY into Binary data type.
+     * @param secureData AES encrypted VARBINARY to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted binary value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a raw AES ciphertext to a binary")
+    @ScalarFunction("decrypt_aes_raw_binary")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptBinaryAesRaw(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decryptRaw(decryptAesRawBinaryStats, aesDecrypt, secureData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of raw AES encrypted VARBINARY into IPADDRESS data type.
+     * @param secureData AES encrypted VARBINARY to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted IPADDRESS value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a raw AES ciphertext to an IP address")
+    @ScalarFunction("decrypt_aes_raw_ip")
+    @SqlType(StandardTypes.IPADDRESS)
+    public static Slice decryptIpAesRaw(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice decrypted = decryptRaw(decryptAesRawIpStats, aesDecrypt, secureData, key, iv);
+        return decrypted.slice(0, 16);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of raw AES encrypted VARBINARY into UUID data type.
+     * @param secureData AES encrypted VARBINARY to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted UUID value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a raw AES ciphertext to a UUID")
+    @ScalarFunction("decrypt_aes_raw_uuid")
+    @SqlType(StandardTypes.UUID)
+    public static Slice decryptUuidAesRaw(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice decrypted = decryptRaw(decryptAesRawUuidStats, aesDecrypt, secureData, key, iv);
+        return decrypted.slice(0, 16);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted String with a chosen AES mode.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return AES decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a string using the given AES mode")
+    @ScalarFunction("decrypt_aes")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptStringAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return decrypt(decryptAesStats, AESModes.decrypter(mode), secureData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted Binary data type with a chosen AES mode.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return Decrypted binary value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a binary using the given AES mode")
+    @ScalarFunction("decrypt_aes_binary")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptBinaryAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return decrypt(decryptAesBinaryStats, AESModes.decrypter(mode), secureData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted IPADDRESS data type with a chosen AES mode.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return Decrypted IPADDRESS value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a IP address using the given AES mode")
+    @ScalarFunction("decrypt_aes_ip")
+    @SqlType(StandardTypes.IPADDRESS)
+    public static Slice decryptIpAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        Slice decrypted = decrypt(decryptAesIpStats, AESModes.decrypter(mode), secureData, key, iv);
+        return decrypted.slice(0, 16);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted UUID data type with a chosen AES mode.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return Decrypted UUID value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a UUID using the given AES mode")
+    @ScalarFunction("decrypt_aes_uuid")
+    @SqlType(StandardTypes.UUID)
+    public static Slice decryptUuidAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        Slice decrypted = decrypt(decryptAesUuidStats, AESModes.decrypter(mode), secureData, key, iv);
         return decrypted.slice(0, 16);
     }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of every element of an array of AES encrypted Strings.
+     * @param secureData Array of AES encrypted Strings to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Array of AES decrypted Strings, NULL elements stay NULL.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts every element of an array of strings using AES")
+    @ScalarFunction("decrypt_aes_array")
+    @SqlType("array(varchar)")
+    public static Block decryptArrayAes(@SqlType("array(varchar)") Block secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        long start = decryptAesArrayStats.start();
+        try {
+            SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
+
+            int positionCount = secureData.getPositionCount();
+            BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, positionCount);
+            for (int position = 0; position < positionCount; position++) {
+                if (secureData.isNull(position)) {
+                    blockBuilder.appendNull();
+                }
+                else {
+                    VARCHAR.writeSlice(blockBuilder, aesDecrypt.cachedSliceAES(VARCHAR.getSlice(secureData, position), skeySpec, iv));
+                }
+            }
+            Block decrypted = blockBuilder.build();
+            decryptAesArrayStats.record(start, secureData.getSizeInBytes(), decrypted.getSizeInBytes());
+            return decrypted;
+        }
+        catch (RuntimeException e) {
+            decryptAesArrayStats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * AES decryption of a Base64 encoded Slice with call statistics.
+     * @param stats FunctionStats of the calling SQL function.
+     * @param decrypter AESDecrypt of the AES mode the value was encrypted with.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private static Slice decrypt(FunctionStats stats, AESDecrypt decrypter, Slice secureData, Slice key, Slice iv) {
+        long start = stats.start();
+        try {
+            return stats.record(start, secureData, decrypter.cachedSliceAES(secureData, key, iv));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * AES decryption of a raw ciphertext Slice with call statistics.
+     * @param stats FunctionStats of the calling SQL function.
+     * @param decrypter AESDecrypt of the AES mode the value was encrypted with.
+     * @param secureData AES encrypted Slice without Base64 encoding.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private static Slice decryptRaw(FunctionStats stats, AESDecrypt decrypter, Slice secureData, Slice key, Slice iv) {
+        long start = stats.start();
+        try {
+            return stats.record(start, secureData, decrypter.cachedRawSliceAES(secureData, key, iv));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
 }
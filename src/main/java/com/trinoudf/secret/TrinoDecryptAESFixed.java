@@ -0,0 +1,238 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESDecrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import static com.trinoudf.secret.TrinoEncryptAESFixed.TAG_BIGINT;
+import static com.trinoudf.secret.TrinoEncryptAESFixed.TAG_BOOLEAN;
+import static com.trinoudf.secret.TrinoEncryptAESFixed.TAG_DATE;
+import static com.trinoudf.secret.TrinoEncryptAESFixed.TAG_DOUBLE;
+import static com.trinoudf.secret.TrinoEncryptAESFixed.TAG_INTEGER;
+import static com.trinoudf.secret.TrinoEncryptAESFixed.TAG_REAL;
+import static com.trinoudf.secret.TrinoEncryptAESFixed.TAG_SMALLINT;
+import static com.trinoudf.secret.TrinoEncryptAESFixed.TAG_TIMESTAMP;
+import static com.trinoudf.secret.TrinoEncryptAESFixed.TAG_TINYINT;
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES decryption methods for PrestoSQL returning values encrypted by encrypt_aes_fixed() as their native type,
+ *     without parsing a decimal String. The type tag of the payload must match the function, integer types also decrypt
+ *     to wider integer types, e.g. a SMALLINT with decrypt_aes_integer().
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>decryptBigintAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptIntegerAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptRealAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptDoubleAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptBooleanAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptDateAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptTimestampAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoDecryptAESFixed {
+    private static final AESDecrypt aesDecrypt = new AESDecrypt(Methods.CBC);
+    private static final FunctionStats decryptAesBigintStats = PluginMetrics.function("decrypt_aes_bigint");
+    private static final FunctionStats decryptAesIntegerStats = PluginMetrics.function("decrypt_aes_integer");
+    private static final FunctionStats decryptAesRealStats = PluginMetrics.function("decrypt_aes_real");
+    private static final FunctionStats decryptAesDoubleStats = PluginMetrics.function("decrypt_aes_double");
+    private static final FunctionStats decryptAesBooleanStats = PluginMetrics.function("decrypt_aes_boolean");
+    private static final FunctionStats decryptAesDateStats = PluginMetrics.function("decrypt_aes_date");
+    private static final FunctionStats decryptAesTimestampStats = PluginMetrics.function("decrypt_aes_timestamp");
+
+    private TrinoDecryptAESFixed() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of a BIGINT encrypted with encrypt_aes_fixed.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted BIGINT value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a BIGINT encrypted with encrypt_aes_fixed")
+    @ScalarFunction("decrypt_aes_bigint")
+    @SqlType(StandardTypes.BIGINT)
+    public static long decryptBigintAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return integral(decrypt(decryptAesBigintStats, secureData, key, iv, "BIGINT", TAG_BIGINT, TAG_INTEGER, TAG_SMALLINT, TAG_TINYINT));
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of a INTEGER encrypted with encrypt_aes_fixed.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted INTEGER value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a INTEGER encrypted with encrypt_aes_fixed")
+    @ScalarFunction("decrypt_aes_integer")
+    @SqlType(StandardTypes.INTEGER)
+    public static long decryptIntegerAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return integral(decrypt(decryptAesIntegerStats, secureData, key, iv, "INTEGER", TAG_INTEGER, TAG_SMALLINT, TAG_TINYINT));
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of a REAL encrypted with encrypt_aes_fixed.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted REAL value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a REAL encrypted with encrypt_aes_fixed")
+    @ScalarFunction("decrypt_aes_real")
+    @SqlType(StandardTypes.REAL)
+    public static long decryptRealAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decrypt(decryptAesRealStats, secureData, key, iv, "REAL", TAG_REAL).getInt(1);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of a DOUBLE encrypted with encrypt_aes_fixed.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted DOUBLE value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a DOUBLE encrypted with encrypt_aes_fixed")
+    @ScalarFunction("decrypt_aes_double")
+    @SqlType(StandardTypes.DOUBLE)
+    public static double decryptDoubleAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return Double.longBitsToDouble(decrypt(decryptAesDoubleStats, secureData, key, iv, "DOUBLE", TAG_DOUBLE).getLong(1));
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of a BOOLEAN encrypted with encrypt_aes_fixed.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted BOOLEAN value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a BOOLEAN encrypted with encrypt_aes_fixed")
+    @ScalarFunction("decrypt_aes_boolean")
+    @SqlType(StandardTypes.BOOLEAN)
+    public static boolean decryptBooleanAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decrypt(decryptAesBooleanStats, secureData, key, iv, "BOOLEAN", TAG_BOOLEAN).getByte(1) != 0;
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of a DATE encrypted with encrypt_aes_fixed.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted DATE value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a DATE encrypted with encrypt_aes_fixed")
+    @ScalarFunction("decrypt_aes_date")
+    @SqlType(StandardTypes.DATE)
+    public static long decryptDateAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decrypt(decryptAesDateStats, secureData, key, iv, "DATE", TAG_DATE).getInt(1);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of a TIMESTAMP encrypted with encrypt_aes_fixed.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted TIMESTAMP value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a TIMESTAMP encrypted with encrypt_aes_fixed")
+    @ScalarFunction("decrypt_aes_timestamp")
+    @SqlType("timestamp(6)")
+    public static long decryptTimestampAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decrypt(decryptAesTimestampStats, secureData, key, iv, "TIMESTAMP", TAG_TIMESTAMP).getLong(1);
+    }
+
+    /**
+     * AES decryption of a tagged fixed width encoded value with call statistics.
+     * @param stats FunctionStats of the calling SQL function.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param typeName SQL type name for the error message.
+     * @param tags Type tags the calling function accepts.
+     * @return Decrypted Slice of the type tag and the value.
+     * @throws TrinoException If the decrypted value was not encrypted with encrypt_aes_fixed from a value of an accepted type.
+     * @author Wong Kok-Lim
+     */
+    private static Slice decrypt(FunctionStats stats, Slice secureData, Slice key, Slice iv, String typeName, byte... tags) {
+        long start = stats.start();
+        try {
+            Slice decrypted = aesDecrypt.sliceAES(secureData, key, iv);
+            if (decrypted.length() == 0 || !accepts(tags, decrypted.getByte(0)) || decrypted.length() != 1 + width(decrypted.getByte(0))) {
+                throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "Decrypted value is not a " + typeName + " encrypted with encrypt_aes_fixed");
+            }
+            return stats.record(start, secureData, decrypted);
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a tagged BIGINT, INTEGER, SMALLINT or TINYINT value as long.
+     * @param payload Decrypted Slice of the type tag and the value.
+     * @return Sign extended value.
+     * @author Wong Kok-Lim
+     */
+    private static long integral(Slice payload) {
+        switch (payload.getByte(0)) {
+            case TAG_BIGINT:
+                return payload.getLong(1);
+            case TAG_INTEGER:
+                return payload.getInt(1);
+            case TAG_SMALLINT:
+                return payload.getShort(1);
+            default:
+                return payload.getByte(1);
+        }
+    }
+
+    private static boolean accepts(byte[] tags, byte tag) {
+        for (byte accepted : tags) {
+            if (accepted == tag) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int width(byte tag) {
+        switch (tag) {
+            case TAG_BIGINT:
+            case TAG_DOUBLE:
+            case TAG_TIMESTAMP:
+                return Long.BYTES;
+            case TAG_INTEGER:
+            case TAG_REAL:
+            case TAG_DATE:
+                return Integer.BYTES;
+            case TAG_SMALLINT:
+                return Short.BYTES;
+            default:
+                return Byte.BYTES;
+        }
+    }
+}
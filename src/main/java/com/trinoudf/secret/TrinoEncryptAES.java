@@ -2,11 +2,13 @@ package com.trinoudf.secret;
 
 import com.trinoudf.crypto.AESEncrypt;
 import com.trinoudf.global.Methods;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
 import io.airlift.slice.Slice;
 import io.trino.spi.function.*;
 import io.trino.spi.type.StandardTypes;
 
-import java.nio.ByteBuffer;
+import static io.airlift.slice.Slices.utf8Slice;
 
 /**
  * ==Description==
@@ -33,6 +35,7 @@ import java.nio.ByteBuffer;
 @Description("Encrypts a string using cipher")
 public final class TrinoEncryptAES {
     private static final AESEncrypt aesEncrypt = new AESEncrypt(Methods.CBC);
+    private static final FunctionStats stats = PluginMetrics.function("encrypt_aes");
 
     private TrinoEncryptAES() {
     }
@@ -49,7 +52,7 @@ public final class TrinoEncryptAES {
     @TypeParameter("V")
     @SqlType(StandardTypes.VARCHAR)
     public static Slice encryptDoubleAES(@SqlNullable @SqlType("T") Double privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv) {
-        return aesEncrypt.stringAES(privateData.toString(), key.toStringUtf8(), iv.toStringUtf8());
+        return encrypt(aesEncrypt, utf8Slice(privateData.toString()), key, iv);
     }
 
     /**
@@ -65,7 +68,7 @@ public final class TrinoEncryptAES {
     @TypeParameter("V")
     @SqlType(StandardTypes.VARCHAR)
     public static Slice encryptLongAES(@SqlNullable @SqlType("T") Long privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv) {
-        return aesEncrypt.stringAES(privateData.toString(), key.toStringUtf8(), iv.toStringUtf8());
+        return encrypt(aesEncrypt, utf8Slice(privateData.toString()), key, iv);
     }
 
     /**
@@ -81,7 +84,7 @@ public final class TrinoEncryptAES {
     @TypeParameter("V")
     @SqlType(StandardTypes.VARCHAR)
     public static Slice encryptBoolAES(@SqlNullable @SqlType("T") Boolean privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv) {
-        return aesEncrypt.stringAES(privateData.toString(), key.toStringUtf8(), iv.toStringUtf8());
+        return encrypt(aesEncrypt, utf8Slice(privateData.toString()), key, iv);
     }
 
     /**
@@ -97,6 +100,26 @@ public final class TrinoEncryptAES {
     @TypeParameter("V")
     @SqlType(StandardTypes.VARCHAR)
     public static Slice encryptBinaryAES(@SqlNullable @SqlType("T") Slice privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv) {
-        return aesEncrypt.byteBufferAES(ByteBuffer.wrap(privateData.getBytes()), key.toStringUtf8(), iv.toStringUtf8());
+        return encrypt(aesEncrypt, privateData, key, iv);
+    }
+
+    /**
+     * AES encryption of a Slice with call statistics.
+     * @param encrypter AESEncrypt of the chosen AES mode.
+     * @param privateData Slice to be encrypted.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    static Slice encrypt(AESEncrypt encrypter, Slice privateData, Slice key, Slice iv) {
+        long start = stats.start();
+        try {
+            return stats.record(start, privateData, encrypter.sliceAES(privateData, key, iv));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
     }
 }
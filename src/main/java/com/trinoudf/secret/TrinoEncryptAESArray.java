@@ -0,0 +1,110 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.key.KeyGenerator;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.function.*;
+import io.trino.spi.type.StandardTypes;
+import io.trino.spi.type.Type;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.StandardErrorCode.NOT_SUPPORTED;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES Encryption of array elements for PrestoSQL.
+ *     The key is derived once per array and every element is written straight into the result BlockBuilder.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated.</p>
+ * <ul>
+ *     <li>PrestoEncryptAESArray()</li>
+ *     <li>encryptArrayAES(@TypeParameter("T") Type elementType, @SqlType("array(T)") Block privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+@ScalarFunction("encrypt_aes_array")
+@Description("Encrypts every element of an array using AES")
+public final class TrinoEncryptAESArray {
+    private static final AESEncrypt aesEncrypt = new AESEncrypt(Methods.CBC);
+    private static final FunctionStats stats = PluginMetrics.function("encrypt_aes_array");
+
+    private TrinoEncryptAESArray() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of every element of an array.
+     * Elements are encrypted exactly like encrypt_aes encrypts a single value of the element type.
+     * @param elementType Type of the array elements.
+     * @param privateData Array to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @return Array of AES encrypted Strings, NULL elements stay NULL.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType("array(varchar)")
+    public static Block encryptArrayAES(@TypeParameter("T") Type elementType, @SqlType("array(T)") Block privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        long start = stats.start();
+        try {
+            SecretKeySpec skeySpec = KeyGenerator.aesShaKeySpecGenerator(key);
+
+            int positionCount = privateData.getPositionCount();
+            BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, positionCount);
+            for (int position = 0; position < positionCount; position++) {
+                if (privateData.isNull(position)) {
+                    blockBuilder.appendNull();
+                }
+                else {
+                    VARCHAR.writeSlice(blockBuilder, aesEncrypt.sliceAES(elementSlice(elementType, privateData, position), skeySpec, iv));
+                }
+            }
+            Block encrypted = blockBuilder.build();
+            stats.record(start, privateData.getSizeInBytes(), encrypted.getSizeInBytes());
+            return encrypted;
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Slice of an array element, using the same representation as the scalar encrypt_aes overloads.
+     * @param elementType Type of the array elements.
+     * @param block Array Block.
+     * @param position Position of the element in the Block.
+     * @return Element Slice to be encrypted.
+     * @author Wong Kok-Lim
+     */
+    private static Slice elementSlice(Type elementType, Block block, int position) {
+        Class<?> javaType = elementType.getJavaType();
+        if (javaType == Slice.class) {
+            return elementType.getSlice(block, position);
+        }
+        if (javaType == long.class) {
+            return utf8Slice(Long.toString(elementType.getLong(block, position)));
+        }
+        if (javaType == double.class) {
+            return utf8Slice(Double.toString(elementType.getDouble(block, position)));
+        }
+        if (javaType == boolean.class) {
+            return utf8Slice(Boolean.toString(elementType.getBoolean(block, position)));
+        }
+        throw new TrinoException(NOT_SUPPORTED, "encrypt_aes_array does not support arrays of " + elementType.getDisplayName());
+    }
+}
@@ -0,0 +1,248 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.trino.spi.function.*;
+import io.trino.spi.type.StandardTypes;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES Encryption methods for PrestoSQL encrypting numeric, boolean and temporal values in a fixed width binary encoding
+ *     instead of their decimal String. The payload is a one byte type tag followed by the value in its natural width,
+ *     little endian: BIGINT, DOUBLE and TIMESTAMP 8 bytes, INTEGER, REAL and DATE 4 bytes, SMALLINT 2 bytes,
+ *     TINYINT and BOOLEAN 1 byte. TIMESTAMP values of precision up to 6 are encrypted as TIMESTAMP(6) in microseconds.
+ *     Other types such as DECIMAL, TIME or INTERVAL have no overload and must be cast first.
+ *     The values are decrypted back to their type by the TrinoDecryptAESFixed functions, e.g. decrypt_aes_bigint(),
+ *     which check the type tag.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated.</p>
+ * <ul>
+ *     <li>PrestoEncryptAESFixed()</li>
+ *     <li>encryptBigintAESFixed(@SqlType(StandardTypes.BIGINT) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>encryptIntegerAESFixed(@SqlType(StandardTypes.INTEGER) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>encryptSmallintAESFixed(@SqlType(StandardTypes.SMALLINT) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>encryptTinyintAESFixed(@SqlType(StandardTypes.TINYINT) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>encryptRealAESFixed(@SqlType(StandardTypes.REAL) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>encryptDoubleAESFixed(@SqlType(StandardTypes.DOUBLE) double privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>encryptBoolAESFixed(@SqlType(StandardTypes.BOOLEAN) boolean privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>encryptDateAESFixed(@SqlType(StandardTypes.DATE) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>encryptTimestampAESFixed(@SqlType("timestamp(6)") long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoEncryptAESFixed {
+    static final byte TAG_BIGINT = 1;
+    static final byte TAG_INTEGER = 2;
+    static final byte TAG_SMALLINT = 3;
+    static final byte TAG_TINYINT = 4;
+    static final byte TAG_REAL = 5;
+    static final byte TAG_DOUBLE = 6;
+    static final byte TAG_BOOLEAN = 7;
+    static final byte TAG_DATE = 8;
+    static final byte TAG_TIMESTAMP = 9;
+
+    private static final AESEncrypt aesEncrypt = new AESEncrypt(Methods.CBC);
+    private static final FunctionStats stats = PluginMetrics.function("encrypt_aes_fixed");
+    // the encrypter only reads the payload, so every thread can reuse one buffer
+    private static final ThreadLocal<Slice> fixedWidthBuffer = ThreadLocal.withInitial(() -> Slices.allocate(1 + Long.BYTES));
+
+    private TrinoEncryptAESFixed() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of BIGINT values.
+     * @param privateData BigInt to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a numeric, boolean or temporal value in its fixed width binary encoding using AES")
+    @ScalarFunction("encrypt_aes_fixed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBigintAESFixed(@SqlType(StandardTypes.BIGINT) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice buffer = payload(TAG_BIGINT);
+        buffer.setLong(1, privateData);
+        return encrypt(buffer, Long.BYTES, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of INTEGER values.
+     * @param privateData Integer to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a numeric, boolean or temporal value in its fixed width binary encoding using AES")
+    @ScalarFunction("encrypt_aes_fixed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptIntegerAESFixed(@SqlType(StandardTypes.INTEGER) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice buffer = payload(TAG_INTEGER);
+        buffer.setInt(1, (int) privateData);
+        return encrypt(buffer, Integer.BYTES, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of SMALLINT values.
+     * @param privateData SmallInt to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a numeric, boolean or temporal value in its fixed width binary encoding using AES")
+    @ScalarFunction("encrypt_aes_fixed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptSmallintAESFixed(@SqlType(StandardTypes.SMALLINT) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice buffer = payload(TAG_SMALLINT);
+        buffer.setShort(1, (short) privateData);
+        return encrypt(buffer, Short.BYTES, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of TINYINT values.
+     * @param privateData TinyInt to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a numeric, boolean or temporal value in its fixed width binary encoding using AES")
+    @ScalarFunction("encrypt_aes_fixed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptTinyintAESFixed(@SqlType(StandardTypes.TINYINT) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice buffer = payload(TAG_TINYINT);
+        buffer.setByte(1, (byte) privateData);
+        return encrypt(buffer, Byte.BYTES, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of REAL values.
+     * @param privateData Real to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a numeric, boolean or temporal value in its fixed width binary encoding using AES")
+    @ScalarFunction("encrypt_aes_fixed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptRealAESFixed(@SqlType(StandardTypes.REAL) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        // REAL is carried as the int bits of the float in a long
+        Slice buffer = payload(TAG_REAL);
+        buffer.setInt(1, (int) privateData);
+        return encrypt(buffer, Integer.BYTES, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of DOUBLE values.
+     * @param privateData Double to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a numeric, boolean or temporal value in its fixed width binary encoding using AES")
+    @ScalarFunction("encrypt_aes_fixed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptDoubleAESFixed(@SqlType(StandardTypes.DOUBLE) double privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice buffer = payload(TAG_DOUBLE);
+        buffer.setLong(1, Double.doubleToRawLongBits(privateData));
+        return encrypt(buffer, Long.BYTES, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of BOOLEAN values.
+     * @param privateData Boolean to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a numeric, boolean or temporal value in its fixed width binary encoding using AES")
+    @ScalarFunction("encrypt_aes_fixed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBoolAESFixed(@SqlType(StandardTypes.BOOLEAN) boolean privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice buffer = payload(TAG_BOOLEAN);
+        buffer.setByte(1, privateData ? 1 : 0);
+        return encrypt(buffer, Byte.BYTES, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of DATE values.
+     * @param privateData Date to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a numeric, boolean or temporal value in its fixed width binary encoding using AES")
+    @ScalarFunction("encrypt_aes_fixed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptDateAESFixed(@SqlType(StandardTypes.DATE) long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice buffer = payload(TAG_DATE);
+        buffer.setInt(1, (int) privateData);
+        return encrypt(buffer, Integer.BYTES, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of TIMESTAMP values.
+     * @param privateData Timestamp in microseconds to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a numeric, boolean or temporal value in its fixed width binary encoding using AES")
+    @ScalarFunction("encrypt_aes_fixed")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptTimestampAESFixed(@SqlType("timestamp(6)") long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        Slice buffer = payload(TAG_TIMESTAMP);
+        buffer.setLong(1, privateData);
+        return encrypt(buffer, Long.BYTES, key, iv);
+    }
+
+    /**
+     * Returns the calling thread's payload buffer with the type tag written.
+     * @param tag Type tag of the value.
+     * @return Payload buffer Slice.
+     * @author Wong Kok-Lim
+     */
+    private static Slice payload(byte tag) {
+        Slice buffer = fixedWidthBuffer.get();
+        buffer.setByte(0, tag);
+        return buffer;
+    }
+
+    /**
+     * AES encryption of a tagged fixed width encoded value with call statistics.
+     * @param buffer Payload buffer holding the type tag and the value.
+     * @param width Width of the encoded value in bytes.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    private static Slice encrypt(Slice buffer, int width, Slice key, Slice iv) {
+        Slice privateData = buffer.slice(0, 1 + width);
+        long start = stats.start();
+        try {
+            return stats.record(start, privateData, aesEncrypt.sliceAES(privateData, key, iv));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.trinoudf.secret;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.function.*;
+import io.trino.spi.type.StandardTypes;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES Encryption methods for PrestoSQL with a chosen AES mode, the four argument form of encrypt_aes().
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated.</p>
+ * <ul>
+ *     <li>TrinoEncryptAESMode()</li>
+ *     <li>encryptDoubleAES(@SqlNullable @SqlType("T") Double privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>encryptLongAES(@SqlNullable @SqlType("T") Long privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>encryptBoolAES(@SqlNullable @SqlType("T") Boolean privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>encryptBinaryAES(@SqlNullable @SqlType("T") Slice privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ * </ul>
+ *
+ * @author koklim
+ */
+
+@ScalarFunction("encrypt_aes")
+@Description("Encrypts a string using cipher with the given AES mode")
+public final class TrinoEncryptAESMode {
+    private TrinoEncryptAESMode() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Strings with a chosen AES mode.
+     * @param privateData Double to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @param mode AES mode, one of CBC, CTR or GCM.
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @TypeParameter("U")
+    @TypeParameter("V")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptDoubleAES(@SqlNullable @SqlType("T") Double privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return TrinoEncryptAES.encrypt(AESModes.encrypter(mode), utf8Slice(privateData.toString()), key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Strings with a chosen AES mode.
+     * @param privateData Real, Integer, Decimal, TinyInt, SmallInt, BigInt, Date, Timestamp to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @param mode AES mode, one of CBC, CTR or GCM.
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @TypeParameter("U")
+    @TypeParameter("V")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptLongAES(@SqlNullable @SqlType("T") Long privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return TrinoEncryptAES.encrypt(AESModes.encrypter(mode), utf8Slice(privateData.toString()), key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Strings with a chosen AES mode.
+     * @param privateData Boolean to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @param mode AES mode, one of CBC, CTR or GCM.
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @TypeParameter("U")
+    @TypeParameter("V")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBoolAES(@SqlNullable @SqlType("T") Boolean privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return TrinoEncryptAES.encrypt(AESModes.encrypter(mode), utf8Slice(privateData.toString()), key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Binary Data with a chosen AES mode.
+     * @param privateData VARCHAR, IPADDRESS, UUID, JSON, CHAR, VARBINARY to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @param mode AES mode, one of CBC, CTR or GCM.
+     * @return AES Encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @TypeParameter("U")
+    @TypeParameter("V")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBinaryAES(@SqlNullable @SqlType("T") Slice privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return TrinoEncryptAES.encrypt(AESModes.encrypter(mode), privateData, key, iv);
+    }
+}
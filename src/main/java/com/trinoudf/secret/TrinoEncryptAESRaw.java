@@ -0,0 +1,126 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.function.*;
+import io.trino.spi.type.StandardTypes;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES Encryption methods for PrestoSQL returning the raw ciphertext as VARBINARY instead of Base64 text.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated.</p>
+ * <ul>
+ *     <li>PrestoEncryptAESRaw()</li>
+ *     <li>encryptDoubleAESRaw(@SqlNullable @SqlType("T") Double privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv)</li>
+ *     <li>encryptLongAESRaw(@SqlNullable @SqlType("T") Long privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv)</li>
+ *     <li>encryptBoolAESRaw(@SqlNullable @SqlType("T") Boolean privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv)</li>
+ *     <li>encryptBinaryAESRaw(@SqlNullable @SqlType("T") Slice privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+
+@ScalarFunction("encrypt_aes_raw")
+@Description("Encrypts a value using AES and returns the raw ciphertext")
+public final class TrinoEncryptAESRaw {
+    private static final AESEncrypt aesEncrypt = new AESEncrypt(Methods.CBC);
+    private static final FunctionStats stats = PluginMetrics.function("encrypt_aes_raw");
+
+    private TrinoEncryptAESRaw() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Double into raw ciphertext.
+     * @param privateData Double to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES encrypted VARBINARY.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @TypeParameter("U")
+    @TypeParameter("V")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice encryptDoubleAESRaw(@SqlNullable @SqlType("T") Double privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv) {
+        return encryptRaw(aesEncrypt, utf8Slice(privateData.toString()), key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Long into raw ciphertext.
+     * @param privateData Real, Integer, Decimal, TinyInt, SmallInt, BigInt, Date, Timestamp to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES encrypted VARBINARY.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @TypeParameter("U")
+    @TypeParameter("V")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice encryptLongAESRaw(@SqlNullable @SqlType("T") Long privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv) {
+        return encryptRaw(aesEncrypt, utf8Slice(privateData.toString()), key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Boolean into raw ciphertext.
+     * @param privateData Boolean to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption
+     * @return AES encrypted VARBINARY.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @TypeParameter("U")
+    @TypeParameter("V")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice encryptBoolAESRaw(@SqlNullable @SqlType("T") Boolean privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv) {
+        return encryptRaw(aesEncrypt, utf8Slice(privateData.toString()), key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Binary Data into raw ciphertext.
+     * @param privateData VARCHAR, IPADDRESS, UUID, JSON, CHAR, VARBINARY to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @return AES encrypted VARBINARY.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @TypeParameter("U")
+    @TypeParameter("V")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice encryptBinaryAESRaw(@SqlNullable @SqlType("T") Slice privateData, @SqlNullable @SqlType("U") Slice key, @SqlNullable @SqlType("V") Slice iv) {
+        return encryptRaw(aesEncrypt, privateData, key, iv);
+    }
+
+    /**
+     * AES encryption of a Slice with call statistics.
+     * @param encrypter AESEncrypt of the chosen AES mode.
+     * @param privateData Slice to be encrypted.
+     * @param key Key String to use for encryption.
+     * @param iv Initializer Vector to use for encryption.
+     * @return AES encrypted VARBINARY.
+     * @author Wong Kok-Lim
+     */
+    private static Slice encryptRaw(AESEncrypt encrypter, Slice privateData, Slice key, Slice iv) {
+        long start = stats.start();
+        try {
+            return stats.record(start, privateData, encrypter.rawSliceAES(privateData, key, iv));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+}
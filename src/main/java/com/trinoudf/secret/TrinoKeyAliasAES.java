@@ -0,0 +1,104 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESDecrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.key.KeyRegistry;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES CBC decryption methods for PrestoSQL with keys from the KeyRegistry, for the values encrypted by
+ *     encrypt_aes_k(value, alias) of TrinoKeyAliasEncryptAES. The key never appears in the query text and is not derived per row.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>decryptStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice alias)</li>
+ *     <li>decryptBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice alias)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoKeyAliasAES {
+    private static final AESDecrypt aesDecrypt = new AESDecrypt(Methods.CBC);
+    private static final FunctionStats decryptAesKStats = PluginMetrics.function("decrypt_aes_k");
+    private static final FunctionStats decryptAesKBinaryStats = PluginMetrics.function("decrypt_aes_k_binary");
+
+    private TrinoKeyAliasAES() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption with a key alias.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param alias Alias of the key in the keystore.
+     * @return AES decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES with a keystore key alias")
+    @ScalarFunction("decrypt_aes_k")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice alias) {
+        return decrypt(decryptAesKStats, secureData, alias);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption to VARBINARY with a key alias.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param alias Alias of the key in the keystore.
+     * @return Decrypted binary value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES with a keystore key alias")
+    @ScalarFunction("decrypt_aes_k_binary")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice alias) {
+        return decrypt(decryptAesKBinaryStats, secureData, alias);
+    }
+
+    /**
+     * AES decryption with the key of an alias with call statistics.
+     * @param stats FunctionStats of the calling SQL function.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param alias Alias of the key in the keystore.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private static Slice decrypt(FunctionStats stats, Slice secureData, Slice alias) {
+        KeyRegistry.Entry entry = lookup(alias);
+        long start = stats.start();
+        try {
+            return stats.record(start, secureData, aesDecrypt.cachedSliceAES(secureData, entry.getKey(), entry.getIv()));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Key and Initialize Vector of an alias.
+     * @param alias Alias of the key in the keystore.
+     * @return KeyRegistry entry of the alias.
+     * @author Wong Kok-Lim
+     */
+    static KeyRegistry.Entry lookup(Slice alias) {
+        KeyRegistry.Entry entry = KeyRegistry.get().lookup(alias);
+        if (entry == null) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "Unknown key alias: " + alias.toStringUtf8());
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,119 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.key.KeyRegistry;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.function.TypeParameter;
+import io.trino.spi.type.StandardTypes;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES CBC encryption methods for PrestoSQL with keys from the KeyRegistry.
+ *     encrypt_aes_k(value, alias) produces the same ciphertext as encrypt_aes(value, key, iv) with the alias' key and
+ *     Initialize Vector, but the key never appears in the query text and is not derived per row.
+ *     The values are decrypted by the TrinoKeyAliasAES functions.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encryptDoubleAES(@SqlType("T") double privateData, @SqlType(StandardTypes.VARCHAR) Slice alias)</li>
+ *     <li>encryptLongAES(@SqlType("T") long privateData, @SqlType(StandardTypes.VARCHAR) Slice alias)</li>
+ *     <li>encryptBoolAES(@SqlType("T") boolean privateData, @SqlType(StandardTypes.VARCHAR) Slice alias)</li>
+ *     <li>encryptBinaryAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice alias)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+
+@ScalarFunction("encrypt_aes_k")
+@Description("Encrypts a value using AES with a keystore key alias")
+public final class TrinoKeyAliasEncryptAES {
+    private static final AESEncrypt aesEncrypt = new AESEncrypt(Methods.CBC);
+    private static final FunctionStats stats = PluginMetrics.function("encrypt_aes_k");
+
+    private TrinoKeyAliasEncryptAES() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Doubles with a key alias.
+     * @param privateData Double to be encrypted with AES.
+     * @param alias Alias of the key in the keystore.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptDoubleAES(@SqlType("T") double privateData, @SqlType(StandardTypes.VARCHAR) Slice alias) {
+        return encrypt(utf8Slice(Double.toString(privateData)), alias);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of 8 byte values with a key alias.
+     * @param privateData Real, Integer, TinyInt, SmallInt, BigInt, Date, Timestamp to be encrypted with AES.
+     * @param alias Alias of the key in the keystore.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptLongAES(@SqlType("T") long privateData, @SqlType(StandardTypes.VARCHAR) Slice alias) {
+        return encrypt(utf8Slice(Long.toString(privateData)), alias);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Booleans with a key alias.
+     * @param privateData Boolean to be encrypted with AES.
+     * @param alias Alias of the key in the keystore.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBoolAES(@SqlType("T") boolean privateData, @SqlType(StandardTypes.VARCHAR) Slice alias) {
+        return encrypt(utf8Slice(Boolean.toString(privateData)), alias);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Binary Data with a key alias.
+     * @param privateData VARCHAR, IPADDRESS, UUID, JSON, CHAR, VARBINARY to be encrypted with AES.
+     * @param alias Alias of the key in the keystore.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBinaryAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice alias) {
+        return encrypt(privateData, alias);
+    }
+
+    /**
+     * AES encryption with the key of an alias with call statistics.
+     * @param privateData Slice to be encrypted.
+     * @param alias Alias of the key in the keystore.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    private static Slice encrypt(Slice privateData, Slice alias) {
+        KeyRegistry.Entry entry = TrinoKeyAliasAES.lookup(alias);
+        long start = stats.start();
+        try {
+            return stats.record(start, privateData, aesEncrypt.sliceAES(privateData, entry.getKey(), entry.getIv()));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+}
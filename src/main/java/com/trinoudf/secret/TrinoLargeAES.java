@@ -0,0 +1,128 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.ParallelCTR;
+import com.trinoudf.key.KeyGenerator;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.function.TypeParameter;
+import io.trino.spi.type.StandardTypes;
+
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES CTR encryption methods for PrestoSQL, for very large VARCHAR and VARBINARY values such as documents or model blobs.
+ *     Values above the configured threshold are split into segments that are encrypted and decrypted in parallel, see ParallelCTR.
+ *     The raw VARBINARY ciphertext is a random 16 byte nonce followed by the AES CTR ciphertext of the whole value,
+ *     so equal values encrypt differently and a value decrypts whatever the segment size or parallelism.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encryptLargeAes(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptLargeStringAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>decryptLargeBinaryAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoLargeAES {
+    private static final FunctionStats encryptAesLargeStats = PluginMetrics.function("encrypt_aes_large");
+    private static final FunctionStats decryptAesLargeStats = PluginMetrics.function("decrypt_aes_large");
+    private static final FunctionStats decryptAesLargeBinaryStats = PluginMetrics.function("decrypt_aes_large_binary");
+
+    private TrinoLargeAES() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES CTR encryption of a large value.
+     * @param value VARCHAR or VARBINARY to be encrypted.
+     * @param key Key String to use for encryption.
+     * @param iv 16 character Initializer Vector to use for encryption.
+     * @return Nonce and raw AES CTR ciphertext.
+     * @author Wong Kok-Lim
+     */
+    @Description("Encrypts a large value using AES CTR in parallel segments")
+    @ScalarFunction("encrypt_aes_large")
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice encryptLargeAes(@SqlType("T") Slice value, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        long start = encryptAesLargeStats.start();
+        try {
+            Slice ciphertext = ParallelCTR.get().encrypt(value, KeyGenerator.aesShaKeySpecGenerator(key), iv);
+            return encryptAesLargeStats.record(start, value, ciphertext);
+        }
+        catch (IllegalArgumentException e) {
+            encryptAesLargeStats.failed(start);
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, e.getMessage(), e);
+        }
+        catch (RuntimeException e) {
+            encryptAesLargeStats.failed(start);
+            throw e;
+        }
+    }
+
+    /**
+     * PrestoSQL user defined function for AES CTR decryption of a large value to VARCHAR.
+     * @param secureData Nonce and raw AES CTR ciphertext to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv 16 character Initializer Vector to use for decryption.
+     * @return Decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a large AES CTR value in parallel segments")
+    @ScalarFunction("decrypt_aes_large")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptLargeStringAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decrypt(decryptAesLargeStats, secureData, key, iv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES CTR decryption of a large value to VARBINARY.
+     * @param secureData Nonce and raw AES CTR ciphertext to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv 16 character Initializer Vector to use for decryption.
+     * @return Decrypted binary value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a large AES CTR value in parallel segments")
+    @ScalarFunction("decrypt_aes_large_binary")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptLargeBinaryAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return decrypt(decryptAesLargeBinaryStats, secureData, key, iv);
+    }
+
+    /**
+     * AES CTR decryption of a large value with call statistics.
+     * @param stats FunctionStats of the calling function.
+     * @param secureData Nonce and raw AES CTR ciphertext to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private static Slice decrypt(FunctionStats stats, Slice secureData, Slice key, Slice iv) {
+        long start = stats.start();
+        try {
+            Slice plaintext = ParallelCTR.get().decrypt(secureData, KeyGenerator.aesShaKeySpecGenerator(key), iv);
+            return stats.record(start, secureData, plaintext);
+        }
+        catch (IllegalArgumentException e) {
+            stats.failed(start);
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, e.getMessage(), e);
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.function.AggregationFunction;
+import io.trino.spi.function.AggregationState;
+import io.trino.spi.function.CombineFunction;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.InputFunction;
+import io.trino.spi.function.OutputFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+
+/**
+ * ==Description==
+ * <p>
+ *     PrestoSQL aggregation for the minimum of values encrypted by encrypt_aes(), the same as min(CAST(decrypt_aes(...) AS BIGINT)).
+ *     Decrypts every value without creating a plaintext Slice and keeps a primitive long per group.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>input(@AggregationState DecryptedLongState state, @SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>combine(@AggregationState DecryptedLongState state, @AggregationState DecryptedLongState otherState)</li>
+ *     <li>output(@AggregationState DecryptedLongState state, BlockBuilder out)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+@AggregationFunction("min_decrypt_aes")
+@Description("Minimum of AES encrypted BIGINT values")
+public final class TrinoMinDecryptAES {
+    private static final FunctionStats stats = PluginMetrics.function("min_decrypt_aes");
+
+    private TrinoMinDecryptAES() {
+    }
+
+    /**
+     * Adds the decrypted value of a row to the group's state.
+     * @param state Accumulator state of the group.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @author Wong Kok-Lim
+     */
+    @InputFunction
+    public static void input(@AggregationState DecryptedLongState state, @SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        accumulate(state, DecryptAggregations.decryptLong(stats, secureData, key, iv));
+    }
+
+    /**
+     * Merges the partial state of another worker or split into the state.
+     * @param state Accumulator state to merge into.
+     * @param otherState Accumulator state to merge from.
+     * @author Wong Kok-Lim
+     */
+    @CombineFunction
+    public static void combine(@AggregationState DecryptedLongState state, @AggregationState DecryptedLongState otherState) {
+        if (otherState.isPresent()) {
+            accumulate(state, otherState.getValue());
+        }
+    }
+
+    /**
+     * Writes the aggregation result of the state.
+     * @param state Accumulator state of the group.
+     * @param out BlockBuilder to write the result to.
+     * @author Wong Kok-Lim
+     */
+    @OutputFunction(StandardTypes.BIGINT)
+    public static void output(@AggregationState DecryptedLongState state, BlockBuilder out) {
+        if (state.isPresent()) {
+            BIGINT.writeLong(out, state.getValue());
+        }
+        else {
+            out.appendNull();
+        }
+    }
+
+    private static void accumulate(DecryptedLongState state, long value) {
+        if (!state.isPresent()) {
+            state.setValue(value);
+            state.setPresent(true);
+        }
+        else {
+            state.setValue(Math.min(state.getValue(), value));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESDecrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.key.KeyGenerator;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES decryption methods for PrestoSQL with a random Initialize Vector per row.
+ *     encrypt_aes_random_iv(value, key) of TrinoRandomIvEncryptAES generates a fresh Initialize Vector for every value
+ *     and stores it in front of the ciphertext, decrypt_aes_random_iv(value, key) reads it back, so equal values give
+ *     different ciphertexts and no Initialize Vector has to be passed. CBC by default, CTR and GCM through the optional
+ *     mode argument.
+ *     In GCM the random nonce already is in front of the ciphertext and no additional data is authenticated.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>decryptStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>decryptBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>decryptStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>decryptBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoRandomIvAES {
+    private static final AESDecrypt aesDecrypt = new AESDecrypt(Methods.CBC);
+    private static final FunctionStats decryptStats = PluginMetrics.function("decrypt_aes_random_iv");
+    private static final FunctionStats decryptBinaryStats = PluginMetrics.function("decrypt_aes_random_iv_binary");
+
+    private TrinoRandomIvAES() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of values of encrypt_aes_random_iv.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @return AES decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value of encrypt_aes_random_iv using the Initialize Vector stored in the ciphertext")
+    @ScalarFunction("decrypt_aes_random_iv")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return decrypt(decryptStats, aesDecrypt, secureData, key);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of values of encrypt_aes_random_iv to VARBINARY.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @return Decrypted binary value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value of encrypt_aes_random_iv using the Initialize Vector stored in the ciphertext")
+    @ScalarFunction("decrypt_aes_random_iv_binary")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return decrypt(decryptBinaryStats, aesDecrypt, secureData, key);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of values of encrypt_aes_random_iv in the chosen AES mode.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return AES decrypted String.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value of encrypt_aes_random_iv using the Initialize Vector stored in the ciphertext")
+    @ScalarFunction("decrypt_aes_random_iv")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice decryptStringAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return decrypt(decryptStats, AESModes.decrypter(mode), secureData, key);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of values of encrypt_aes_random_iv to VARBINARY in the chosen AES mode.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return Decrypted binary value.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value of encrypt_aes_random_iv using the Initialize Vector stored in the ciphertext")
+    @ScalarFunction("decrypt_aes_random_iv_binary")
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice decryptBinaryAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return decrypt(decryptBinaryStats, AESModes.decrypter(mode), secureData, key);
+    }
+
+    /**
+     * AES decryption with the Initialize Vector stored in the ciphertext with call statistics.
+     * @param stats FunctionStats of the calling SQL function.
+     * @param decrypter AESDecrypt of the AES mode the value was encrypted with.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @return Decrypted Slice.
+     * @author Wong Kok-Lim
+     */
+    private static Slice decrypt(FunctionStats stats, AESDecrypt decrypter, Slice secureData, Slice key) {
+        long start = stats.start();
+        try {
+            return stats.record(start, secureData, decrypter.randomIvSliceAES(secureData, KeyGenerator.aesShaKeySpecGenerator(key)));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+}
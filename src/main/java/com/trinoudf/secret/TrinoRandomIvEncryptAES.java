@@ -0,0 +1,119 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.key.KeyGenerator;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.function.TypeParameter;
+import io.trino.spi.type.StandardTypes;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES CBC encryption methods for PrestoSQL with a random Initialize Vector per row.
+ *     encrypt_aes_random_iv(value, key) generates a fresh Initialize Vector for every value and stores it in front of the
+ *     ciphertext, so equal values give different ciphertexts and no Initialize Vector has to be passed.
+ *     The values are decrypted by the TrinoRandomIvAES functions.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encryptDoubleAES(@SqlType("T") double privateData, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>encryptLongAES(@SqlType("T") long privateData, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>encryptBoolAES(@SqlType("T") boolean privateData, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ *     <li>encryptBinaryAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice key)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+
+@ScalarFunction("encrypt_aes_random_iv")
+@Description("Encrypts a value using AES with a random Initialize Vector stored in the ciphertext")
+public final class TrinoRandomIvEncryptAES {
+    private static final AESEncrypt aesEncrypt = new AESEncrypt(Methods.CBC);
+    private static final FunctionStats stats = PluginMetrics.function("encrypt_aes_random_iv");
+
+    private TrinoRandomIvEncryptAES() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Doubles with a random Initialize Vector.
+     * @param privateData Double to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptDoubleAES(@SqlType("T") double privateData, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return encrypt(aesEncrypt, utf8Slice(Double.toString(privateData)), key);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of 8 byte values with a random Initialize Vector.
+     * @param privateData Real, Integer, TinyInt, SmallInt, BigInt, Date, Timestamp to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptLongAES(@SqlType("T") long privateData, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return encrypt(aesEncrypt, utf8Slice(Long.toString(privateData)), key);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Booleans with a random Initialize Vector.
+     * @param privateData Boolean to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBoolAES(@SqlType("T") boolean privateData, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return encrypt(aesEncrypt, utf8Slice(Boolean.toString(privateData)), key);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Binary Data with a random Initialize Vector.
+     * @param privateData VARCHAR, IPADDRESS, UUID, JSON, CHAR, VARBINARY to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBinaryAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice key) {
+        return encrypt(aesEncrypt, privateData, key);
+    }
+
+    /**
+     * AES encryption under a random Initialize Vector with call statistics.
+     * @param encrypter AESEncrypt of the chosen AES mode.
+     * @param privateData Slice to be encrypted.
+     * @param key Key String to use for encryption.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    static Slice encrypt(AESEncrypt encrypter, Slice privateData, Slice key) {
+        long start = stats.start();
+        try {
+            return stats.record(start, privateData, encrypter.randomIvSliceAES(privateData, KeyGenerator.aesShaKeySpecGenerator(key)));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.trinoudf.secret;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.function.TypeParameter;
+import io.trino.spi.type.StandardTypes;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES encryption methods for PrestoSQL with a random Initialize Vector per row in a chosen AES mode,
+ *     the three argument form of encrypt_aes_random_iv(). CBC, CTR or GCM, encoded as by TrinoRandomIvEncryptAES.
+ *     In GCM the random nonce already is in front of the ciphertext and no additional data is authenticated.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>encryptDoubleAES(@SqlType("T") double privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>encryptLongAES(@SqlType("T") long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>encryptBoolAES(@SqlType("T") boolean privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>encryptBinaryAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+
+@ScalarFunction("encrypt_aes_random_iv")
+@Description("Encrypts a value using AES with a random Initialize Vector stored in the ciphertext")
+public final class TrinoRandomIvEncryptAESMode {
+    private TrinoRandomIvEncryptAESMode() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Doubles with a random Initialize Vector in the chosen AES mode.
+     * @param privateData Double to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param mode AES mode, one of CBC, CTR or GCM.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptDoubleAES(@SqlType("T") double privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return TrinoRandomIvEncryptAES.encrypt(AESModes.encrypter(mode), utf8Slice(Double.toString(privateData)), key);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of 8 byte values with a random Initialize Vector in the chosen AES mode.
+     * @param privateData Real, Integer, TinyInt, SmallInt, BigInt, Date, Timestamp to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param mode AES mode, one of CBC, CTR or GCM.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptLongAES(@SqlType("T") long privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return TrinoRandomIvEncryptAES.encrypt(AESModes.encrypter(mode), utf8Slice(Long.toString(privateData)), key);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Booleans with a random Initialize Vector in the chosen AES mode.
+     * @param privateData Boolean to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param mode AES mode, one of CBC, CTR or GCM.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBoolAES(@SqlType("T") boolean privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return TrinoRandomIvEncryptAES.encrypt(AESModes.encrypter(mode), utf8Slice(Boolean.toString(privateData)), key);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES encryption of Binary Data with a random Initialize Vector in the chosen AES mode.
+     * @param privateData VARCHAR, IPADDRESS, UUID, JSON, CHAR, VARBINARY to be encrypted with AES.
+     * @param key Key String to use for encryption.
+     * @param mode AES mode, one of CBC, CTR or GCM.
+     * @return AES encrypted String.
+     * @author Wong Kok-Lim
+     */
+    @TypeParameter("T")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice encryptBinaryAES(@SqlType("T") Slice privateData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return TrinoRandomIvEncryptAES.encrypt(AESModes.encrypter(mode), privateData, key);
+    }
+}
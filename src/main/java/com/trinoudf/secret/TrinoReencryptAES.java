@@ -0,0 +1,96 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESReencrypt;
+import com.trinoudf.global.Methods;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES key rotation method for PrestoSQL.
+ *     reencrypt_aes(value, old_key, old_iv, new_key, new_iv) gives the same result as
+ *     encrypt_aes(decrypt_aes(value, old_key, old_iv), new_key, new_iv) in one pass, without creating the plaintext
+ *     as VARCHAR, see AESReencrypt. CBC by default, CTR and GCM through the optional mode argument.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>reencryptAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice oldKey, @SqlType(StandardTypes.VARCHAR) Slice oldIv, @SqlType(StandardTypes.VARCHAR) Slice newKey, @SqlType(StandardTypes.VARCHAR) Slice newIv)</li>
+ *     <li>reencryptAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice oldKey, @SqlType(StandardTypes.VARCHAR) Slice oldIv, @SqlType(StandardTypes.VARCHAR) Slice newKey, @SqlType(StandardTypes.VARCHAR) Slice newIv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoReencryptAES {
+    private static final AESReencrypt aesReencrypt = new AESReencrypt(Methods.CBC);
+    private static final FunctionStats stats = PluginMetrics.function("reencrypt_aes");
+
+    private TrinoReencryptAES() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES CBC re-encryption under a new key and Initialize Vector.
+     * @param secureData AES encrypted String to be re-encrypted.
+     * @param oldKey Key String the value is encrypted with.
+     * @param oldIv Initializer Vector the value is encrypted with.
+     * @param newKey Key String to encrypt with.
+     * @param newIv Initializer Vector to encrypt with.
+     * @return AES encrypted String under the new key.
+     * @author Wong Kok-Lim
+     */
+    @Description("Re-encrypts an AES value under a new key and Initialize Vector")
+    @ScalarFunction("reencrypt_aes")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice reencryptAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice oldKey, @SqlType(StandardTypes.VARCHAR) Slice oldIv, @SqlType(StandardTypes.VARCHAR) Slice newKey, @SqlType(StandardTypes.VARCHAR) Slice newIv) {
+        return reencrypt(aesReencrypt, secureData, oldKey, oldIv, newKey, newIv);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES re-encryption under a new key and Initialize Vector in the chosen AES mode.
+     * @param secureData AES encrypted String to be re-encrypted.
+     * @param oldKey Key String the value is encrypted with.
+     * @param oldIv Initializer Vector the value is encrypted with.
+     * @param newKey Key String to encrypt with.
+     * @param newIv Initializer Vector to encrypt with.
+     * @param mode AES mode of the value, one of CBC, CTR or GCM.
+     * @return AES encrypted String under the new key.
+     * @author Wong Kok-Lim
+     */
+    @Description("Re-encrypts an AES value under a new key and Initialize Vector using the given AES mode")
+    @ScalarFunction("reencrypt_aes")
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice reencryptAES(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice oldKey, @SqlType(StandardTypes.VARCHAR) Slice oldIv, @SqlType(StandardTypes.VARCHAR) Slice newKey, @SqlType(StandardTypes.VARCHAR) Slice newIv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return reencrypt(AESModes.reencrypter(mode), secureData, oldKey, oldIv, newKey, newIv);
+    }
+
+    /**
+     * AES re-encryption of a Slice with call statistics.
+     * @param reencrypter AESReencrypt of the chosen AES mode.
+     * @param secureData AES encrypted Slice to be re-encrypted.
+     * @param oldKey Key String the value is encrypted with.
+     * @param oldIv Initializer Vector the value is encrypted with.
+     * @param newKey Key String to encrypt with.
+     * @param newIv Initializer Vector to encrypt with.
+     * @return AES encrypted Slice under the new key.
+     * @author Wong Kok-Lim
+     */
+    private static Slice reencrypt(AESReencrypt reencrypter, Slice secureData, Slice oldKey, Slice oldIv, Slice newKey, Slice newIv) {
+        long start = stats.start();
+        try {
+            return stats.record(start, secureData, reencrypter.sliceAES(secureData, oldKey, oldIv, newKey, newIv));
+        }
+        catch (RuntimeException e) {
+            stats.failed(start);
+            throw e;
+        }
+    }
+}
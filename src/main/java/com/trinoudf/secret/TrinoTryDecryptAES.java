@@ -0,0 +1,333 @@
+package com.trinoudf.secret;
+
+import com.trinoudf.crypto.AESDecrypt;
+import com.trinoudf.crypto.DecryptionFailure;
+import com.trinoudf.global.Methods;
+import com.trinoudf.metrics.FailureLog;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import io.airlift.slice.Slice;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlNullable;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ==Description==
+ * <p>
+ *     AES decryption methods for PrestoSQL that return NULL instead of failing the query
+ *     when a value cannot be decrypted, e.g. corrupt ciphertext or a wrong key.
+ *     Failures are signalled with the stackless DecryptionFailure.INSTANCE, counted in the function statistics
+ *     and summarised in the worker log at most once a minute per function.
+ * </p>
+ * ===Objects===
+ * <p>This class does not contains any objects when instantiated.</p>
+ *
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>tryDecryptStringAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>tryDecryptStringAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>tryDecryptBinaryAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>tryDecryptBinaryAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>tryDecryptIpAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>tryDecryptIpAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>tryDecryptUuidAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>tryDecryptUuidAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode)</li>
+ *     <li>tryDecryptRawStringAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>tryDecryptRawBinaryAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>tryDecryptRawIpAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ *     <li>tryDecryptRawUuidAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv)</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public final class TrinoTryDecryptAES {
+    private static final AESDecrypt aesDecrypt = new AESDecrypt(Methods.CBC);
+    private static final long failureLogIntervalMinutes = 1;
+    private static final int ANY_LENGTH = -1;
+    private static final FunctionStats tryDecryptAesStats = PluginMetrics.function("try_decrypt_aes");
+    private static final FailureLog tryDecryptAesFailures = new FailureLog("try_decrypt_aes", failureLogIntervalMinutes, TimeUnit.MINUTES);
+    private static final FunctionStats tryDecryptAesBinaryStats = PluginMetrics.function("try_decrypt_aes_binary");
+    private static final FailureLog tryDecryptAesBinaryFailures = new FailureLog("try_decrypt_aes_binary", failureLogIntervalMinutes, TimeUnit.MINUTES);
+    private static final FunctionStats tryDecryptAesIpStats = PluginMetrics.function("try_decrypt_aes_ip");
+    private static final FailureLog tryDecryptAesIpFailures = new FailureLog("try_decrypt_aes_ip", failureLogIntervalMinutes, TimeUnit.MINUTES);
+    private static final FunctionStats tryDecryptAesUuidStats = PluginMetrics.function("try_decrypt_aes_uuid");
+    private static final FailureLog tryDecryptAesUuidFailures = new FailureLog("try_decrypt_aes_uuid", failureLogIntervalMinutes, TimeUnit.MINUTES);
+    private static final FunctionStats tryDecryptAesRawStats = PluginMetrics.function("try_decrypt_aes_raw");
+    private static final FailureLog tryDecryptAesRawFailures = new FailureLog("try_decrypt_aes_raw", failureLogIntervalMinutes, TimeUnit.MINUTES);
+    private static final FunctionStats tryDecryptAesRawBinaryStats = PluginMetrics.function("try_decrypt_aes_raw_binary");
+    private static final FailureLog tryDecryptAesRawBinaryFailures = new FailureLog("try_decrypt_aes_raw_binary", failureLogIntervalMinutes, TimeUnit.MINUTES);
+    private static final FunctionStats tryDecryptAesRawIpStats = PluginMetrics.function("try_decrypt_aes_raw_ip");
+    private static final FailureLog tryDecryptAesRawIpFailures = new FailureLog("try_decrypt_aes_raw_ip", failureLogIntervalMinutes, TimeUnit.MINUTES);
+    private static final FunctionStats tryDecryptAesRawUuidStats = PluginMetrics.function("try_decrypt_aes_raw_uuid");
+    private static final FailureLog tryDecryptAesRawUuidFailures = new FailureLog("try_decrypt_aes_raw_uuid", failureLogIntervalMinutes, TimeUnit.MINUTES);
+
+    private TrinoTryDecryptAES() {
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted String, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return AES decrypted String, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes")
+    @SqlNullable
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice tryDecryptStringAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return tryDecrypt(tryDecryptAesStats, tryDecryptAesFailures, aesDecrypt, secureData, key, iv, ANY_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted String with a chosen AES mode, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return AES decrypted String, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES mode, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes")
+    @SqlNullable
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice tryDecryptStringAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return tryDecrypt(tryDecryptAesStats, tryDecryptAesFailures, AESModes.decrypter(mode), secureData, key, iv, ANY_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted Binary data type, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted binary value, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_binary")
+    @SqlNullable
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice tryDecryptBinaryAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return tryDecrypt(tryDecryptAesBinaryStats, tryDecryptAesBinaryFailures, aesDecrypt, secureData, key, iv, ANY_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted Binary data type with a chosen AES mode, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return Decrypted binary value, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES mode, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_binary")
+    @SqlNullable
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice tryDecryptBinaryAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return tryDecrypt(tryDecryptAesBinaryStats, tryDecryptAesBinaryFailures, AESModes.decrypter(mode), secureData, key, iv, ANY_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted IPADDRESS data type, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted IPADDRESS value, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_ip")
+    @SqlNullable
+    @SqlType(StandardTypes.IPADDRESS)
+    public static Slice tryDecryptIpAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return tryDecrypt(tryDecryptAesIpStats, tryDecryptAesIpFailures, aesDecrypt, secureData, key, iv, 16);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted IPADDRESS data type with a chosen AES mode, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return Decrypted IPADDRESS value, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES mode, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_ip")
+    @SqlNullable
+    @SqlType(StandardTypes.IPADDRESS)
+    public static Slice tryDecryptIpAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return tryDecrypt(tryDecryptAesIpStats, tryDecryptAesIpFailures, AESModes.decrypter(mode), secureData, key, iv, 16);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted UUID data type, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted UUID value, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_uuid")
+    @SqlNullable
+    @SqlType(StandardTypes.UUID)
+    public static Slice tryDecryptUuidAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return tryDecrypt(tryDecryptAesUuidStats, tryDecryptAesUuidFailures, aesDecrypt, secureData, key, iv, 16);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of AES encrypted UUID data type with a chosen AES mode, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted String to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param mode AES mode the value was encrypted with, one of CBC, CTR or GCM.
+     * @return Decrypted UUID value, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a value using AES mode, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_uuid")
+    @SqlNullable
+    @SqlType(StandardTypes.UUID)
+    public static Slice tryDecryptUuidAes(@SqlType(StandardTypes.VARCHAR) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv, @SqlType(StandardTypes.VARCHAR) Slice mode) {
+        return tryDecrypt(tryDecryptAesUuidStats, tryDecryptAesUuidFailures, AESModes.decrypter(mode), secureData, key, iv, 16);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of raw AES encrypted String, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted VARBINARY to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return AES decrypted String, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a raw AES ciphertext using AES, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_raw")
+    @SqlNullable
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice tryDecryptRawStringAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return tryDecryptRaw(tryDecryptAesRawStats, tryDecryptAesRawFailures, aesDecrypt, secureData, key, iv, ANY_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of raw AES encrypted Binary data type, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted VARBINARY to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted binary value, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a raw AES ciphertext using AES, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_raw_binary")
+    @SqlNullable
+    @SqlType(StandardTypes.VARBINARY)
+    public static Slice tryDecryptRawBinaryAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return tryDecryptRaw(tryDecryptAesRawBinaryStats, tryDecryptAesRawBinaryFailures, aesDecrypt, secureData, key, iv, ANY_LENGTH);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of raw AES encrypted IPADDRESS data type, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted VARBINARY to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted IPADDRESS value, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a raw AES ciphertext using AES, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_raw_ip")
+    @SqlNullable
+    @SqlType(StandardTypes.IPADDRESS)
+    public static Slice tryDecryptRawIpAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return tryDecryptRaw(tryDecryptAesRawIpStats, tryDecryptAesRawIpFailures, aesDecrypt, secureData, key, iv, 16);
+    }
+
+    /**
+     * PrestoSQL user defined function for AES decryption of raw AES encrypted UUID data type, returning NULL if it cannot be decrypted.
+     * @param secureData AES encrypted VARBINARY to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @return Decrypted UUID value, or NULL if the value cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Description("Decrypts a raw AES ciphertext using AES, NULL if it cannot be decrypted")
+    @ScalarFunction("try_decrypt_aes_raw_uuid")
+    @SqlNullable
+    @SqlType(StandardTypes.UUID)
+    public static Slice tryDecryptRawUuidAes(@SqlType(StandardTypes.VARBINARY) Slice secureData, @SqlType(StandardTypes.VARCHAR) Slice key, @SqlType(StandardTypes.VARCHAR) Slice iv) {
+        return tryDecryptRaw(tryDecryptAesRawUuidStats, tryDecryptAesRawUuidFailures, aesDecrypt, secureData, key, iv, 16);
+    }
+
+    /**
+     * Decrypts a Base64 encoded AES encrypted Slice, mapping failures to NULL.
+     * @param stats FunctionStats of the calling SQL function.
+     * @param failures FailureLog of the calling SQL function.
+     * @param decrypter AESDecrypt of the AES mode the value was encrypted with.
+     * @param secureData Base64 encoded AES encrypted Slice to be decrypted.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param length Required plaintext length, or ANY_LENGTH.
+     * @return Decrypted Slice, or null if it cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    private static Slice tryDecrypt(FunctionStats stats, FailureLog failures, AESDecrypt decrypter, Slice secureData, Slice key, Slice iv, int length) {
+        long start = stats.start();
+        try {
+            return stats.record(start, secureData, fixedLength(decrypter.trySliceAES(secureData, key, iv), length));
+        }
+        catch (DecryptionFailure e) {
+            stats.failed(start);
+            failures.failed();
+            return null;
+        }
+    }
+
+    /**
+     * Decrypts a raw AES ciphertext Slice, mapping failures to NULL.
+     * @param stats FunctionStats of the calling SQL function.
+     * @param failures FailureLog of the calling SQL function.
+     * @param decrypter AESDecrypt of the AES mode the value was encrypted with.
+     * @param secureData AES encrypted Slice without Base64 encoding.
+     * @param key Key String to use for decryption.
+     * @param iv Initializer Vector to use for decryption.
+     * @param length Required plaintext length, or ANY_LENGTH.
+     * @return Decrypted Slice, or null if it cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    private static Slice tryDecryptRaw(FunctionStats stats, FailureLog failures, AESDecrypt decrypter, Slice secureData, Slice key, Slice iv, int length) {
+        long start = stats.start();
+        try {
+            return stats.record(start, secureData, fixedLength(decrypter.tryRawSliceAES(secureData, key, iv), length));
+        }
+        catch (DecryptionFailure e) {
+            stats.failed(start);
+            failures.failed();
+            return null;
+        }
+    }
+
+    /**
+     * Checks the length of fixed width values such as IPADDRESS and UUID.
+     * @param decrypted Decrypted Slice.
+     * @param length Required length, or ANY_LENGTH.
+     * @return decrypted, or its first length bytes.
+     * @throws DecryptionFailure If decrypted is shorter than length.
+     * @author Wong Kok-Lim
+     */
+    private static Slice fixedLength(Slice decrypted, int length) throws DecryptionFailure {
+        if (length == ANY_LENGTH) {
+            return decrypted;
+        }
+        if (decrypted.length() < length) {
+            throw DecryptionFailure.INSTANCE;
+        }
+        return decrypted.slice(0, length);
+    }
+}
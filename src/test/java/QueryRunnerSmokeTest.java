@@ -0,0 +1,186 @@
+import com.trinoudf.secret.SecretPlugin;
+import io.trino.Session;
+import io.trino.testing.DistributedQueryRunner;
+import io.trino.testing.MaterializedResult;
+import org.junit.Test;
+
+import static io.trino.testing.TestingSession.testSessionBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * ==Description==
+ * <p>
+ *     Smoke test of the plugin in an in-process Trino query runner. Installing SecretPlugin registers every function class,
+ *     so conflicting function signatures fail here, and every SQL function name is then called once from SQL.
+ *     The keystore functions run without a keystore and decryptviakms without AWS, so they are expected to
+ *     fail in the function itself, which still shows that they resolve.
+ * </p>
+ * <br/>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated</p>
+ * <br/>
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>everyFunctionRuns()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public class QueryRunnerSmokeTest {
+    private static final String key = "'aesEncryptionKey'";
+    private static final String iv = "'encryptionIntVec'";
+    private static final String keyIv = key + ", " + iv;
+
+    /**
+     * Calls every scalar and aggregation function of the plugin once.
+     * @throws Exception If the query runner cannot be started.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void everyFunctionRuns() throws Exception {
+        try (DistributedQueryRunner runner = createQueryRunner()) {
+            // encrypt_aes, decrypt_aes and their typed, raw and mode variants
+            assertQuery(runner, "decrypt_aes(encrypt_aes('hello', " + keyIv + "), " + keyIv + ") = 'hello'");
+            assertQuery(runner, "decrypt_aes(encrypt_aes(BIGINT '2', " + keyIv + "), " + keyIv + ") = '2'");
+            assertQuery(runner, "decrypt_aes(encrypt_aes(DOUBLE '2.5', " + keyIv + "), " + keyIv + ") = '2.5'");
+            assertQuery(runner, "decrypt_aes(encrypt_aes(true, " + keyIv + "), " + keyIv + ") = 'true'");
+            assertQuery(runner, "decrypt_aes(encrypt_aes('hello', " + keyIv + ", 'GCM'), " + keyIv + ", 'GCM') = 'hello'");
+            assertQuery(runner, "decrypt_aes_binary(encrypt_aes(X'65683F', " + keyIv + "), " + keyIv + ") = X'65683F'");
+            assertQuery(runner, "decrypt_aes_ip(encrypt_aes(IPADDRESS '10.0.0.1', " + keyIv + "), " + keyIv + ") = IPADDRESS '10.0.0.1'");
+            assertQuery(runner, "decrypt_aes_uuid(encrypt_aes(UUID '12151fd2-7586-11e9-8f9e-2a86e4085a59', " + keyIv + "), " + keyIv + ") = UUID '12151fd2-7586-11e9-8f9e-2a86e4085a59'");
+            assertQuery(runner, "decrypt_aes_raw(encrypt_aes_raw('hello', " + keyIv + "), " + keyIv + ") = 'hello'");
+            assertQuery(runner, "decrypt_aes_raw_binary(encrypt_aes_raw(X'65683F', " + keyIv + "), " + keyIv + ") = X'65683F'");
+            assertQuery(runner, "decrypt_aes_raw_ip(encrypt_aes_raw(IPADDRESS '10.0.0.1', " + keyIv + "), " + keyIv + ") = IPADDRESS '10.0.0.1'");
+            assertQuery(runner, "decrypt_aes_raw_uuid(encrypt_aes_raw(UUID '12151fd2-7586-11e9-8f9e-2a86e4085a59', " + keyIv + "), " + keyIv + ") = UUID '12151fd2-7586-11e9-8f9e-2a86e4085a59'");
+            assertQuery(runner, "decrypt_aes_array(encrypt_aes_array(ARRAY['a', 'b'], " + keyIv + "), " + keyIv + ") = ARRAY['a', 'b']");
+
+            // fixed width encoding
+            assertQuery(runner, "decrypt_aes_bigint(encrypt_aes_fixed(BIGINT '42', " + keyIv + "), " + keyIv + ") = 42");
+            assertQuery(runner, "decrypt_aes_integer(encrypt_aes_fixed(INTEGER '42', " + keyIv + "), " + keyIv + ") = 42");
+            assertQuery(runner, "decrypt_aes_real(encrypt_aes_fixed(REAL '1.5', " + keyIv + "), " + keyIv + ") = REAL '1.5'");
+            assertQuery(runner, "decrypt_aes_double(encrypt_aes_fixed(DOUBLE '1.5', " + keyIv + "), " + keyIv + ") = 1.5");
+            assertQuery(runner, "decrypt_aes_boolean(encrypt_aes_fixed(true, " + keyIv + "), " + keyIv + ")");
+            assertQuery(runner, "decrypt_aes_date(encrypt_aes_fixed(DATE '2021-01-07', " + keyIv + "), " + keyIv + ") = DATE '2021-01-07'");
+            assertQuery(runner, "decrypt_aes_timestamp(encrypt_aes_fixed(TIMESTAMP '2020-06-10 15:55:23.123456', " + keyIv + "), " + keyIv + ") = TIMESTAMP '2020-06-10 15:55:23.123456'");
+
+            // blind index
+            assertQuery(runner, "length(blind_index('customer-42', 'blindIndexKey')) = 16");
+            assertQuery(runner, "length(blind_index(BIGINT '42', 'blindIndexKey', 8)) = 8");
+            assertQuery(runner, "blind_index(REAL '0.0', 'blindIndexKey') = blind_index(REAL '-0.0', 'blindIndexKey')");
+            assertQuery(runner, "blind_index(REAL '1.5', 'blindIndexKey', 8) <> blind_index(INTEGER '1', 'blindIndexKey', 8)");
+
+            // try_decrypt_aes returns NULL for values that cannot be decrypted
+            assertQuery(runner, "try_decrypt_aes('not base64!', " + keyIv + ") IS NULL");
+            assertQuery(runner, "try_decrypt_aes('not base64!', " + keyIv + ", 'GCM') IS NULL");
+            assertQuery(runner, "try_decrypt_aes_binary('not base64!', " + keyIv + ") IS NULL");
+            assertQuery(runner, "try_decrypt_aes_ip('not base64!', " + keyIv + ") IS NULL");
+            assertQuery(runner, "try_decrypt_aes_uuid('not base64!', " + keyIv + ") IS NULL");
+            assertQuery(runner, "try_decrypt_aes_raw(X'00', " + keyIv + ") IS NULL");
+            assertQuery(runner, "try_decrypt_aes_raw_binary(X'00', " + keyIv + ") IS NULL");
+            assertQuery(runner, "try_decrypt_aes_raw_ip(X'00', " + keyIv + ") IS NULL");
+            assertQuery(runner, "try_decrypt_aes_raw_uuid(X'00', " + keyIv + ") IS NULL");
+
+            // chunked, large and compressed values
+            assertQuery(runner, "decrypt_aes_chunked(encrypt_aes_chunked('hello', " + key + "), " + key + ") = 'hello'");
+            assertQuery(runner, "decrypt_aes_chunked_binary(encrypt_aes_chunked(X'0102030405', " + key + ", 4096), " + key + ") = X'0102030405'");
+            assertQuery(runner, "decrypt_aes_range(encrypt_aes_chunked(X'0102030405', " + key + "), " + key + ", 1, 2) = X'0203'");
+            assertQuery(runner, "decrypt_aes_large(encrypt_aes_large('hello', " + keyIv + "), " + keyIv + ") = 'hello'");
+            assertQuery(runner, "decrypt_aes_large_binary(encrypt_aes_large(X'65683F', " + keyIv + "), " + keyIv + ") = X'65683F'");
+            assertQuery(runner, "decrypt_aes_compressed(encrypt_aes_compressed('hello', " + keyIv + "), " + keyIv + ") = 'hello'");
+            assertQuery(runner, "decrypt_aes_compressed_binary(encrypt_aes_compressed(X'65683F', " + keyIv + ", 'GCM'), " + keyIv + ", 'GCM') = X'65683F'");
+
+            // re-encryption
+            assertQuery(runner, "decrypt_aes(reencrypt_aes(encrypt_aes('hello', " + keyIv + "), " + keyIv + ", 'otherEncryptKey', " + iv + "), 'otherEncryptKey', " + iv + ") = 'hello'");
+            assertQuery(runner, "decrypt_aes(reencrypt_aes(encrypt_aes('hello', " + keyIv + "), " + keyIv + ", 'otherEncryptKey', " + iv + ", 'CTR'), 'otherEncryptKey', " + iv + ", 'CTR') = 'hello'");
+
+            // random Initialize Vector per row
+            assertQuery(runner, "decrypt_aes_random_iv(encrypt_aes_random_iv('hello', " + key + "), " + key + ") = 'hello'");
+            assertQuery(runner, "decrypt_aes_random_iv(encrypt_aes_random_iv(BIGINT '42', " + key + "), " + key + ") = '42'");
+            assertQuery(runner, "decrypt_aes_random_iv_binary(encrypt_aes_random_iv(X'65683F', " + key + ", 'GCM'), " + key + ", 'GCM') = X'65683F'");
+
+            // keystore aliases, no keystore is configured
+            assertFails(runner, "SELECT encrypt_aes_k('hello', 'customer')", "Unknown key alias");
+            assertFails(runner, "SELECT encrypt_aes_k(BIGINT '42', 'customer')", "Unknown key alias");
+            assertFails(runner, "SELECT decrypt_aes_k('hello', 'customer')", "Unknown key alias");
+            assertFails(runner, "SELECT decrypt_aes_k_binary('hello', 'customer')", "Unknown key alias");
+
+            // aggregations over decrypted values
+            String values = " FROM (VALUES 1, 2, 3, 3) t(x)";
+            assertQuery(runner, "sum_decrypt_aes(encrypt_aes(x, " + keyIv + "), " + keyIv + ") = 9", values);
+            assertQuery(runner, "min_decrypt_aes(encrypt_aes(x, " + keyIv + "), " + keyIv + ") = 1", values);
+            assertQuery(runner, "max_decrypt_aes(encrypt_aes(x, " + keyIv + "), " + keyIv + ") = 3", values);
+            assertQuery(runner, "avg_decrypt_aes(encrypt_aes(x, " + keyIv + "), " + keyIv + ") = 2.25", values);
+            assertQuery(runner, "approx_distinct_decrypt_aes(encrypt_aes(x, " + keyIv + "), " + keyIv + ") = 3", values);
+
+            // optional Jasypt and KMS functions
+            assertQuery(runner, "decrypt(encrypt('hello')) = 'hello'");
+            assertQuery(runner, "decrypt_aes(reencrypt_aes_from_jasypt(encrypt('hello'), " + keyIv + "), " + keyIv + ") = 'hello'");
+            assertFails(runner, "SELECT decryptuser(encrypt('hello'))", "admin");
+            assertEquals(1, runner.execute("SHOW FUNCTIONS LIKE 'decryptviakms'").getRowCount());
+        }
+    }
+
+    /**
+     * Runs a boolean expression and checks that it is true.
+     * @param runner Query runner.
+     * @param expression Boolean SQL expression.
+     * @author Wong Kok-Lim
+     */
+    private static void assertQuery(DistributedQueryRunner runner, String expression) {
+        assertQuery(runner, expression, "");
+    }
+
+    /**
+     * Runs a boolean expression over a FROM clause and checks that it is true.
+     * @param runner Query runner.
+     * @param expression Boolean SQL expression.
+     * @param from FROM clause, empty for none.
+     * @author Wong Kok-Lim
+     */
+    private static void assertQuery(DistributedQueryRunner runner, String expression, String from) {
+        MaterializedResult result = runner.execute("SELECT " + expression + from);
+        assertEquals(expression, Boolean.TRUE, result.getOnlyValue());
+    }
+
+    /**
+     * Runs a query and checks that it fails with a message containing the given text.
+     * @param runner Query runner.
+     * @param sql Query.
+     * @param message Expected part of the failure message.
+     * @author Wong Kok-Lim
+     */
+    private static void assertFails(DistributedQueryRunner runner, String sql, String message) {
+        try {
+            runner.execute(sql);
+            fail("Query did not fail: " + sql);
+        }
+        catch (RuntimeException e) {
+            assertTrue(sql + " failed with: " + e.getMessage(), e.getMessage() != null && e.getMessage().contains(message));
+        }
+    }
+
+    /**
+     * Starts a single node query runner with the secret plugin.
+     * @return DistributedQueryRunner.
+     * @throws Exception If the runner cannot be started.
+     * @author Wong Kok-Lim
+     */
+    private static DistributedQueryRunner createQueryRunner() throws Exception {
+        Session session = testSessionBuilder().build();
+
+        DistributedQueryRunner runner = DistributedQueryRunner.builder(session)
+                .setNodeCount(1)
+                .build();
+        try {
+            runner.installPlugin(new SecretPlugin());
+        }
+        catch (RuntimeException e) {
+            runner.close();
+            throw e;
+        }
+        return runner;
+    }
+}
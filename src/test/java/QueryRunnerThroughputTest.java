@@ -0,0 +1,171 @@
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.trinoudf.secret.SecretPlugin;
+import io.trino.Session;
+import io.trino.plugin.memory.MemoryPlugin;
+import io.trino.plugin.tpch.TpchPlugin;
+import io.trino.testing.DistributedQueryRunner;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+import static io.trino.testing.TestingSession.testSessionBuilder;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ==Description==
+ * <p>
+ *     End to end throughput of the plugin's SQL functions in an in-process Trino query runner with SecretPlugin installed.
+ *     Every function runs over generated TPCH tables at several scales and worker thread counts,
+ *     and rows/s and process CPU time per row are printed, so that the whole plugin path can be measured offline.
+ *     The decrypt functions read values encrypted into memory connector tables beforehand, and the baseline
+ *     runs the same aggregation without any function to show the cost of scanning.
+ *     Excluded from the test task, run it with gradle throughputTest, e.g.
+ *     gradle throughputTest -PthroughputScales=tiny,sf1 -PthroughputThreads=1,8 -PthroughputIterations=5
+ * </p>
+ * <br/>
+ * ===Objects===
+ * <p>This class does not contain any objects when instantiated</p>
+ * <br/>
+ * ===Methods===
+ * <p>This class contains the following methods when instantiated:</p>
+ * <ul>
+ *     <li>udfThroughput()</li>
+ * </ul>
+ *
+ * @author Wong Kok-Lim
+ */
+public class QueryRunnerThroughputTest {
+    private static final String key = "aesEncryptionKey";
+    private static final String iv = "encryptionIntVec";
+
+    /**
+     * Measures every function at every configured scale and worker thread count.
+     * @throws Exception If the query runner cannot be started or a query fails.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void udfThroughput() throws Exception {
+        List<String> scales = ImmutableList.copyOf(System.getProperty("throughput.scales", "tiny,sf0.1").split(","));
+        List<String> threadCounts = ImmutableList.copyOf(System.getProperty("throughput.threads", "1,4").split(","));
+        int iterations = Integer.parseInt(System.getProperty("throughput.iterations", "3"));
+
+        System.out.println(String.format(Locale.ENGLISH, "%-12s %-8s %8s %12s %12s %14s", "function", "scale", "threads", "rows", "rows/s", "cpu ns/row"));
+        for (String threads : threadCounts) {
+            try (DistributedQueryRunner runner = createQueryRunner(Integer.parseInt(threads.trim()))) {
+                for (String scale : scales) {
+                    measureScale(runner, scale.trim(), threads.trim(), iterations);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prepares the encrypted tables of a scale and measures every function on it.
+     * @param runner Query runner.
+     * @param scale TPCH schema, e.g. tiny or sf1.
+     * @param threads Worker thread count of the runner, for the report.
+     * @param iterations Measured runs of every query.
+     * @author Wong Kok-Lim
+     */
+    private void measureScale(DistributedQueryRunner runner, String scale, String threads, int iterations) {
+        String suffix = scale.replace('.', '_');
+        String orders = "tpch." + scale + ".orders";
+        String customer = "tpch." + scale + ".customer";
+        String encryptedOrders = "memory.default.orders_aes_" + suffix;
+        String encryptedCustomer = "memory.default.customer_jasypt_" + suffix;
+
+        runner.execute("CREATE TABLE IF NOT EXISTS " + encryptedOrders + " AS SELECT encrypt_aes(comment, '" + key + "', '" + iv + "') AS comment FROM " + orders);
+        runner.execute("CREATE TABLE IF NOT EXISTS " + encryptedCustomer + " AS SELECT encrypt(comment) AS comment FROM " + customer);
+
+        long orderRows = count(runner, orders);
+        long customerRows = count(runner, customer);
+
+        measure(runner, "baseline", scale, threads, iterations, orderRows,
+                "SELECT sum(length(comment)) FROM " + orders);
+        measure(runner, "encrypt_aes", scale, threads, iterations, orderRows,
+                "SELECT sum(length(encrypt_aes(comment, '" + key + "', '" + iv + "'))) FROM " + orders);
+        measure(runner, "decrypt_aes", scale, threads, iterations, orderRows,
+                "SELECT sum(length(decrypt_aes(comment, '" + key + "', '" + iv + "'))) FROM " + encryptedOrders);
+        // Jasypt derives its key per value, so it runs over the ten times smaller customer table
+        measure(runner, "encrypt", scale, threads, iterations, customerRows,
+                "SELECT sum(length(encrypt(comment))) FROM " + customer);
+        measure(runner, "decrypt", scale, threads, iterations, customerRows,
+                "SELECT sum(length(decrypt(comment))) FROM " + encryptedCustomer);
+    }
+
+    /**
+     * Runs a query once to warm up and then the given number of times, and prints the mean throughput.
+     * @param runner Query runner.
+     * @param function Name of the measured function.
+     * @param scale TPCH schema.
+     * @param threads Worker thread count.
+     * @param iterations Measured runs.
+     * @param rows Rows the query processes.
+     * @param sql Query.
+     * @author Wong Kok-Lim
+     */
+    private void measure(DistributedQueryRunner runner, String function, String scale, String threads, int iterations, long rows, String sql) {
+        runner.execute(sql);
+
+        long cpuStart = processCpuNanos();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertTrue(runner.execute(sql).getOnlyValue() != null);
+        }
+        long elapsed = System.nanoTime() - start;
+        long cpu = processCpuNanos() - cpuStart;
+
+        long totalRows = rows * iterations;
+        System.out.println(String.format(Locale.ENGLISH, "%-12s %-8s %8s %12d %12.0f %14.0f",
+                function, scale, threads, rows, totalRows * 1e9 / elapsed, (double) cpu / totalRows));
+    }
+
+    /**
+     * Starts a single node query runner with the TPCH, memory and secret plugins.
+     * @param threads Worker threads and task concurrency, a power of two.
+     * @return DistributedQueryRunner.
+     * @throws Exception If the runner cannot be started.
+     * @author Wong Kok-Lim
+     */
+    private static DistributedQueryRunner createQueryRunner(int threads) throws Exception {
+        Session session = testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema("tiny")
+                .build();
+
+        DistributedQueryRunner runner = DistributedQueryRunner.builder(session)
+                .setNodeCount(1)
+                .setExtraProperties(ImmutableMap.of(
+                        "task.max-worker-threads", String.valueOf(threads),
+                        "task.concurrency", String.valueOf(threads)))
+                .build();
+        try {
+            runner.installPlugin(new TpchPlugin());
+            runner.createCatalog("tpch", "tpch");
+            runner.installPlugin(new MemoryPlugin());
+            runner.createCatalog("memory", "memory");
+            runner.installPlugin(new SecretPlugin());
+        }
+        catch (RuntimeException e) {
+            runner.close();
+            throw e;
+        }
+        return runner;
+    }
+
+    private static long count(DistributedQueryRunner runner, String table) {
+        return ((Number) runner.execute("SELECT count(*) FROM " + table).getOnlyValue()).longValue();
+    }
+
+    /**
+     * CPU time of the whole JVM, which runs the coordinator, the worker and every driver thread.
+     * @return Process CPU time in nanoseconds.
+     * @author Wong Kok-Lim
+     */
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+}
@@ -1,21 +1,101 @@
+import com.amazonaws.encryptionsdk.AwsCrypto;
+import com.amazonaws.encryptionsdk.jce.JceMasterKey;
 import com.trinoudf.crypto.AESCBCDecrypter;
 import com.trinoudf.crypto.AESCBCEncrypter;
+import com.trinoudf.crypto.AESDecrypt;
+import com.trinoudf.crypto.AESEncrypt;
+import com.trinoudf.crypto.AESReencrypt;
+import com.trinoudf.crypto.Base64Codec;
+import com.trinoudf.crypto.DecryptionCache;
+import com.trinoudf.crypto.IvGenerator;
+import com.trinoudf.crypto.ParallelCTR;
+import com.trinoudf.crypto.CipherProviders;
+import com.trinoudf.crypto.CompressedPayload;
 import com.trinoudf.crypto.Decoder;
+import com.trinoudf.global.Methods;
+import com.trinoudf.global.PluginConfig;
+import com.trinoudf.key.KeyGenerator;
+import com.trinoudf.key.KeyRegistry;
+import com.trinoudf.kms.KmsDecrypter;
+import com.trinoudf.kms.KmsFunctions;
+import com.trinoudf.metrics.DecryptionCacheStats;
+import com.trinoudf.metrics.FunctionStats;
+import com.trinoudf.metrics.PluginMetrics;
+import com.trinoudf.secret.SecretFunctions;
+import com.trinoudf.secret.SecretPlugin;
+import com.trinoudf.secret.TrinoBlindIndex;
+import com.trinoudf.secret.TrinoBlindIndexLength;
+import com.trinoudf.secret.TrinoBlindIndexReal;
+import com.trinoudf.secret.DecryptedAverageState;
+import com.trinoudf.secret.DecryptedLongState;
+import com.trinoudf.secret.TrinoAvgDecryptAES;
+import com.trinoudf.secret.TrinoChunkedAES;
+import com.trinoudf.secret.TrinoCompressedAES;
+import com.trinoudf.secret.TrinoDecryptAES;
+import com.trinoudf.secret.TrinoDecryptAESFixed;
+import com.trinoudf.secret.TrinoEncryptAES;
+import com.trinoudf.secret.TrinoEncryptAESMode;
+import com.trinoudf.secret.TrinoEncryptAESArray;
+import com.trinoudf.secret.TrinoEncryptAESFixed;
+import com.trinoudf.secret.TrinoKeyAliasAES;
+import com.trinoudf.secret.TrinoKeyAliasEncryptAES;
+import com.trinoudf.secret.TrinoMaxDecryptAES;
+import com.trinoudf.secret.TrinoMinDecryptAES;
+import com.trinoudf.secret.TrinoRandomIvAES;
+import com.trinoudf.secret.TrinoRandomIvEncryptAES;
+import com.trinoudf.secret.TrinoRandomIvEncryptAESMode;
+import com.trinoudf.secret.TrinoSumDecryptAES;
+import com.trinoudf.secret.TrinoTryDecryptAES;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.trino.spi.TrinoException;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import org.jasypt.util.text.BasicTextEncryptor;
 import org.junit.Test;
 
 import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.sql.*;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.trino.spi.StandardErrorCode.INVALID_CAST_ARGUMENT;
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.VarcharType.VARCHAR;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * ==Description==
@@ -31,6 +111,29 @@ import static org.junit.Assert.assertEquals;
  * <ul>
  *     <li>aesCBCEncryptDecryptString()</li>
  *     <li>aesCBCEncryptDecryptByteBuffer()</li>
+ *     <li>keyGeneratorCachesDerivedKeys()</li>
+ *     <li>jasyptDecryptsBasicTextEncryptorOutput()</li>
+ *     <li>kmsDecrypterCachesDataKeys()</li>
+ *     <li>aesCBCEncryptDecryptSlice()</li>
+ *     <li>aesCBCEncryptDecryptRawSlice()</li>
+ *     <li>aesCTRAndGCMEncryptDecryptSlice()</li>
+ *     <li>pluginMetricsCountFunctionCalls()</li>
+ *     <li>tryDecryptReturnsNullOnFailure()</li>
+ *     <li>fixedWidthEncryptDecrypt()</li>
+ *     <li>blindIndexIsKeyedAndDeterministic()</li>
+ *     <li>chunkedEncryptDecryptRange()</li>
+ *     <li>decryptAggregationsAccumulatePrimitives()</li>
+ *     <li>keyAliasFromKeyStore()</li>
+ *     <li>cipherProvidersFollowConfiguration()</li>
+ *     <li>base64CodecMatchesJavaBase64()</li>
+ *     <li>randomIvEncryptDecryptSlice()</li>
+ *     <li>decryptionCacheAdmitsRepeatedValues()</li>
+ *     <li>pluginRegistersOptionalFunctions()</li>
+ *     <li>parallelCtrMatchesSerialCtr()</li>
+ *     <li>reencryptMatchesDecryptThenEncrypt()</li>
+ *     <li>compressedEncryptDecryptDetectsHeader()</li>
+ *     <li>arrayEncryptDecryptKeepsNulls()</li>
+ *     <li>decryptBinaryHasNoTrailingBytes()</li>
  * </ul>
  *
  * @author Wong Kok-Lim
@@ -56,6 +159,16 @@ public class UnitTest {
         String decryptStr = decrypt;
 
         assertEquals(expected, decryptStr);
+        assertEquals(encrypt, new AESEncrypt(Methods.CBC).stringAES(expected, "aesEncryptionKey", "encryptionIntVec").toStringUtf8());
+
+        // cipher errors are rethrown instead of returning a null ciphertext
+        try {
+            new AESEncrypt(Methods.CBC).stringAES(expected, "aesEncryptionKey", "short");
+            fail("a short IV should fail");
+        }
+        catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof InvalidAlgorithmParameterException);
+        }
     }
 
     /**
@@ -75,6 +188,780 @@ public class UnitTest {
         assertEquals(expected, decryptStr);
     }
 
+    /**
+     * Unit test for AES CBC encryption and decryption of Slice, which must stay compatible with the String methods.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void aesCBCEncryptDecryptSlice() throws NoSuchPaddingException, InvalidAlgorithmParameterException, NoSuchAlgorithmException, IllegalBlockSizeException, BadPaddingException, InvalidKeyException {
+        String expected = "hello2";
+
+        Slice encrypt = new AESCBCEncrypter().encryptSlice(utf8Slice(expected), utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+        assertEquals(new AESCBCEncrypter().encryptString(expected, "aesEncryptionKey", "encryptionIntVec"), encrypt.toStringUtf8());
+
+        Slice decrypt = new AESCBCDecrypter().decryptSlice(encrypt, utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+        assertEquals(expected, decrypt.toStringUtf8());
+    }
+
+    /**
+     * Unit test for AES CBC encryption and decryption of raw ciphertext Slice.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void aesCBCEncryptDecryptRawSlice() {
+        String expected = "hello2";
+
+        Slice encrypt = new AESCBCEncrypter().encryptRawSlice(utf8Slice(expected), utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+        Slice encoded = new AESCBCEncrypter().encryptSlice(utf8Slice(expected), utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+        assertEquals(wrappedBuffer(Decoder.decode(encoded.toStringUtf8())), encrypt);
+
+        Slice decrypt = new AESCBCDecrypter().decryptRawSlice(encrypt, utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+        assertEquals(expected, decrypt.toStringUtf8());
+    }
+
+    /**
+     * Unit test for AES CTR and GCM encryption and decryption of Slice.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void aesCTRAndGCMEncryptDecryptSlice() {
+        String expected = "hello2";
+
+        for (Methods method : new Methods[] {Methods.CTR, Methods.GCM}) {
+            Slice encrypt = new AESEncrypt(method).sliceAES(utf8Slice(expected), utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+            Slice decrypt = new AESDecrypt(method).sliceAES(encrypt, utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+            assertEquals(expected, decrypt.toStringUtf8());
+        }
+
+        // both modes prepend a random nonce, so a keystream is never reused across rows
+        for (Methods method : new Methods[] {Methods.CTR, Methods.GCM}) {
+            Slice first = new AESEncrypt(method).sliceAES(utf8Slice(expected), utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+            Slice second = new AESEncrypt(method).sliceAES(utf8Slice(expected), utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+            assertNotEquals(first, second);
+            assertEquals(expected, new AESDecrypt(method).sliceAES(second, utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec")).toStringUtf8());
+        }
+
+        Slice first = new AESEncrypt(Methods.GCM).sliceAES(utf8Slice(expected), utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+
+        boolean rejected = false;
+        try {
+            new AESDecrypt(Methods.GCM).sliceAES(first, utf8Slice("aesEncryptionKey"), utf8Slice("otherIntVector00"));
+        }
+        catch (RuntimeException e) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+    }
+
+    /**
+     * Unit test for the JMX function statistics of encrypt_aes and decrypt_aes.
+     * @throws JMException
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void pluginMetricsCountFunctionCalls() throws JMException {
+        FunctionStats encryptStats = PluginMetrics.function("encrypt_aes");
+        FunctionStats decryptStats = PluginMetrics.function("decrypt_aes");
+        long encryptCalls = encryptStats.getCalls();
+        long decryptCalls = decryptStats.getCalls();
+        long decryptFailures = decryptStats.getFailures();
+
+        Slice encrypt = TrinoEncryptAES.encryptBinaryAES(utf8Slice("hello2"), utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+        TrinoDecryptAES.decryptStringAes(encrypt, utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+        try {
+            TrinoDecryptAES.decryptStringAes(utf8Slice("bm90IGVuY3J5cHRlZA=="), utf8Slice("aesEncryptionKey"), utf8Slice("encryptionIntVec"));
+        }
+        catch (RuntimeException ignored) {
+        }
+
+        assertEquals(encryptCalls + 1, encryptStats.getCalls());
+        assertEquals(decryptCalls + 2, decryptStats.getCalls());
+        assertEquals(decryptFailures + 1, decryptStats.getFailures());
+        assertTrue(decryptStats.getLatencyP50Nanos() > 0);
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        PluginMetrics.register(server);
+        assertEquals(encryptStats.getCalls(), server.getAttribute(new ObjectName("com.trinoudf:type=FunctionStats,name=encrypt_aes"), "Calls"));
+        assertTrue(server.isRegistered(new ObjectName("com.trinoudf:type=CryptoStats")));
+    }
+
+    /**
+     * Unit test for NULL results of try_decrypt_aes on values that cannot be decrypted.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void tryDecryptReturnsNullOnFailure() {
+        Slice key = utf8Slice("aesEncryptionKey");
+        Slice iv = utf8Slice("encryptionIntVec");
+        Slice encrypt = TrinoEncryptAES.encryptBinaryAES(utf8Slice("hello2"), key, iv);
+
+        assertEquals("hello2", TrinoTryDecryptAES.tryDecryptStringAes(encrypt, key, iv).toStringUtf8());
+        assertNull(TrinoTryDecryptAES.tryDecryptStringAes(utf8Slice("not base64!"), key, iv));
+        assertNull(TrinoTryDecryptAES.tryDecryptStringAes(utf8Slice("bm90IGVuY3J5cHRlZA=="), key, iv));
+        assertNull(TrinoTryDecryptAES.tryDecryptIpAes(encrypt, key, iv));
+        assertNull(TrinoTryDecryptAES.tryDecryptRawStringAes(utf8Slice("short"), key, iv));
+
+        Slice wrongKey = TrinoTryDecryptAES.tryDecryptStringAes(encrypt, utf8Slice("wrongEncryptionK"), iv);
+        assertTrue(wrongKey == null || !wrongKey.toStringUtf8().equals("hello2"));
+
+        Slice gcm = TrinoEncryptAESMode.encryptBinaryAES(utf8Slice("hello2"), key, iv, utf8Slice("gcm"));
+        assertNull(TrinoTryDecryptAES.tryDecryptStringAes(gcm, key, utf8Slice("otherIntVector00"), utf8Slice("gcm")));
+    }
+
+    /**
+     * Unit test for fixed width encryption and typed decryption of numeric, boolean and temporal values.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void fixedWidthEncryptDecrypt() {
+        Slice key = utf8Slice("aesEncryptionKey");
+        Slice iv = utf8Slice("encryptionIntVec");
+
+        Slice bigint = TrinoEncryptAESFixed.encryptBigintAESFixed(-1234567890123L, key, iv);
+        assertEquals(-1234567890123L, TrinoDecryptAESFixed.decryptBigintAes(bigint, key, iv));
+
+        Slice smallint = TrinoEncryptAESFixed.encryptSmallintAESFixed(-1234, key, iv);
+        assertEquals(-1234, TrinoDecryptAESFixed.decryptIntegerAes(smallint, key, iv));
+        assertEquals(-1234, TrinoDecryptAESFixed.decryptBigintAes(smallint, key, iv));
+        assertEquals(-7, TrinoDecryptAESFixed.decryptIntegerAes(TrinoEncryptAESFixed.encryptTinyintAESFixed(-7, key, iv), key, iv));
+
+        long realBits = Float.floatToRawIntBits(-1.5f);
+        assertEquals(realBits, TrinoDecryptAESFixed.decryptRealAes(TrinoEncryptAESFixed.encryptRealAESFixed(realBits, key, iv), key, iv));
+        assertEquals(18_000, TrinoDecryptAESFixed.decryptDateAes(TrinoEncryptAESFixed.encryptDateAESFixed(18_000, key, iv), key, iv));
+        Slice timestamp = TrinoEncryptAESFixed.encryptTimestampAESFixed(1_600_000_000_123_456L, key, iv);
+        assertEquals(1_600_000_000_123_456L, TrinoDecryptAESFixed.decryptTimestampAes(timestamp, key, iv));
+
+        Slice dbl = TrinoEncryptAESFixed.encryptDoubleAESFixed(2.2, key, iv);
+        assertEquals(2.2, TrinoDecryptAESFixed.decryptDoubleAes(dbl, key, iv), 0.0);
+
+        Slice bool = TrinoEncryptAESFixed.encryptBoolAESFixed(true, key, iv);
+        assertTrue(TrinoDecryptAESFixed.decryptBooleanAes(bool, key, iv));
+
+        // the type tag rejects values of another type, even of the same width
+        try {
+            TrinoDecryptAESFixed.decryptBigintAes(bool, key, iv);
+            fail("a BOOLEAN value should not decrypt as BIGINT");
+        }
+        catch (TrinoException e) {
+            assertEquals(INVALID_FUNCTION_ARGUMENT.toErrorCode(), e.getErrorCode());
+        }
+
+        try {
+            TrinoDecryptAESFixed.decryptBigintAes(timestamp, key, iv);
+            fail("a TIMESTAMP value should not decrypt as BIGINT");
+        }
+        catch (TrinoException e) {
+            assertEquals(INVALID_FUNCTION_ARGUMENT.toErrorCode(), e.getErrorCode());
+        }
+
+        try {
+            TrinoDecryptAESFixed.decryptIntegerAes(bigint, key, iv);
+            fail("a BIGINT value should not decrypt as INTEGER");
+        }
+        catch (TrinoException e) {
+            assertEquals(INVALID_FUNCTION_ARGUMENT.toErrorCode(), e.getErrorCode());
+        }
+
+        try {
+            TrinoDecryptAESFixed.decryptTimestampAes(dbl, key, iv);
+            fail("a DOUBLE value should not decrypt as TIMESTAMP");
+        }
+        catch (TrinoException e) {
+            assertEquals(INVALID_FUNCTION_ARGUMENT.toErrorCode(), e.getErrorCode());
+        }
+    }
+
+    /**
+     * Unit test for blind index tokens.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void blindIndexIsKeyedAndDeterministic() {
+        Slice key = utf8Slice("blindIndexKey");
+
+        Slice first = TrinoBlindIndex.blindIndexSlice(utf8Slice("customer-42"), key);
+        Slice second = TrinoBlindIndex.blindIndexSlice(utf8Slice("customer-42"), key);
+        assertEquals(16, first.length());
+        assertEquals(first, second);
+
+        assertNotEquals(first, TrinoBlindIndex.blindIndexSlice(utf8Slice("customer-43"), key));
+        assertNotEquals(first, TrinoBlindIndex.blindIndexSlice(utf8Slice("customer-42"), utf8Slice("otherIndexKey")));
+        assertEquals(first.slice(0, 8), TrinoBlindIndexLength.blindIndexSlice(utf8Slice("customer-42"), key, 8));
+
+        assertEquals(TrinoBlindIndex.blindIndexLong(42L, key), TrinoBlindIndex.blindIndexLong(42L, key));
+        assertNotEquals(TrinoBlindIndex.blindIndexLong(42L, key), TrinoBlindIndex.blindIndexLong(43L, key));
+
+        // values that compare equal give equal tokens
+        assertEquals(TrinoBlindIndex.blindIndexDouble(0.0, key), TrinoBlindIndex.blindIndexDouble(-0.0, key));
+        assertEquals(TrinoBlindIndex.blindIndexDouble(Double.NaN, key), TrinoBlindIndex.blindIndexDouble(Double.longBitsToDouble(0x7ff8000000000001L), key));
+        assertEquals(TrinoBlindIndexReal.blindIndexReal(Float.floatToRawIntBits(0.0f), key), TrinoBlindIndexReal.blindIndexReal(Float.floatToRawIntBits(-0.0f), key));
+        assertEquals(TrinoBlindIndexReal.blindIndexReal(Float.floatToRawIntBits(Float.NaN), key), TrinoBlindIndexReal.blindIndexReal(0x7fc00001, key));
+
+        // values of different types with the same encoding give different tokens
+        Slice one = wrappedBuffer(new byte[] {1, 0, 0, 0, 0, 0, 0, 0});
+        assertNotEquals(TrinoBlindIndex.blindIndexLong(1L, key), TrinoBlindIndex.blindIndexSlice(one, key));
+        assertNotEquals(TrinoBlindIndex.blindIndexLong(0L, key), TrinoBlindIndex.blindIndexDouble(0.0, key));
+        assertNotEquals(TrinoBlindIndex.blindIndexBool(true, key), TrinoBlindIndex.blindIndexSlice(wrappedBuffer(new byte[] {1}), key));
+    }
+
+    /**
+     * Unit test for chunked AES encryption and decryption of a whole value and of a range crossing a chunk boundary.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void chunkedEncryptDecryptRange() {
+        byte[] bytes = new byte[10000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        Slice value = wrappedBuffer(bytes);
+        Slice key = utf8Slice("aesEncryptionKey");
+
+        Slice encrypted = TrinoChunkedAES.encryptChunkedAes(value, key, 4096);
+        assertEquals(32 + 10000 + 3 * 16, encrypted.length());
+        assertEquals(value, TrinoChunkedAES.decryptChunkedBinaryAes(encrypted, key));
+
+        assertEquals(value.slice(4000, 200), TrinoChunkedAES.decryptRangeAes(encrypted, key, 4000, 200));
+        assertEquals(value.slice(9990, 10), TrinoChunkedAES.decryptRangeAes(encrypted, key, 9990, 100));
+        assertEquals(0, TrinoChunkedAES.decryptRangeAes(encrypted, key, 20000, 10).length());
+    }
+
+    /**
+     * Unit test for the decrypt and aggregate functions accumulating into primitive state, including combining partial states.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void decryptAggregationsAccumulatePrimitives() {
+        Slice key = utf8Slice("aesEncryptionKey");
+        Slice iv = utf8Slice("encryptionIntVec");
+
+        LongState sum = new LongState();
+        LongState partialSum = new LongState();
+        LongState min = new LongState();
+        LongState max = new LongState();
+        AverageState avg = new AverageState();
+        for (long value = -5; value <= 10; value++) {
+            Slice encrypted = TrinoEncryptAES.encryptLongAES(value, key, iv);
+            TrinoSumDecryptAES.input(value < 0 ? partialSum : sum, encrypted, key, iv);
+            TrinoMinDecryptAES.input(min, encrypted, key, iv);
+            TrinoMaxDecryptAES.input(max, encrypted, key, iv);
+            TrinoAvgDecryptAES.input(avg, encrypted, key, iv);
+        }
+        TrinoSumDecryptAES.combine(sum, partialSum);
+        TrinoSumDecryptAES.combine(sum, new LongState());
+
+        assertEquals(40L, sum.getValue());
+        assertEquals(-5L, min.getValue());
+        assertEquals(10L, max.getValue());
+        assertEquals(2.5, avg.getSum() / avg.getCount(), 0.0);
+        assertFalse(new LongState().isPresent());
+
+        TrinoAvgDecryptAES.input(avg, TrinoEncryptAES.encryptDoubleAES(2.2, key, iv), key, iv);
+        assertEquals(42.2, avg.getSum(), 1e-9);
+
+        // invalid Base64, a wrong key and non numeric plaintexts are user errors, not internal errors
+        Slice[] invalid = {utf8Slice("not base64!"), TrinoEncryptAES.encryptLongAES(1L, utf8Slice("otherEncryptKey"), iv), TrinoEncryptAES.encryptBinaryAES(utf8Slice("hello2"), key, iv)};
+        for (int i = 0; i < invalid.length; i++) {
+            try {
+                TrinoSumDecryptAES.input(new LongState(), invalid[i], key, iv);
+                fail("invalid input should fail");
+            }
+            catch (TrinoException e) {
+                assertEquals((i < 2 ? INVALID_FUNCTION_ARGUMENT : INVALID_CAST_ARGUMENT).toErrorCode(), e.getErrorCode());
+            }
+        }
+    }
+
+    /**
+     * Unit test for loading a JCEKS keystore through the plugin configuration and using its key by alias.
+     * @throws IOException
+     * @throws GeneralSecurityException
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void keyAliasFromKeyStore() throws IOException, GeneralSecurityException {
+        char[] password = "changeit".toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("JCEKS");
+        keyStore.load(null, password);
+        keyStore.setEntry("customer", new KeyStore.SecretKeyEntry(new SecretKeySpec("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8), "AES")), new KeyStore.PasswordProtection(password));
+
+        Path keyStoreFile = Files.createTempFile("trinoudf", ".jceks");
+        Path configFile = Files.createTempFile("trinoudf", ".properties");
+        try {
+            try (OutputStream output = Files.newOutputStream(keyStoreFile)) {
+                keyStore.store(output, password);
+            }
+            String config = "keystore.path=" + keyStoreFile.toAbsolutePath() + "\nkeystore.type=JCEKS\nkeystore.password=changeit\nkeystore.iv.customer=encryptionIntVec\n";
+            Files.write(configFile, config.getBytes(StandardCharsets.UTF_8));
+
+            KeyRegistry registry = KeyRegistry.load(PluginConfig.load(configFile));
+            assertEquals(1, registry.size());
+            KeyRegistry.install(registry);
+
+            Slice encrypted = TrinoKeyAliasEncryptAES.encryptBinaryAES(utf8Slice("hello"), utf8Slice("customer"));
+            assertEquals(utf8Slice("hello"), TrinoKeyAliasAES.decryptStringAES(encrypted, utf8Slice("Customer")));
+            assertEquals("42", TrinoKeyAliasAES.decryptStringAES(TrinoKeyAliasEncryptAES.encryptLongAES(42L, utf8Slice("customer")), utf8Slice("customer")).toStringUtf8());
+
+            try {
+                TrinoKeyAliasAES.decryptStringAES(encrypted, utf8Slice("unknown"));
+                fail("an unknown key alias should fail");
+            }
+            catch (TrinoException expected) {
+            }
+        }
+        finally {
+            KeyRegistry.install(KeyRegistry.load(PluginConfig.empty()));
+            Files.delete(keyStoreFile);
+            Files.delete(configFile);
+        }
+    }
+
+    /**
+     * Unit test for the per mode JCE provider configuration, including the startup benchmark of auto.
+     * @throws GeneralSecurityException
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void cipherProvidersFollowConfiguration() throws GeneralSecurityException {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("cipher.provider.cbc", "SunJCE");
+        properties.put("cipher.provider.ctr", "auto");
+        properties.put("cipher.provider.benchmark-millis", "5");
+        try {
+            CipherProviders.configure(PluginConfig.of(properties));
+            assertEquals("SunJCE", CipherProviders.getProviderName("AES/CBC/PKCS5PADDING"));
+            assertTrue(CipherProviders.getInstance("AES/CTR/NoPadding") != null);
+
+            properties.put("cipher.provider.gcm", "NoSuchProvider");
+            try {
+                CipherProviders.configure(PluginConfig.of(properties));
+                fail("an unknown cipher provider should fail");
+            }
+            catch (IllegalArgumentException expected) {
+            }
+        }
+        finally {
+            CipherProviders.configure(PluginConfig.empty());
+        }
+    }
+
+    /**
+     * Unit test for Base64Codec against java.util.Base64 for the standard and URL safe alphabets.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void base64CodecMatchesJavaBase64() {
+        java.util.Random random = new java.util.Random(42);
+        for (int length = 0; length < 100; length++) {
+            byte[] payload = new byte[length];
+            random.nextBytes(payload);
+
+            Slice standard = Base64Codec.STANDARD.encode(payload, 0, length);
+            assertEquals(Base64.getEncoder().encodeToString(payload), standard.toStringUtf8());
+            Slice urlSafe = Base64Codec.URL_SAFE.encode(wrappedBuffer(payload));
+            assertEquals(Base64.getUrlEncoder().encodeToString(payload), urlSafe.toStringUtf8());
+
+            byte[] decoded = new byte[Base64Codec.STANDARD.maxDecodedLength(standard.length())];
+            int decodedLength = Base64Codec.STANDARD.decode(standard, decoded, 0);
+            assertEquals(wrappedBuffer(payload), wrappedBuffer(decoded, 0, decodedLength));
+            assertEquals(wrappedBuffer(payload), wrappedBuffer(Base64Codec.URL_SAFE.decode(utf8Slice(Base64.getUrlEncoder().withoutPadding().encodeToString(payload)))));
+        }
+
+        for (String invalid : new String[] {"A", "AB=C", "AB*=", "A===", "AAA=="}) {
+            try {
+                Base64Codec.STANDARD.decode(utf8Slice(invalid));
+                fail("invalid base64 should fail");
+            }
+            catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    /**
+     * Unit test for the random Initialize Vector functions in every AES mode.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void randomIvEncryptDecryptSlice() {
+        Slice key = utf8Slice("randomIvKey");
+        Slice payload = utf8Slice("hello random iv");
+
+        for (String name : new String[] {"CBC", "CTR", "GCM"}) {
+            Slice mode = utf8Slice(name);
+            Slice first = TrinoRandomIvEncryptAESMode.encryptBinaryAES(payload, key, mode);
+            Slice second = TrinoRandomIvEncryptAESMode.encryptBinaryAES(payload, key, mode);
+
+            assertNotEquals(first, second);
+            assertEquals(payload, TrinoRandomIvAES.decryptStringAES(first, key, mode));
+            assertEquals(payload, TrinoRandomIvAES.decryptStringAES(second, key, mode));
+        }
+
+        Slice encrypted = TrinoRandomIvEncryptAES.encryptLongAES(42L, key);
+        assertEquals(utf8Slice("42"), TrinoRandomIvAES.decryptStringAES(encrypted, key));
+
+        // GCM authenticates, so a wrong key always fails
+        Slice gcm = utf8Slice("GCM");
+        try {
+            TrinoRandomIvAES.decryptStringAES(TrinoRandomIvEncryptAESMode.encryptLongAES(42L, key, gcm), utf8Slice("otherKey"), gcm);
+            fail("GCM decryption with a wrong key should fail");
+        }
+        catch (IllegalStateException expected) {
+        }
+        assertTrue(IvGenerator.getAlgorithm() != null);
+    }
+
+    /**
+     * Unit test for admission, hits and purging of the DecryptionCache.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void decryptionCacheAdmitsRepeatedValues() throws InterruptedException {
+        Slice key = utf8Slice("decryptionCacheKey");
+        Slice iv = utf8Slice("encryptionIntVec");
+        Slice country = TrinoEncryptAES.encryptBinaryAES(utf8Slice("Malaysia"), key, iv);
+        DecryptionCacheStats stats = PluginMetrics.decryptionCache();
+
+        DecryptionCache.install(DecryptionCache.create(1024 * 1024, 60, 1024));
+        try {
+            long hits = stats.getHits();
+            long admissions = stats.getAdmissions();
+
+            // first sighting is only recorded, the second one is cached, the third one hits
+            for (int i = 0; i < 3; i++) {
+                assertEquals(utf8Slice("Malaysia"), TrinoDecryptAES.decryptStringAes(country, key, iv));
+            }
+            assertEquals(admissions + 1, stats.getAdmissions());
+            assertEquals(hits + 1, stats.getHits());
+            assertTrue(stats.getRetainedBytes() > 0);
+
+            // the same value under another key is not a hit
+            Slice otherKey = utf8Slice("otherCacheKey");
+            Slice otherCountry = TrinoEncryptAES.encryptBinaryAES(utf8Slice("Malaysia"), otherKey, iv);
+            assertEquals(utf8Slice("Malaysia"), TrinoDecryptAES.decryptStringAes(otherCountry, otherKey, iv));
+            assertEquals(hits + 1, stats.getHits());
+
+            KeyGenerator.invalidateAll();
+            assertEquals(0, stats.getEntries());
+            assertEquals(utf8Slice("Malaysia"), TrinoDecryptAES.decryptStringAes(country, key, iv));
+            assertEquals(hits + 1, stats.getHits());
+
+            // concurrent misses update the frequency sketch from many threads, through several ageing periods
+            DecryptionCache.install(DecryptionCache.create(1024, 60, 1024));
+            Thread[] threads = new Thread[8];
+            boolean[] failed = new boolean[threads.length];
+            for (int t = 0; t < threads.length; t++) {
+                int thread = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String value = "value-" + thread + "-" + (i % 500);
+                        Slice encrypted = TrinoEncryptAES.encryptBinaryAES(utf8Slice(value), key, iv);
+                        if (!utf8Slice(value).equals(TrinoDecryptAES.decryptStringAes(encrypted, key, iv))) {
+                            failed[thread] = true;
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (boolean threadFailed : failed) {
+                assertFalse(threadFailed);
+            }
+
+            // the sketch still admits a value seen twice after the concurrent load
+            long admitted = stats.getAdmissions();
+            Slice city = TrinoEncryptAES.encryptBinaryAES(utf8Slice("Kuala Lumpur"), key, iv);
+            TrinoDecryptAES.decryptStringAes(city, key, iv);
+            TrinoDecryptAES.decryptStringAes(city, key, iv);
+            assertEquals(admitted + 1, stats.getAdmissions());
+        }
+        finally {
+            DecryptionCache.install(DecryptionCache.disabled());
+        }
+    }
+
+    /**
+     * Unit test for reuse of derived keys by KeyGenerator.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void keyGeneratorCachesDerivedKeys() {
+        long hits = KeyGenerator.getShaKeyCacheStats().hitCount();
+
+        SecretKeySpec first = KeyGenerator.aesShaKeySpecGenerator("keyGeneratorCacheKey");
+        SecretKeySpec second = KeyGenerator.aesShaKeySpecGenerator("keyGeneratorCacheKey");
+
+        assertSame(first, second);
+        assertTrue(KeyGenerator.getShaKeyCacheStats().hitCount() > hits);
+
+        // the DecryptionCache identifies keys by a digest of the derived key, computed once per key
+        assertSame(KeyGenerator.keyDigest(first), KeyGenerator.keyDigest(second));
+        assertEquals(32, KeyGenerator.keyDigest(first).length());
+        assertNotEquals(KeyGenerator.keyDigest(first), KeyGenerator.keyDigest(KeyGenerator.aesShaKeySpecGenerator("otherCacheKey")));
+    }
+
+    /**
+     * Unit test for compatibility of the pooled Jasypt encryptor with BasicTextEncryptor ciphertexts.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void jasyptDecryptsBasicTextEncryptorOutput() {
+        String expected = "hello2";
+
+        BasicTextEncryptor basicTextEncryptor = new BasicTextEncryptor();
+        basicTextEncryptor.setPasswordCharArray("cipher".toCharArray());
+        String encrypt = basicTextEncryptor.encrypt(expected);
+
+        assertEquals(expected, SecretFunctions.decryptString(utf8Slice(encrypt)).toStringUtf8());
+        assertEquals(expected, basicTextEncryptor.decrypt(SecretFunctions.encryptString(utf8Slice(expected)).toStringUtf8()));
+    }
+
+    /**
+     * Unit test for data key caching of KmsDecrypter, using a local JCE master key as KMS stand-in.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void kmsDecrypterCachesDataKeys() throws JMException {
+        String expected = "hello2";
+
+        JceMasterKey masterKey = JceMasterKey.getInstance(new SecretKeySpec(new byte[32], "AES"), "local", "test-key", "AES/GCM/NoPadding");
+        String encrypt = new AwsCrypto().encryptString(masterKey, expected).getResult();
+
+        KmsDecrypter kmsDecrypter = new KmsDecrypter(masterKey, 10, 60000);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected, kmsDecrypter.decryptString(encrypt));
+        }
+
+        assertEquals(1, kmsDecrypter.getKmsCalls());
+        assertEquals(99, kmsDecrypter.getKmsCallsSaved());
+
+        // the counters are exposed through JMX once the decrypter is added as a component
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        PluginMetrics.register(server);
+        PluginMetrics.component("KmsDecrypter", kmsDecrypter);
+        assertEquals(1L, server.getAttribute(new ObjectName("com.trinoudf:type=KmsDecrypter"), "KmsCalls"));
+        assertEquals(0L, server.getAttribute(new ObjectName("com.trinoudf:type=KmsDecrypter"), "CoalescedCalls"));
+    }
+
+    /**
+     * Unit test for the registration of the optional Jasypt and KMS function classes found on the classpath.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void pluginRegistersOptionalFunctions() {
+        Set<Class<?>> functions = new SecretPlugin().getFunctions();
+
+        assertTrue(functions.contains(TrinoEncryptAES.class));
+        assertTrue(functions.contains(TrinoEncryptAESMode.class));
+        assertTrue(functions.contains(SecretFunctions.class));
+        assertTrue(functions.contains(KmsFunctions.class));
+    }
+
+    /**
+     * Unit test for parallel segmented AES CTR producing the serial AES CTR ciphertext under a fresh nonce for any segment size and parallelism.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void parallelCtrMatchesSerialCtr() throws GeneralSecurityException {
+        byte[] bytes = new byte[100_003];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        Slice value = wrappedBuffer(bytes);
+        SecretKeySpec keySpec = KeyGenerator.aesShaKeySpecGenerator(utf8Slice("aesEncryptionKey"));
+        Slice iv = utf8Slice("encryptionIntVec");
+
+        ParallelCTR serial = ParallelCTR.create(Long.MAX_VALUE, 1024 * 1024, 1);
+        ParallelCTR small = ParallelCTR.create(0, 1024, 4);
+        ParallelCTR odd = ParallelCTR.create(4096, 4096 + 16, 3);
+
+        for (ParallelCTR parallelCTR : new ParallelCTR[] {serial, small, odd}) {
+            Slice ciphertext = parallelCTR.encrypt(value, keySpec, iv);
+            Slice nonce = ciphertext.slice(0, ParallelCTR.NONCE_LENGTH);
+
+            Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new IvParameterSpec(ParallelCTR.initialCounter(nonce, iv)));
+            byte[] expected = cipher.doFinal(bytes);
+
+            assertEquals(value.length() + ParallelCTR.NONCE_LENGTH, ciphertext.length());
+            assertEquals(wrappedBuffer(expected), ciphertext.slice(ParallelCTR.NONCE_LENGTH, value.length()));
+            assertEquals(value, serial.decrypt(ciphertext, keySpec, iv));
+            assertEquals(value, small.decrypt(ciphertext, keySpec, iv));
+            assertEquals(value, odd.decrypt(ciphertext, keySpec, iv));
+        }
+
+        // equal values never share a keystream
+        assertNotEquals(small.encrypt(value, keySpec, iv), small.encrypt(value, keySpec, iv));
+
+        // counter carries across the low 64 bits of a segment's counter block
+        byte[] counter = ParallelCTR.counterBlock(wrappedBuffer(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, -1, -1, -1, -1, -1, -1, -1, -16}), 16);
+        assertEquals(wrappedBuffer(new byte[] {1, 2, 3, 4, 5, 6, 7, 9, 0, 0, 0, 0, 0, 0, 0, 0}), wrappedBuffer(counter));
+
+        assertEquals(Slices.EMPTY_SLICE, small.decrypt(small.encrypt(Slices.EMPTY_SLICE, keySpec, iv), keySpec, iv));
+
+        try {
+            small.encrypt(value, keySpec, utf8Slice("short"));
+            fail("a short IV should fail");
+        }
+        catch (IllegalArgumentException e) {
+            // Initialize Vector must be one AES block
+        }
+
+        try {
+            small.decrypt(utf8Slice("short"), keySpec, iv);
+            fail("a short ciphertext should fail");
+        }
+        catch (IllegalArgumentException e) {
+            // ciphertext must hold its nonce
+        }
+    }
+
+    /**
+     * Unit test for re-encryption under a new key giving the result of decryption followed by encryption, also from Jasypt values.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void reencryptMatchesDecryptThenEncrypt() {
+        Slice oldKey = utf8Slice("aesEncryptionKey");
+        Slice oldIv = utf8Slice("encryptionIntVec");
+        Slice newKey = utf8Slice("rotatedAesKey2021");
+        Slice newIv = utf8Slice("rotatedIntVector");
+
+        for (String expected : new String[] {"hello2", "a longer value which spans several AES blocks of plaintext"}) {
+            Slice value = utf8Slice(expected);
+            for (Methods method : new Methods[] {Methods.CBC, Methods.CTR, Methods.GCM}) {
+                AESEncrypt aesEncrypt = new AESEncrypt(method);
+                Slice rotated = new AESReencrypt(method).sliceAES(aesEncrypt.sliceAES(value, oldKey, oldIv), oldKey, oldIv, newKey, newIv);
+
+                assertEquals(value, new AESDecrypt(method).sliceAES(rotated, newKey, newIv));
+                if (method == Methods.CBC) {
+                    assertEquals(aesEncrypt.sliceAES(value, newKey, newIv), rotated);
+                }
+            }
+
+            Slice fromJasypt = SecretFunctions.reencryptAesFromJasypt(SecretFunctions.encryptString(value), newKey, newIv);
+            assertEquals(new AESEncrypt(Methods.CBC).sliceAES(value, newKey, newIv), fromJasypt);
+        }
+
+        try {
+            new AESReencrypt(Methods.GCM).sliceAES(new AESEncrypt(Methods.GCM).sliceAES(utf8Slice("hello2"), oldKey, oldIv), newKey, oldIv, newKey, newIv);
+            fail("re-encryption with a wrong key should fail");
+        }
+        catch (IllegalStateException e) {
+            // wrong old key
+        }
+    }
+
+    /**
+     * Unit test for compress then encrypt, detecting compressed and stored values and rejecting plain encrypt_aes values on decryption.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void compressedEncryptDecryptDetectsHeader() {
+        Slice key = utf8Slice("aesEncryptionKey");
+        Slice iv = utf8Slice("encryptionIntVec");
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append("{\"id\":").append(i).append(",\"country\":\"MY\",\"tier\":\"gold\"},");
+        }
+        Slice large = utf8Slice(json.append("{}]").toString());
+        Slice small = utf8Slice("hello2");
+
+        CompressedPayload.setMinBytes(256);
+        assertTrue(CompressedPayload.isCompressed(CompressedPayload.compress(large)));
+        assertFalse(CompressedPayload.isCompressed(CompressedPayload.compress(small)));
+
+        Slice encrypted = TrinoCompressedAES.encryptCompressedAES(large, key, iv);
+        assertTrue(encrypted.length() * 4 < TrinoEncryptAES.encryptBinaryAES(large, key, iv).length());
+        assertEquals(large, TrinoCompressedAES.decryptCompressedStringAES(encrypted, key, iv));
+        assertEquals(large, TrinoCompressedAES.decryptCompressedBinaryAES(TrinoCompressedAES.encryptCompressedAES(large, key, iv, utf8Slice("GCM")), key, iv, utf8Slice("GCM")));
+        assertEquals(small, TrinoCompressedAES.decryptCompressedStringAES(TrinoCompressedAES.encryptCompressedAES(small, key, iv), key, iv));
+        assertEquals(Slices.EMPTY_SLICE, TrinoCompressedAES.decryptCompressedStringAES(TrinoCompressedAES.encryptCompressedAES(Slices.EMPTY_SLICE, key, iv), key, iv));
+
+        // values of encrypt_aes have no header and are rejected, even when they start like a codec byte
+        for (Slice legacy : new Slice[] {large, wrappedBuffer(new byte[] {0, 10, 0, 0, 1}), wrappedBuffer(new byte[] {1, 2})}) {
+            try {
+                TrinoCompressedAES.decryptCompressedBinaryAES(TrinoEncryptAES.encryptBinaryAES(legacy, key, iv), key, iv);
+                fail("a value without a compression header should fail");
+            }
+            catch (TrinoException e) {
+                assertEquals(INVALID_FUNCTION_ARGUMENT.toErrorCode(), e.getErrorCode());
+            }
+        }
+
+        try {
+            CompressedPayload.decompress(wrappedBuffer(new byte[] {'T', 'U', 'Z', 2, 0}));
+            fail("an unknown codec should fail");
+        }
+        catch (IllegalArgumentException e) {
+            // unknown format version
+        }
+    }
+
+    /**
+     * Unit test for encryption and decryption of every array element, keeping NULL elements and empty arrays.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void arrayEncryptDecryptKeepsNulls() {
+        Slice key = utf8Slice("aesEncryptionKey");
+        Slice iv = utf8Slice("encryptionIntVec");
+
+        BlockBuilder strings = VARCHAR.createBlockBuilder(null, 3);
+        VARCHAR.writeSlice(strings, utf8Slice("hello2"));
+        strings.appendNull();
+        VARCHAR.writeSlice(strings, utf8Slice(""));
+        Block encrypted = TrinoEncryptAESArray.encryptArrayAES(VARCHAR, strings.build(), key, iv);
+
+        assertEquals(3, encrypted.getPositionCount());
+        assertEquals(TrinoEncryptAES.encryptBinaryAES(utf8Slice("hello2"), key, iv), VARCHAR.getSlice(encrypted, 0));
+        assertTrue(encrypted.isNull(1));
+
+        Block decrypted = TrinoDecryptAES.decryptArrayAes(encrypted, key, iv);
+        assertEquals(3, decrypted.getPositionCount());
+        assertEquals(utf8Slice("hello2"), VARCHAR.getSlice(decrypted, 0));
+        assertTrue(decrypted.isNull(1));
+        assertEquals(Slices.EMPTY_SLICE, VARCHAR.getSlice(decrypted, 2));
+
+        // numeric elements are encrypted as their decimal String like encrypt_aes
+        BlockBuilder numbers = BIGINT.createBlockBuilder(null, 2);
+        numbers.appendNull();
+        BIGINT.writeLong(numbers, -42);
+        Block decryptedNumbers = TrinoDecryptAES.decryptArrayAes(TrinoEncryptAESArray.encryptArrayAES(BIGINT, numbers.build(), key, iv), key, iv);
+        assertTrue(decryptedNumbers.isNull(0));
+        assertEquals(utf8Slice("-42"), VARCHAR.getSlice(decryptedNumbers, 1));
+
+        Block empty = TrinoEncryptAESArray.encryptArrayAES(VARCHAR, VARCHAR.createBlockBuilder(null, 0).build(), key, iv);
+        assertEquals(0, empty.getPositionCount());
+        assertEquals(0, TrinoDecryptAES.decryptArrayAes(empty, key, iv).getPositionCount());
+    }
+
+    /**
+     * Regression test for decrypt_aes_binary and ByteBuffer decryption returning the padding block as trailing zero bytes.
+     * @author Wong Kok-Lim
+     */
+    @Test
+    public void decryptBinaryHasNoTrailingBytes() {
+        Slice key = utf8Slice("aesEncryptionKey");
+        Slice iv = utf8Slice("encryptionIntVec");
+
+        for (int length : new int[] {1, 4, 15, 16, 17, 32}) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) (i + 1);
+            }
+            Slice value = wrappedBuffer(bytes);
+
+            Slice encrypted = TrinoEncryptAES.encryptBinaryAES(value, key, iv);
+            assertEquals(value, TrinoDecryptAES.decryptBinaryAes(encrypted, key, iv));
+
+            ByteBuffer decrypted = new AESCBCDecrypter().decryptByteBuffer(ByteBuffer.wrap(Decoder.decode(encrypted.toStringUtf8())), "aesEncryptionKey", "encryptionIntVec");
+            assertEquals(length, decrypted.remaining());
+            assertEquals(value, wrappedBuffer(decrypted));
+        }
+    }
+
     /** Unit test for JDBC connection to Trino.
      * @author Wong Kok-Lim
      */
@@ -184,4 +1071,32 @@ public class UnitTest {
     private Statement getStatement(Connection con) throws SQLException {
         return con.createStatement();
     }
+
+    /**
+     * Heap implementation of DecryptedLongState, standing in for the state class Trino generates.
+     */
+    private static final class LongState implements DecryptedLongState {
+        private long value;
+        private boolean present;
+
+        public long getValue() { return value; }
+        public void setValue(long value) { this.value = value; }
+        public boolean isPresent() { return present; }
+        public void setPresent(boolean present) { this.present = present; }
+        public long getEstimatedSize() { return Long.BYTES + 1; }
+    }
+
+    /**
+     * Heap implementation of DecryptedAverageState, standing in for the state class Trino generates.
+     */
+    private static final class AverageState implements DecryptedAverageState {
+        private double sum;
+        private long count;
+
+        public double getSum() { return sum; }
+        public void setSum(double sum) { this.sum = sum; }
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+        public long getEstimatedSize() { return Double.BYTES + Long.BYTES; }
+    }
 }